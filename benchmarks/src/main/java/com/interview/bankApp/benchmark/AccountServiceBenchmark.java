@@ -0,0 +1,73 @@
+package com.interview.bankApp.benchmark;
+
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.CursorPage;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The account value updates of a transfer and the history filters of {@code AccountService}, on random accounts.
+ * The filters of the last hours are measured both inside the window of the recent activity index (12 hours) and
+ * beyond it (72 hours), where the transactions are read from the table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    @Benchmark
+    public Account accountValueUpdateSender(BankAppState state) throws AccountNotFoundException {
+        return state.accountService.accountValueUpdateSender(state.newTransfer());
+    }
+
+    @Benchmark
+    public Account accountValueUpdateReceiver(BankAppState state) throws AccountNotFoundException {
+        return state.accountService.accountValueUpdateReceiver(state.newTransfer());
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionsForAnAccountForLastHours(BankAppState state) throws AccountNotFoundException, InvalidInputException {
+        return state.accountService.getAllTransactionsForAnAccountForLastHours(state.randomAccountId(), 12);
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionsForAnAccountForLastHoursFromTable(BankAppState state) throws AccountNotFoundException, InvalidInputException {
+        return state.accountService.getAllTransactionsForAnAccountForLastHours(state.randomAccountId(), 72);
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionsForAnAccountForToday(BankAppState state) throws AccountNotFoundException {
+        return state.accountService.getAllTransactionsForAnAccountForToday(state.randomAccountId());
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionsForAnAccountForYesterday(BankAppState state) throws AccountNotFoundException {
+        return state.accountService.getAllTransactionsForAnAccountForYesterday(state.randomAccountId());
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionsForAnAccountAfterDate(BankAppState state) throws AccountNotFoundException, InvalidInputException {
+        return state.accountService.getAllTransactionsForAnAccountAfterDate(state.randomAccountId(), LocalDate.now().minusDays(3).toString());
+    }
+
+    @Benchmark
+    public CursorPage<TransactionRow> getTransactionsForAnAccount(BankAppState state) throws AccountNotFoundException, InvalidInputException {
+        return state.accountService.getTransactionsForAnAccount(state.randomAccountId(), TransactionDirection.BOTH, 50, null);
+    }
+}
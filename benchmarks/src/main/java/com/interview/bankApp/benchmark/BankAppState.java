@@ -0,0 +1,129 @@
+package com.interview.bankApp.benchmark;
+
+import com.interview.bankApp.BankAppApplication;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.service.AccountService;
+import com.interview.bankApp.service.TransactionService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The application on a random port, on an in-memory database of its own, filled with {@code accounts} accounts
+ * of {@code historyLength} sent transactions each. Account {@code i} sends its transactions to account {@code i + 1},
+ * dated over the last 24 hours, so every account also receives {@code historyLength} transactions.
+ * The transfers made by the benchmarks are added to the history.
+ */
+@State(Scope.Benchmark)
+public class BankAppState {
+
+    static final long ACCOUNT_VALUE = 1_000_000_000_000L;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_ACCOUNT = "insert into account (account_id, account_currency, account_number, account_status,"
+            + " account_value, opening_balance, version) values (?, 'RON', ?, 'OPEN', ?, ?, 0)";
+
+    private static final String INSERT_TRANSACTION = "insert into transaction (transaction_id, transaction_currency, transaction_date,"
+            + " transaction_receiver, transaction_sender, transaction_value, sender_amount, receiver_amount, account_id, receiver_account_id)"
+            + " values (?, 'RON', ?, ?, ?, 100, 100, 100, ?, ?)";
+
+    @Param({"1000", "10000"})
+    public int accounts;
+
+    @Param({"10", "100"})
+    public int historyLength;
+
+    ConfigurableApplicationContext context;
+
+    AccountService accountService;
+
+    TransactionService transactionService;
+
+    private final AtomicLong nextTransactionId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        // the web security configuration needs a web application, the server listens on a random port
+        context = new SpringApplicationBuilder(BankAppApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .properties("spring.main.banner-mode=off",
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime())
+                .run();
+        accountService = context.getBean(AccountService.class);
+        transactionService = context.getBean(TransactionService.class);
+        fill(context.getBean(JdbcTemplate.class));
+        nextTransactionId.set((long) accounts * historyLength + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void fill(JdbcTemplate jdbcTemplate) {
+        List<Object[]> accountRows = new ArrayList<>(accounts);
+        for (int accountId = 1; accountId <= accounts; accountId++)
+            accountRows.add(new Object[]{accountId, accountNumber(accountId), ACCOUNT_VALUE, ACCOUNT_VALUE});
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT, accountRows);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> transactionRows = new ArrayList<>(BATCH_SIZE);
+        long transactionId = 1;
+        for (int accountId = 1; accountId <= accounts; accountId++) {
+            int receiverId = accountId % accounts + 1;
+            for (int i = 0; i < historyLength; i++) {
+                Timestamp transactionDate = Timestamp.valueOf(now.minusSeconds((i + 1L) * 86_400 / (historyLength + 1)));
+                transactionRows.add(new Object[]{transactionId++, transactionDate, accountNumber(receiverId), accountNumber(accountId), accountId, receiverId});
+                if (transactionRows.size() == BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactionRows);
+                    transactionRows.clear();
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactionRows);
+    }
+
+    static String accountNumber(long accountId) {
+        return String.format("%08d", accountId);
+    }
+
+    long randomAccountId() {
+        return ThreadLocalRandom.current().nextInt(accounts) + 1;
+    }
+
+    /**
+     * @return {@code Transaction} - a new transfer of 1 between two different random accounts
+     */
+    Transaction newTransfer() {
+        long senderId = randomAccountId();
+        long receiverId = senderId % accounts + 1 + ThreadLocalRandom.current().nextInt(accounts - 1);
+        if (receiverId > accounts)
+            receiverId -= accounts;
+        return Transaction.builder()
+                .transactionId(nextTransactionId.getAndIncrement())
+                .transactionValue(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionCurrency("RON")
+                .transactionSender(accountNumber(senderId))
+                .transactionReceiver(accountNumber(receiverId))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.interview.bankApp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the {@code Account} and {@code Transaction} responses, with the date settings of the application.
+ * The account is serialized with {@code historyLength} transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int historyLength;
+
+    private ObjectMapper objectMapper;
+
+    private Account account;
+
+    private Transaction transaction;
+
+    private byte[] transactionJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>(historyLength);
+        for (int i = 0; i < historyLength; i++)
+            transactions.add(Transaction.builder()
+                    .transactionId(i + 1)
+                    .transactionValue(100L)
+                    .senderAmount(100L)
+                    .receiverAmount(100L)
+                    .transactionDate(now.minusMinutes(i))
+                    .transactionCurrency("RON")
+                    .transactionSender(BankAppState.accountNumber(1))
+                    .transactionReceiver(BankAppState.accountNumber(2))
+                    .build());
+        account = Account.builder()
+                .accountId(1L)
+                .accountNumber(BankAppState.accountNumber(1))
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(BankAppState.ACCOUNT_VALUE)
+                .openingBalance(BankAppState.ACCOUNT_VALUE)
+                .version(0L)
+                .transactions(transactions)
+                .build();
+        transactions.forEach(accountTransaction -> accountTransaction.setAccount(account));
+        transaction = transactions.get(0);
+        transactionJson = objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] serializeAccount() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserializeTransaction() throws IOException {
+        return objectMapper.readValue(transactionJson, Transaction.class);
+    }
+}
@@ -0,0 +1,41 @@
+package com.interview.bankApp.benchmark;
+
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between random accounts through {@code TransactionService.createTransaction}, in the transfer mode of
+ * {@code application.properties} (it can be changed with {@code -jvmArgs -DbankApp.transactions.mode=optimistic})
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    @Benchmark
+    public Transaction createTransaction(BankAppState state) throws AccountNotFoundException {
+        Transaction transaction = state.newTransfer();
+        state.transactionService.createTransaction(transaction);
+        return transaction;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Transaction createTransactionConcurrently(BankAppState state) throws AccountNotFoundException {
+        Transaction transaction = state.newTransfer();
+        state.transactionService.createTransaction(transaction);
+        return transaction;
+    }
+}
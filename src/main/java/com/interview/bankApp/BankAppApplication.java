@@ -4,9 +4,11 @@ package com.interview.bankApp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 //@SpringBootApplication(exclude = { SecurityAutoConfiguration.class})
 @SpringBootApplication
+@EnableScheduling
 public class BankAppApplication {
 
 	public static void main(String[] args) {
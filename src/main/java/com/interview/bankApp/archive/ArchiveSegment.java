@@ -0,0 +1,327 @@
+package com.interview.bankApp.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable, compressed file of the archived transactions of one day. The transactions of every account are a separate
+ * deflate block, in {@code (transactionDate, transactionId)} order, and the file ends with an index of the blocks sorted
+ * by account id: {@code [magic][blocks][count][accountId, offset, length, rows]*[indexOffset][magic]}.
+ * Reading the history of an account decompresses only its own block.
+ */
+class ArchiveSegment {
+
+    static final String SUFFIX = ".arc";
+
+    private static final int MAGIC = 0x54415243;
+
+    private static final int SENT = 1;
+
+    private static final int RECEIVED = 2;
+
+    private final Path path;
+
+    private final LocalDate archiveDate;
+
+    private volatile Index index;
+
+    ArchiveSegment(Path path, LocalDate archiveDate) {
+        this.path = path;
+        this.archiveDate = archiveDate;
+    }
+
+    static String fileName(LocalDate archiveDate, long archivedAtMillis) {
+        return String.format("transactions-%s-%013d%s", archiveDate, archivedAtMillis, SUFFIX);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    LocalDate getArchiveDate() {
+        return archiveDate;
+    }
+
+    /**
+     * This method reads the transactions of an account
+     * @param accountId - the account id
+     * @return {@code List<ArchivedTransaction>} - in {@code (transactionDate, transactionId)} order, empty if the account has none in this segment
+     */
+    List<ArchivedTransaction> read(long accountId) throws IOException {
+        Index blocks = index();
+        int block = Arrays.binarySearch(blocks.accountIds, accountId);
+        if (block < 0)
+            return Collections.emptyList();
+        ByteBuffer compressed = ByteBuffer.allocate(blocks.lengths[block]);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (compressed.hasRemaining())
+                if (channel.read(compressed, blocks.offsets[block] + compressed.position()) < 0)
+                    throw new IOException("Archive segment " + path + " is truncated");
+        }
+        List<ArchivedTransaction> transactions = new ArrayList<>(blocks.rows[block]);
+        try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed.array())))) {
+            for (int i = 0; i < blocks.rows[block]; i++) {
+                int legs = input.readByte();
+                long transactionId = input.readLong();
+                LocalDateTime transactionDate = LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+                transactions.add(new ArchivedTransaction(transactionId, transactionDate, input.readLong(), input.readLong(), input.readLong(),
+                        input.readUTF(), input.readUTF(), input.readUTF(), (legs & SENT) != 0, (legs & RECEIVED) != 0));
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * The index is read on the first access and then kept, it holds 24 bytes per account of the segment
+     */
+    private Index index() throws IOException {
+        Index blocks = index;
+        if (blocks != null)
+            return blocks;
+        synchronized (this) {
+            if (index == null)
+                index = readIndex(path);
+            return index;
+        }
+    }
+
+    private static Index readIndex(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(12);
+            channel.read(trailer, channel.size() - 12);
+            trailer.flip();
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC)
+                throw new IOException("File " + path + " is not an archive segment");
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset)), 64 * 1024));
+            int count = input.readInt();
+            Index blocks = new Index(count);
+            for (int i = 0; i < count; i++) {
+                blocks.accountIds[i] = input.readLong();
+                blocks.offsets[i] = input.readLong();
+                blocks.lengths[i] = input.readInt();
+                blocks.rows[i] = input.readInt();
+            }
+            return blocks;
+        }
+    }
+
+    private static class Index {
+
+        private final long[] accountIds;
+
+        private final long[] offsets;
+
+        private final int[] lengths;
+
+        private final int[] rows;
+
+        private Index(int count) {
+            accountIds = new long[count];
+            offsets = new long[count];
+            lengths = new int[count];
+            rows = new int[count];
+        }
+    }
+
+    /**
+     * Writes a segment to a temporary file. The transaction legs have to be added in {@code (accountId, transactionDate, transactionId)}
+     * order, {@link #commit()} forces the file to disk and renames it to its final name.
+     */
+    static class Writer implements Closeable {
+
+        private final Path path;
+
+        private final Path temporary;
+
+        private final FileChannel channel;
+
+        private final DataOutputStream output;
+
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        private DeflaterOutputStream blockStream;
+
+        private DataOutputStream rows;
+
+        private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+
+        private final DataOutputStream indexOutput = new DataOutputStream(index);
+
+        private long position;
+
+        private int blocks;
+
+        private long accountId;
+
+        private int blockRows;
+
+        private Leg pending;
+
+        private long rowCount;
+
+        Writer(Path path) throws IOException {
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            output.writeInt(MAGIC);
+            position = 4;
+        }
+
+        /**
+         * Adds one leg of a transaction to the block of {@code accountId}. The two legs of a transfer from an account
+         * to itself are stored as one row.
+         */
+        void add(long accountId, boolean sent, long transactionId, LocalDateTime transactionDate, long transactionValue, long senderAmount,
+                 long receiverAmount, String transactionCurrency, String transactionSender, String transactionReceiver) throws IOException {
+            int legs = sent ? SENT : RECEIVED;
+            if (pending != null && pending.accountId == accountId && pending.transactionId == transactionId) {
+                pending.legs |= legs;
+                return;
+            }
+            flushPending();
+            if (blockRows > 0 && accountId != this.accountId)
+                finishBlock();
+            this.accountId = accountId;
+            pending = new Leg(accountId, legs, transactionId, transactionDate, transactionValue, senderAmount, receiverAmount,
+                    transactionCurrency, transactionSender, transactionReceiver);
+        }
+
+        /**
+         * @return {@code long} - the number of rows written, a transaction between two accounts has a row in each of their blocks
+         */
+        long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Writes the index, forces the file to disk and renames it atomically
+         * @return {@code Path} - the segment file
+         */
+        Path commit() throws IOException {
+            flushPending();
+            if (blockRows > 0)
+                finishBlock();
+            indexOutput.flush();
+            output.writeInt(blocks);
+            output.write(index.toByteArray());
+            output.writeLong(position);
+            output.writeInt(MAGIC);
+            output.flush();
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (channel.isOpen()) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void flushPending() throws IOException {
+            if (pending == null)
+                return;
+            if (blockRows == 0) {
+                block.reset();
+                deflater.reset();
+                blockStream = new DeflaterOutputStream(block, deflater, 512);
+                rows = new DataOutputStream(blockStream);
+            }
+            rows.writeByte(pending.legs);
+            rows.writeLong(pending.transactionId);
+            rows.writeLong(pending.transactionDate.toEpochSecond(ZoneOffset.UTC));
+            rows.writeInt(pending.transactionDate.getNano());
+            rows.writeLong(pending.transactionValue);
+            rows.writeLong(pending.senderAmount);
+            rows.writeLong(pending.receiverAmount);
+            rows.writeUTF(pending.transactionCurrency);
+            rows.writeUTF(pending.transactionSender);
+            rows.writeUTF(pending.transactionReceiver);
+            blockRows++;
+            rowCount++;
+            pending = null;
+        }
+
+        private void finishBlock() throws IOException {
+            rows.flush();
+            blockStream.finish();
+            byte[] compressed = block.toByteArray();
+            output.write(compressed);
+            indexOutput.writeLong(accountId);
+            indexOutput.writeLong(position);
+            indexOutput.writeInt(compressed.length);
+            indexOutput.writeInt(blockRows);
+            position += compressed.length;
+            blocks++;
+            blockRows = 0;
+        }
+    }
+
+    private static class Leg {
+
+        private final long accountId;
+
+        private int legs;
+
+        private final long transactionId;
+
+        private final LocalDateTime transactionDate;
+
+        private final long transactionValue;
+
+        private final long senderAmount;
+
+        private final long receiverAmount;
+
+        private final String transactionCurrency;
+
+        private final String transactionSender;
+
+        private final String transactionReceiver;
+
+        private Leg(long accountId, int legs, long transactionId, LocalDateTime transactionDate, long transactionValue, long senderAmount,
+                    long receiverAmount, String transactionCurrency, String transactionSender, String transactionReceiver) {
+            this.accountId = accountId;
+            this.legs = legs;
+            this.transactionId = transactionId;
+            this.transactionDate = transactionDate;
+            this.transactionValue = transactionValue;
+            this.senderAmount = senderAmount;
+            this.receiverAmount = receiverAmount;
+            this.transactionCurrency = transactionCurrency;
+            this.transactionSender = transactionSender;
+            this.transactionReceiver = transactionReceiver;
+        }
+    }
+}
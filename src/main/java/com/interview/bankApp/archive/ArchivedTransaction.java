@@ -0,0 +1,73 @@
+package com.interview.bankApp.archive;
+
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionRow;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * A transaction read from an archive segment, seen from one account: {@code sent} and {@code received} tell which legs
+ * of the transaction belong to that account (both for a transfer to itself)
+ */
+@Getter
+@AllArgsConstructor
+class ArchivedTransaction {
+
+    static final Comparator<ArchivedTransaction> ORDER = Comparator.comparing(ArchivedTransaction::getTransactionDate)
+            .thenComparingLong(ArchivedTransaction::getTransactionId);
+
+    private final long transactionId;
+
+    private final LocalDateTime transactionDate;
+
+    private final long transactionValue;
+
+    private final long senderAmount;
+
+    private final long receiverAmount;
+
+    private final String transactionCurrency;
+
+    private final String transactionSender;
+
+    private final String transactionReceiver;
+
+    private final boolean sent;
+
+    private final boolean received;
+
+    /**
+     * @return {@code boolean} - true if the transaction comes after the position {@code (transactionDate, transactionId)}
+     */
+    boolean isAfter(LocalDateTime date, long id) {
+        int order = transactionDate.compareTo(date);
+        return order > 0 || (order == 0 && transactionId > id);
+    }
+
+    /**
+     * @return {@code boolean} - true if the transaction is at or before the position {@code (transactionDate, transactionId)}
+     */
+    boolean isAtOrBefore(LocalDateTime date, long id) {
+        return !isAfter(date, id);
+    }
+
+    TransactionRow toRow() {
+        return new TransactionRow(transactionId, transactionValue, transactionDate, transactionSender, transactionReceiver, transactionCurrency);
+    }
+
+    Transaction toTransaction() {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .transactionDate(transactionDate)
+                .transactionValue(transactionValue)
+                .senderAmount(senderAmount)
+                .receiverAmount(receiverAmount)
+                .transactionCurrency(transactionCurrency)
+                .transactionSender(transactionSender)
+                .transactionReceiver(transactionReceiver)
+                .build();
+    }
+}
@@ -0,0 +1,384 @@
+package com.interview.bankApp.archive;
+
+import com.interview.bankApp.model.ArchivedSegment;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
+import com.interview.bankApp.repository.ArchivedSegmentRepository;
+import com.interview.bankApp.service.AccountCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cold tier of the {@code Transaction} table. Every night the transactions older than {@code bankApp.archive.retention-days}
+ * are moved, one day at a time, into an {@link ArchiveSegment} file: the file is written and forced to disk first, then
+ * one database transaction registers it, adds the archived transfers to the {@code openingBalance} of their accounts and
+ * deletes the archived rows. The account histories and balances read the registered segments next to the table.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+public class TransactionArchive {
+
+    static final String SELECT_FIRST_DAY = "select min(transaction_date) from transaction where transaction_date < ?";
+
+    static final String SELECT_NEXT_DAY = "select min(transaction_date) from transaction where transaction_date >= ? and transaction_date < ?";
+
+    static final String SELECT_DAY_LEGS = "select t.account_id, 1, t.transaction_id, t.transaction_date, t.transaction_value, t.sender_amount,"
+            + " t.receiver_amount, t.transaction_currency, t.transaction_sender, t.transaction_receiver from transaction t"
+            + " where t.transaction_date >= ? and t.transaction_date < ? and t.account_id is not null"
+            + " union all select t.receiver_account_id, 0, t.transaction_id, t.transaction_date, t.transaction_value, t.sender_amount,"
+            + " t.receiver_amount, t.transaction_currency, t.transaction_sender, t.transaction_receiver from transaction t"
+            + " where t.transaction_date >= ? and t.transaction_date < ? and t.receiver_account_id is not null"
+            + " order by 1, 4, 3, 2 desc";
+
+    static final String CARRY_OPENING_BALANCE = "update account set opening_balance = opening_balance + ?, version = version + 1 where account_id = ?";
+
+    static final String DELETE_TRANSACTION = "delete from transaction where transaction_id = ?";
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchive.class);
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ArchivedSegmentRepository archivedSegmentRepository;
+
+    @Autowired
+    AccountCache accountCache;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int retentionDays;
+
+    private final boolean ringBufferMode;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Held for writing while an archived day is deleted from the table and its segment is published,
+     * so a reader never sees a transaction in both tiers or in neither
+     */
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+
+    private volatile NavigableMap<LocalDate, List<ArchiveSegment>> segments = Collections.emptyNavigableMap();
+
+    @Autowired
+    public TransactionArchive(@Value("${bankApp.archive.enabled:false}") boolean enabled,
+                              @Value("${bankApp.archive.directory:data/archive}") String directory,
+                              @Value("${bankApp.archive.retention-days:90}") int retentionDays,
+                              @Value("${bankApp.transactions.mode:locking}") String transactionsMode) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.retentionDays = retentionDays;
+        this.ringBufferMode = "ring-buffer".equals(transactionsMode);
+    }
+
+    /**
+     * Loads the registered segments. A segment file that is not registered was left by an interrupted archival, its
+     * transactions are still in the table, so it is only reported.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        NavigableMap<LocalDate, List<ArchiveSegment>> registered = new TreeMap<>();
+        Set<String> fileNames = new HashSet<>();
+        for (ArchivedSegment archivedSegment : archivedSegmentRepository.findAllByOrderByArchiveDateAscFileNameAsc()) {
+            Path path = directory.resolve(archivedSegment.getFileName());
+            if (!Files.exists(path)) {
+                logger.error("Archive segment " + path + " is missing, the transactions of " + archivedSegment.getArchiveDate() + " are incomplete");
+                continue;
+            }
+            registered.computeIfAbsent(archivedSegment.getArchiveDate(), date -> new ArrayList<>()).add(new ArchiveSegment(path, archivedSegment.getArchiveDate()));
+            fileNames.add(archivedSegment.getFileName());
+        }
+        segments = registered;
+        if (!Files.isDirectory(directory))
+            return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ArchiveSegment.SUFFIX)) {
+            for (Path file : files)
+                if (!fileNames.contains(file.getFileName().toString()))
+                    logger.warn("Archive segment " + file + " is not registered and is ignored");
+        }
+        logger.info("Loaded " + fileNames.size() + " archive segments from " + directory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * This method starts the archival in the background, unless it is disabled or already running
+     */
+    @Scheduled(cron = "${bankApp.archive.cron:0 0 2 * * *}")
+    public void scheduledArchival() {
+        if (!enabled)
+            return;
+        if (ringBufferMode) {
+            logger.warn("The transfer pipeline owns the accounts, the transaction archival is skipped");
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("The previous transaction archival is still running, this one is skipped");
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                archive(LocalDate.now().minusDays(retentionDays));
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Transaction archival failed, the archived days are kept and the rest is archived by the next run", ex);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * This method archives the transactions dated before {@code cutoff}, one day at a time
+     * @param cutoff - the first day that stays in the table
+     * @return {@code long} - the number of archived transactions
+     * @throws IOException - if a segment cannot be written, the days archived before are kept
+     */
+    synchronized long archive(LocalDate cutoff) throws IOException {
+        Files.createDirectories(directory);
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff.atStartOfDay());
+        long archived = 0;
+        Timestamp day = jdbcTemplate.queryForObject(SELECT_FIRST_DAY, Timestamp.class, cutoffTimestamp);
+        while (day != null) {
+            LocalDate archiveDate = day.toLocalDateTime().toLocalDate();
+            archived += archiveDay(archiveDate);
+            day = jdbcTemplate.queryForObject(SELECT_NEXT_DAY, Timestamp.class, Timestamp.valueOf(archiveDate.plusDays(1).atStartOfDay()), cutoffTimestamp);
+        }
+        if (archived > 0)
+            logger.info("Archived " + archived + " transactions dated before " + cutoff);
+        return archived;
+    }
+
+    /**
+     * Writes the transactions of one day to a new segment, then registers it and deletes them from the table in one transaction
+     * @return {@code long} - the number of archived transactions
+     */
+    private long archiveDay(LocalDate archiveDate) throws IOException {
+        Timestamp from = Timestamp.valueOf(archiveDate.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(archiveDate.plusDays(1).atStartOfDay());
+        String fileName = ArchiveSegment.fileName(archiveDate, System.currentTimeMillis());
+        Path path = directory.resolve(fileName);
+        Set<Long> transactionIds = new LinkedHashSet<>();
+        Map<Long, Long> netAmounts = new HashMap<>();
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(path)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_DAY_LEGS);
+                statement.setFetchSize(1000);
+                statement.setTimestamp(1, from);
+                statement.setTimestamp(2, to);
+                statement.setTimestamp(3, from);
+                statement.setTimestamp(4, to);
+                return statement;
+            }, resultSet -> {
+                long accountId = resultSet.getLong(1);
+                boolean sent = resultSet.getInt(2) == 1;
+                long transactionId = resultSet.getLong(3);
+                long senderAmount = resultSet.getLong(6);
+                long receiverAmount = resultSet.getLong(7);
+                try {
+                    writer.add(accountId, sent, transactionId, resultSet.getTimestamp(4).toLocalDateTime(), resultSet.getLong(5),
+                            senderAmount, receiverAmount, resultSet.getString(8), resultSet.getString(9), resultSet.getString(10));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                transactionIds.add(transactionId);
+                netAmounts.merge(accountId, sent ? -senderAmount : receiverAmount, Long::sum);
+            });
+            if (transactionIds.isEmpty())
+                return 0;
+            writer.commit();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        ArchiveSegment segment = new ArchiveSegment(path, archiveDate);
+        publishLock.writeLock().lock();
+        try {
+            transactionTemplate.execute(status -> {
+                archivedSegmentRepository.save(ArchivedSegment.builder()
+                        .fileName(fileName)
+                        .archiveDate(archiveDate)
+                        .transactionCount(transactionIds.size())
+                        .archivedAt(LocalDateTime.now())
+                        .build());
+                jdbcTemplate.batchUpdate(CARRY_OPENING_BALANCE, netAmounts.entrySet().stream()
+                        .map(netAmount -> new Object[]{netAmount.getValue(), netAmount.getKey()})
+                        .collect(Collectors.toList()));
+                jdbcTemplate.batchUpdate(DELETE_TRANSACTION, transactionIds.stream()
+                        .map(transactionId -> new Object[]{transactionId})
+                        .collect(Collectors.toList()));
+                return null;
+            });
+            publish(segment);
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+        netAmounts.keySet().forEach(accountCache::invalidate);
+        logger.info("Archived " + transactionIds.size() + " transactions of " + archiveDate + " to " + path);
+        return transactionIds.size();
+    }
+
+    /**
+     * Adds a segment to the ones read by the account histories
+     */
+    void publish(ArchiveSegment segment) {
+        NavigableMap<LocalDate, List<ArchiveSegment>> published = new TreeMap<>(segments);
+        List<ArchiveSegment> daySegments = new ArrayList<>(published.getOrDefault(segment.getArchiveDate(), Collections.emptyList()));
+        daySegments.add(segment);
+        published.put(segment.getArchiveDate(), daySegments);
+        segments = published;
+    }
+
+    /**
+     * This method runs a read that combines the table and the archive while no archived day is being moved between them
+     * @param reader - the read
+     * @return {@code T} - the result of the read
+     */
+    public <T> T read(Supplier<T> reader) {
+        publishLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method returns the first archived transactions of an account after a cursor, in {@code (transactionDate, transactionId)} order
+     * @param accountId - the account id
+     * @param direction - the received ({@code IN}), sent ({@code OUT}) or all ({@code BOTH}) transactions
+     * @param after - the cursor, {@code null} to start from the oldest transaction
+     * @param limit - the maximum number of rows
+     * @return {@code List<TransactionRow>}
+     */
+    public List<TransactionRow> findAccountTransactions(long accountId, TransactionDirection direction, TransactionCursor after, int limit) {
+        NavigableMap<LocalDate, List<ArchiveSegment>> days = after == null ? segments : segments.tailMap(after.getTransactionDate().toLocalDate(), true);
+        List<ArchivedTransaction> transactions = new ArrayList<>();
+        for (List<ArchiveSegment> daySegments : days.values()) {
+            for (ArchiveSegment segment : daySegments)
+                for (ArchivedTransaction transaction : readAccount(segment, accountId))
+                    if (matches(transaction, direction) && (after == null || transaction.isAfter(after.getTransactionDate(), after.getTransactionId())))
+                        transactions.add(transaction);
+            if (transactions.size() >= limit)
+                break;
+        }
+        transactions.sort(ArchivedTransaction.ORDER);
+        return transactions.stream().limit(limit).map(ArchivedTransaction::toRow).collect(Collectors.toList());
+    }
+
+    /**
+     * This method returns the archived transactions sent by an account since {@code from}
+     * @param accountId - the account id
+     * @param from - the earliest transaction date, inclusive
+     * @return {@code List<Transaction>} - ordered by transaction date
+     */
+    public List<Transaction> findSentTransactionsSince(long accountId, LocalDateTime from) {
+        List<ArchivedTransaction> transactions = new ArrayList<>();
+        for (List<ArchiveSegment> daySegments : segments.tailMap(from.toLocalDate(), true).values())
+            for (ArchiveSegment segment : daySegments)
+                for (ArchivedTransaction transaction : readAccount(segment, accountId))
+                    if (transaction.isSent() && !transaction.getTransactionDate().isBefore(from))
+                        transactions.add(transaction);
+        transactions.sort(ArchivedTransaction.ORDER);
+        return transactions.stream().map(ArchivedTransaction::toTransaction).collect(Collectors.toList());
+    }
+
+    /**
+     * This method returns the archived amount received minus the archived amount sent by an account between two positions
+     * @param accountId - the account id
+     * @param fromDate - date of the start position, exclusive together with {@code fromId}
+     * @param fromId - transaction id of the start position
+     * @param toDate - date of the end position, inclusive together with {@code toId}
+     * @param toId - transaction id of the end position
+     * @return {@code long}
+     */
+    public long netAmountBetween(long accountId, LocalDateTime fromDate, long fromId, LocalDateTime toDate, long toId) {
+        LocalDate fromDay = fromDate.toLocalDate();
+        LocalDate toDay = toDate.toLocalDate();
+        if (fromDay.isAfter(toDay))
+            return 0;
+        long netAmount = 0;
+        for (List<ArchiveSegment> daySegments : segments.subMap(fromDay, true, toDay, true).values())
+            for (ArchiveSegment segment : daySegments)
+                for (ArchivedTransaction transaction : readAccount(segment, accountId))
+                    if (transaction.isAfter(fromDate, fromId) && transaction.isAtOrBefore(toDate, toId)) {
+                        if (transaction.isReceived())
+                            netAmount += transaction.getReceiverAmount();
+                        if (transaction.isSent())
+                            netAmount -= transaction.getSenderAmount();
+                    }
+        return netAmount;
+    }
+
+    private static boolean matches(ArchivedTransaction transaction, TransactionDirection direction) {
+        switch (direction) {
+            case IN:
+                return transaction.isReceived();
+            case OUT:
+                return transaction.isSent();
+            default:
+                return true;
+        }
+    }
+
+    private static List<ArchivedTransaction> readAccount(ArchiveSegment segment, long accountId) {
+        try {
+            return segment.read(accountId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + segment.getPath(), e);
+        }
+    }
+}
@@ -30,9 +30,11 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers(HttpMethod.GET, "/accounts/**").hasRole("USER")
                 .antMatchers(HttpMethod.GET, "/transactions/**").hasRole("USER")
                 .antMatchers(HttpMethod.POST, "/account").hasRole("ADMIN")
+                .antMatchers(HttpMethod.POST, "/accounts/import").hasRole("ADMIN")
                 .antMatchers(HttpMethod.PUT, "/accounts/**").hasRole("ADMIN")
                 .antMatchers(HttpMethod.DELETE, "/accounts/**").hasRole("ADMIN")
                 .antMatchers(HttpMethod.DELETE, "/transactions/**").hasRole("ADMIN")
+                .antMatchers(HttpMethod.GET, "/metrics/**").hasRole("ADMIN")
                 .and()
                 .csrf().disable();
     }
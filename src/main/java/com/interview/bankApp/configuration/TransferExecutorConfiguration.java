@@ -0,0 +1,100 @@
+package com.interview.bankApp.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that runs the transactions submitted on {@code /transactions/async}, sized separately from the servlet threads.
+ * Virtual threads are used when the runtime supports them, otherwise a fixed pool of platform threads.
+ * In both cases at most {@code bankApp.async.threads} transactions run at the same time: a virtual thread waits for a permit
+ * before it starts its transaction, so the transfers cannot take more database connections than the platform pool would.
+ */
+@Configuration
+public class TransferExecutorConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferExecutorConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService transferExecutor(@Value("${bankApp.async.threads:16}") int threads) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("Asynchronous transfers run on virtual threads, " + threads + " at the same time");
+            return new BoundedExecutorService(executor, threads);
+        } catch (ReflectiveOperationException roe) {
+            logger.info("Asynchronous transfers run on " + threads + " platform threads");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "transfer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Runs every task on the delegate executor, but lets only {@code maxRunning} of them past the semaphore at the same time
+     */
+    static class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private final Semaphore runningPermits;
+
+        BoundedExecutorService(ExecutorService delegate, int maxRunning) {
+            this.delegate = delegate;
+            this.runningPermits = new Semaphore(maxRunning);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                runningPermits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    runningPermits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -3,16 +3,33 @@ package com.interview.bankApp.controller;
 import com.interview.bankApp.exception.AccountNotFoundException;
 import com.interview.bankApp.exception.InvalidInputException;
 import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountBalance;
+import com.interview.bankApp.model.AccountImportReport;
+import com.interview.bankApp.model.AccountPeriodSummary;
 import com.interview.bankApp.model.AccountStatus;
+import com.interview.bankApp.model.AccountSummary;
+import com.interview.bankApp.model.CursorPage;
 import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
+import com.interview.bankApp.service.AccountImportService;
 import com.interview.bankApp.service.AccountService;
+import com.interview.bankApp.service.BalanceCheckpointService;
+import com.interview.bankApp.service.DailyRollupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,30 +44,62 @@ public class AccountController {
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    DailyRollupService dailyRollupService;
+
+    @Autowired
+    BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    AccountImportService accountImportService;
+
     private static final Logger logger = LoggerFactory.getLogger(AccountController.class);
 
     /**
-     * This method returns all the accounts by reaching to the /accounts endpoint using {@code @GetMapping}
-     * @return {@code List<Account>}
+     * This method returns one page of the account summaries by reaching to the /accounts endpoint using {@code @GetMapping}.
+     * The accounts are ordered by id, the {@code next} cursor of a page is sent as {@code after} to get the following page.
+     * The transactions of the accounts are only returned with {@code ?include=transactions}.
+     * @param limit - the page size, at most {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page, missing for the first page
+     * @param include - {@code transactions} to add the first page of transactions of every account
+     * @param transactionLimit - the size of the included transaction pages
+     * @return {@code CursorPage<AccountSummary>}
      */
     @GetMapping("/accounts")
-    private List<Account> getAllAccounts() {
-        logger.info("List of all accounts is retrieved!");
-        return accountService.getAllAccounts();
+    private CursorPage<AccountSummary> getAccounts(@RequestParam(value = "limit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+                                                   @RequestParam(value = "after", required = false) String after,
+                                                   @RequestParam(value = "include", required = false) String include,
+                                                   @RequestParam(value = "transactionLimit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int transactionLimit) {
+        try {
+            CursorPage<AccountSummary> page = accountService.getAccounts(limit, after, includesTransactions(include), transactionLimit);
+            logger.info("Page of " + page.getItems().size() + " accounts is retrieved!");
+            return page;
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
+        }
     }
 
     /**
-     * This method returns a specific account by reaching to the /account/{id} endpoint using {@code @GetMapping}
+     * This method returns the summary of a specific account by reaching to the /account/{id} endpoint using {@code @GetMapping}.
+     * The transactions of the account are only returned with {@code ?include=transactions}.
      * @param id represents the account id
-     * @return {@code Account}
+     * @param include - {@code transactions} to add the first page of transactions of the account
+     * @param transactionLimit - the size of the included transaction page
+     * @return {@code AccountSummary}
      */
     @GetMapping("/accounts/{id}")
-    private Account getAccountById(@PathVariable("id") long id) {
+    private AccountSummary getAccountById(@PathVariable("id") long id,
+                                          @RequestParam(value = "include", required = false) String include,
+                                          @RequestParam(value = "transactionLimit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int transactionLimit) {
         try {
-            return accountService.getAccountById(id);
+            return accountService.getAccountSummary(id, includesTransactions(include), transactionLimit);
         } catch (AccountNotFoundException anfe) {
             logger.error("Account with ID = " + id + " not found in the database");
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found using ID = " + id, anfe);
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
         }
     }
 
@@ -81,6 +130,31 @@ public class AccountController {
         return account.getAccountId();
     }
 
+    /**
+     * This method creates accounts in bulk from a {@code text/csv} or {@code application/x-ndjson} body, streamed row by row.
+     * The CSV body starts with a header naming the {@code accountId,accountNumber,accountCurrency,accountValue[,accountStatus]} columns,
+     * the NDJSON body has one account JSON object per line. Invalid rows are reported without stopping the import.
+     * @param contentType - the format of the body
+     * @param body - the rows of the new accounts
+     * @return {@code AccountImportReport}
+     */
+    @PostMapping(value = "/accounts/import", consumes = {"text/csv", "application/x-ndjson"})
+    private AccountImportReport importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+        try {
+            AccountImportReport report = MediaType.valueOf("text/csv").includes(contentType)
+                    ? accountImportService.importCsv(body)
+                    : accountImportService.importNdjson(body);
+            logger.info(report.getImported() + " accounts were imported, " + report.getRejected() + " rows were rejected");
+            return report;
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
+        } catch (IOException ioe) {
+            logger.error(ioe.getMessage(), ioe);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The import body could not be read", ioe);
+        }
+    }
+
     /**
      * This method updates the account status of the account. The states are being hold in the {@code AccountStatus} enum
      * @param id - represents the account id of the account that we want to changed the status
@@ -101,18 +175,28 @@ public class AccountController {
     }
 
     /**
-     * This method get all the transactions for a specific account that is identified by id
+     * This method get one page of the transactions for a specific account that is identified by id, ordered by date and id
      * @param id - account id of the account we want to retrieve the transaction list
-     * @return {@code List<Transaction>}
+     * @param direction - {@code in} for the received transactions, {@code out} (default) for the sent ones or {@code both}
+     * @param limit - the page size, at most {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page, missing for the first page
+     * @return {@code CursorPage<TransactionRow>}
      */
     @GetMapping("/accounts/{id}/transactions")
-    private List<Transaction> getAllTransactionsFromAnAccount(@PathVariable("id") int id) {
+    private CursorPage<TransactionRow> getTransactionsFromAnAccount(@PathVariable("id") long id,
+                                                                 @RequestParam(value = "direction", defaultValue = "out") String direction,
+                                                                 @RequestParam(value = "limit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+                                                                 @RequestParam(value = "after", required = false) String after) {
         try {
-            logger.info("All transactions for account with ID =" + id + " were fetched");
-            return accountService.getAllTransactionsForAnAccount(id);
+            CursorPage<TransactionRow> page = accountService.getTransactionsForAnAccount(id, transactionDirection(direction), limit, after);
+            logger.info(page.getItems().size() + " transactions for account with ID =" + id + " were fetched");
+            return page;
         } catch (AccountNotFoundException anfe) {
             logger.error(anfe.getMessage(), anfe);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found using ID = " + id, anfe);
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
         }
     }
 
@@ -183,4 +267,58 @@ public class AccountController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have entered a invalid parameter, " + hours + " . Hours parameter should be always positive");
         }
     }
+
+    /**
+     * This method returns the transfer totals of an account between two days, both included, answered from the daily rollups
+     * @param id - account id
+     * @param from - the first day, in the yyyy-MM-dd format
+     * @param to - the last day, in the yyyy-MM-dd format
+     * @return {@code AccountPeriodSummary}
+     */
+    @GetMapping("/accounts/{id}/summary")
+    private AccountPeriodSummary getAccountPeriodSummary(@PathVariable("id") long id,
+                                                         @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return dailyRollupService.getSummary(id, from, to);
+        } catch (AccountNotFoundException anfe) {
+            logger.error(anfe.getMessage(), anfe);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found using ID = " + id, anfe);
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
+        }
+    }
+
+    /**
+     * This method returns the value of an account at a point in time, computed from the nearest balance checkpoint
+     * @param id - account id
+     * @param at - the point in time, in the yyyy-MM-ddTHH:mm:ss format, the transfers dated at {@code at} are included
+     * @return {@code AccountBalance}
+     */
+    @GetMapping("/accounts/{id}/balance")
+    private AccountBalance getAccountBalanceAt(@PathVariable("id") long id,
+                                               @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return balanceCheckpointService.getBalanceAt(id, at);
+        } catch (AccountNotFoundException anfe) {
+            logger.error(anfe.getMessage(), anfe);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found using ID = " + id, anfe);
+        }
+    }
+
+    private TransactionDirection transactionDirection(String direction) {
+        for (TransactionDirection transactionDirection : TransactionDirection.values())
+            if (transactionDirection.name().equalsIgnoreCase(direction))
+                return transactionDirection;
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The direction should be in, out or both, " + direction + " was entered");
+    }
+
+    private boolean includesTransactions(String include) {
+        if (include == null || include.isEmpty())
+            return false;
+        if (!AccountSummary.INCLUDE_TRANSACTIONS.equals(include))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only include=" + AccountSummary.INCLUDE_TRANSACTIONS + " is supported, " + include + " was entered");
+        return true;
+    }
 }
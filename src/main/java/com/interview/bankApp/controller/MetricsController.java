@@ -0,0 +1,95 @@
+package com.interview.bankApp.controller;
+
+import com.interview.bankApp.fx.FxRateService;
+import com.interview.bankApp.model.AccountCacheStatistics;
+import com.interview.bankApp.model.AccountContention;
+import com.interview.bankApp.model.InterestAccrualReport;
+import com.interview.bankApp.model.ReconciliationReport;
+import com.interview.bankApp.service.AccountCache;
+import com.interview.bankApp.service.InterestAccrualService;
+import com.interview.bankApp.service.OptimisticRetryExecutor;
+import com.interview.bankApp.service.ReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is the REST controller that exposes the runtime metrics of the application
+ * @author Adrian
+ * @version 1.0
+ */
+@RestController
+public class MetricsController {
+
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    ReconciliationService reconciliationService;
+
+    @Autowired
+    FxRateService fxRateService;
+
+    @Autowired
+    InterestAccrualService interestAccrualService;
+
+    /**
+     * This method returns the optimistic locking conflicts and retries per account, the most contended accounts first
+     * @return {@code List<AccountContention>}
+     */
+    @GetMapping("/metrics/contention")
+    private List<AccountContention> getContention() {
+        return optimisticRetryExecutor.getContention();
+    }
+
+    /**
+     * This method returns the hit, miss and eviction counters of the account cache
+     * @return {@code AccountCacheStatistics}
+     */
+    @GetMapping("/metrics/account-cache")
+    private AccountCacheStatistics getAccountCacheStatistics() {
+        return accountCache.getStatistics();
+    }
+
+    /**
+     * This method returns the report of the running or the last reconciliation: accounts checked, mismatches, duration and throughput
+     * @return {@code ReconciliationReport}
+     */
+    @GetMapping("/metrics/reconciliation")
+    private ReconciliationReport getReconciliationReport() {
+        ReconciliationReport report = reconciliationService.getLastReport();
+        if (report == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No reconciliation has run yet");
+        return report;
+    }
+
+    /**
+     * This method returns the report of the running or the last interest accrual: days accrued, accounts accrued, duration and throughput
+     * @return {@code InterestAccrualReport}
+     */
+    @GetMapping("/metrics/interest-accrual")
+    private InterestAccrualReport getInterestAccrualReport() {
+        InterestAccrualReport report = interestAccrualService.getLastReport();
+        if (report == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No interest accrual has run yet");
+        return report;
+    }
+
+    /**
+     * This method returns the exchange rates used by the transfers, quoted or derived, by source and target currency
+     * @return {@code Map<String, Map<String, BigDecimal>>}
+     */
+    @GetMapping("/metrics/fx-rates")
+    private Map<String, Map<String, BigDecimal>> getFxRates() {
+        return fxRateService.getMatrix().getRates();
+    }
+}
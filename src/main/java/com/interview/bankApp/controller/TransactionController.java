@@ -1,18 +1,33 @@
 package com.interview.bankApp.controller;
 
 import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.CurrencyConversionException;
+import com.interview.bankApp.exception.IdempotencyKeyMismatchException;
+import com.interview.bankApp.exception.InsufficientAmountException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.exception.InvalidTransactionException;
 import com.interview.bankApp.exception.TransactionNotFoundException;
+import com.interview.bankApp.model.AsyncTransfer;
+import com.interview.bankApp.model.CursorPage;
 import com.interview.bankApp.model.Transaction;
-import com.interview.bankApp.service.AccountService;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.model.TransactionRow;
+import com.interview.bankApp.service.AsyncTransferService;
+import com.interview.bankApp.service.IdempotencyService;
 import com.interview.bankApp.service.TransactionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This is the REST controlloer that handles the transactions
@@ -24,20 +39,51 @@ public class TransactionController {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     TransactionService transactionService;
 
     @Autowired
-    AccountService accountService;
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    AsyncTransferService asyncTransferService;
 
     /**
-     * This method returns all transactions using a {@code @GetMapping} on the /transactions endpoint
-     * @return {@code List<Transaction>}
+     * This method returns one page of the transactions using a {@code @GetMapping} on the /transactions endpoint.
+     * The transactions are ordered by date and id, the {@code next} cursor of a page is sent as {@code after} to get the following page.
+     * @param limit - the page size, at most {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page, missing for the first page
+     * @return {@code CursorPage<TransactionRow>}
      */
     @GetMapping("/transactions")
-    private List<Transaction> getAllTransactions() {
-        logger.info("All transaction are fetched from the database");
-        return transactionService.getAllTransactions();
+    private CursorPage<TransactionRow> getTransactions(@RequestParam(value = "limit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+                                                    @RequestParam(value = "after", required = false) String after) {
+        try {
+            CursorPage<TransactionRow> page = transactionService.getTransactions(limit, after);
+            logger.info(page.getItems().size() + " transactions are fetched from the database");
+            return page;
+        } catch (InvalidInputException iie) {
+            logger.error(iie.getMessage(), iie);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iie.getMessage(), iie);
+        }
+    }
+
+    /**
+     * This method exports all the transactions as newline-delimited JSON using a {@code @GetMapping} on the /transactions/export endpoint.
+     * The transactions are streamed from the database straight to the response, so the export does not hold the table in memory.
+     * @return {@code StreamingResponseBody} - one transaction JSON per line, ordered by date and id
+     */
+    @GetMapping("/transactions/export")
+    private ResponseEntity<StreamingResponseBody> exportTransactions() {
+        StreamingResponseBody body = outputStream -> {
+            long exported = transactionService.exportTransactions(outputStream);
+            logger.info(exported + " transactions were exported");
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
     }
 
     /**
@@ -57,22 +103,150 @@ public class TransactionController {
     }
 
     /**
-     * This method creates a new transaction using a {@code @PostMapping} that has in the body of the request the information about the transaction
+     * This method creates a new transaction using a {@code @PostMapping} that has in the body of the request the information about the transaction.
+     * The account values of the sender and the receiver are updated with the amount of this transaction only.
+     * When the request has an {@code Idempotency-Key} header that was already used with the same request, the id of the original
+     * transaction is returned and the transaction is not created again, a different request with the same key is refused with 422.
+     * In the ring buffer mode the key stays in process until the pipeline persists or rejects the transaction.
      * @param transaction - the information about transaction that is send into the body of the request in JSON format
+     * @param idempotencyKey - optional key that identifies the request across client retries
      * @return {@code id} - the id of the newly created transaction
-     * @throws AccountNotFoundException
      */
     @PostMapping("/transaction")
-    private long createTransaction(@RequestBody Transaction transaction ) throws AccountNotFoundException {
-        transactionService.createTransaction(transaction);
+    private long createTransaction(@RequestBody Transaction transaction,
+                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            createTransaction(transaction);
+            return transaction.getTransactionId();
+        }
+
+        String requestHash = IdempotencyService.requestHash(transaction);
+        Long previousTransactionId = getPreviousTransactionId(idempotencyKey, requestHash);
+        if (previousTransactionId != null)
+            return previousTransactionId;
+        if (!idempotencyService.begin(idempotencyKey))
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with Idempotency-Key = " + idempotencyKey + " is already being processed");
+        CompletableFuture<Void> outcome;
+        try {
+            // a request with the same key may have completed between the lookup and begin
+            previousTransactionId = getPreviousTransactionId(idempotencyKey, requestHash);
+            if (previousTransactionId != null) {
+                idempotencyService.abort(idempotencyKey);
+                return previousTransactionId;
+            }
+            outcome = createTransaction(transaction);
+        } catch (RuntimeException re) {
+            idempotencyService.abort(idempotencyKey);
+            throw re;
+        }
+        long transactionId = transaction.getTransactionId();
+        if (outcome.isDone())
+            completeIdempotencyKey(idempotencyKey, transactionId, requestHash, outcome);
+        else
+            // the outcome is completed on a pipeline thread, which must not wait for the idempotency record to be saved
+            outcome.whenCompleteAsync((result, failure) -> completeIdempotencyKey(idempotencyKey, transactionId, requestHash, outcome));
+        return transactionId;
+    }
+
+    private Long getPreviousTransactionId(String idempotencyKey, String requestHash) {
+        Long previousTransactionId;
+        try {
+            previousTransactionId = idempotencyService.getTransactionId(idempotencyKey, requestHash);
+        } catch (IdempotencyKeyMismatchException ikme) {
+            logger.error(ikme.getMessage(), ikme);
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, ikme.getMessage(), ikme);
+        }
+        if (previousTransactionId != null)
+            logger.info("Transaction with Idempotency-Key = " + idempotencyKey + " was already created with ID = " + previousTransactionId);
+        return previousTransactionId;
+    }
+
+    /**
+     * Stores the result of the key once the transaction exists, or releases the key for a retry when the transaction was rejected.
+     * A result that cannot be stored is only logged: the transaction exists, so its id is still returned and the key is not released.
+     */
+    private void completeIdempotencyKey(String idempotencyKey, long transactionId, String requestHash, CompletableFuture<Void> outcome) {
+        if (outcome.isCompletedExceptionally()) {
+            idempotencyService.abort(idempotencyKey);
+            return;
+        }
+        try {
+            idempotencyService.complete(idempotencyKey, transactionId, requestHash);
+        } catch (RuntimeException re) {
+            logger.error("The result of the request with Idempotency-Key = " + idempotencyKey + " could not be stored", re);
+        }
+    }
+
+    private CompletableFuture<Void> createTransaction(Transaction transaction) {
+        CompletableFuture<Void> outcome;
+        try {
+            outcome = transactionService.createTransaction(transaction);
+        } catch (AccountNotFoundException anfe) {
+            logger.error(anfe.getMessage(), anfe);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, anfe.getMessage(), anfe);
+        } catch (InsufficientAmountException iae) {
+            logger.error(iae.getMessage(), iae);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iae.getMessage(), iae);
+        } catch (CurrencyConversionException cce) {
+            logger.error(cce.getMessage(), cce);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, cce.getMessage(), cce);
+        } catch (InvalidTransactionException ite) {
+            logger.error(ite.getMessage(), ite);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ite.getMessage(), ite);
+        }
         logger.info("Transaction with ID = " + transaction.getTransactionId() + " was been created");
-        accountService.accountValueUpdateSender(transaction.getTransactionSender());
-        accountService.accountValueUpdateReceiver(transaction.getTransactionReceiver());
         logger.info("Account values for sender with accountNumber = " + transaction.getTransactionSender()
                 + " and receiver with accountNumber= " + transaction.getTransactionReceiver()
                 + " have been updated");
 
-        return transaction.getTransactionId();
+        return outcome;
+    }
+
+    /**
+     * This method creates a batch of transactions using a {@code @PostMapping} that has in the body of the request a JSON array of transactions.
+     * The valid transactions are stored in a single database commit, the invalid ones are rejected individually.
+     * @param transactions - the transactions of the batch, applied in order
+     * @return {@code List<TransactionResult>} - the result of every transaction, in the same order
+     */
+    @PostMapping("/transactions/batch")
+    private List<TransactionResult> createTransactions(@RequestBody List<Transaction> transactions) {
+        List<TransactionResult> results = transactionService.createTransactions(transactions);
+        logger.info("Batch of " + transactions.size() + " transactions was processed");
+        return results;
+    }
+
+    /**
+     * This method submits a transaction to be created in the background and returns immediately with {@code 202 Accepted}.
+     * The progress of the transaction is polled on {@code /transactions/async/{id}}.
+     * @param transaction - the information about transaction that is send into the body of the request in JSON format
+     * @return {@code AsyncTransfer} - the submission, its {@code transferId} is used for polling
+     */
+    @PostMapping("/transactions/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    private AsyncTransfer submitTransaction(@RequestBody Transaction transaction) {
+        try {
+            AsyncTransfer transfer = asyncTransferService.submit(transaction);
+            logger.info("Transfer with ID = " + transfer.getTransferId() + " was submitted");
+            return transfer;
+        } catch (RejectedExecutionException ree) {
+            logger.error(ree.getMessage(), ree);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ree.getMessage(), ree);
+        }
+    }
+
+    /**
+     * This method returns the status of a transaction submitted on {@code /transactions/async}
+     * @param id - the transfer id returned on submission
+     * @return {@code AsyncTransfer}
+     */
+    @GetMapping("/transactions/async/{id}")
+    private AsyncTransfer getSubmittedTransaction(@PathVariable("id") String id) {
+        try {
+            return asyncTransferService.getTransfer(id);
+        } catch (TransactionNotFoundException tnfe) {
+            logger.error(tnfe.getMessage(), tnfe);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, tnfe.getMessage(), tnfe);
+        }
     }
 
     /**
@@ -0,0 +1,20 @@
+package com.interview.bankApp.event;
+
+import com.interview.bankApp.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the {@code AccountService} after an account was created, updated or deleted outside of a transfer
+ */
+@Getter
+@AllArgsConstructor
+public class AccountChangedEvent {
+
+    private final long accountId;
+
+    /**
+     * The saved account, or {@code null} if the account was deleted
+     */
+    private final Account account;
+}
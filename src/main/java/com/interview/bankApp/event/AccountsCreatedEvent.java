@@ -0,0 +1,21 @@
+package com.interview.bankApp.event;
+
+import com.interview.bankApp.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by the {@code AccountService} once a chunk of imported accounts is committed, instead of one
+ * {@link AccountChangedEvent} per account, so the listeners can handle the chunk in one go
+ */
+@Getter
+@AllArgsConstructor
+public class AccountsCreatedEvent {
+
+    /**
+     * The new accounts, in import order
+     */
+    private final List<Account> accounts;
+}
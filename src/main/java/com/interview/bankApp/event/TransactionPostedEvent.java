@@ -0,0 +1,28 @@
+package com.interview.bankApp.event;
+
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the {@code TransactionPostingService} for every database transaction that posts transfers.
+ * Listeners interested only in committed transfers should use {@code @TransactionalEventListener}.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionPostedEvent {
+
+    /**
+     * The posted transactions, in posting order
+     */
+    private final List<Transaction> transactions;
+
+    /**
+     * The accounts touched by the transactions, with their values and versions as written by the posting
+     */
+    private final Collection<Account> accounts;
+}
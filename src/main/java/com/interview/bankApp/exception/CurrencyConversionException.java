@@ -0,0 +1,10 @@
+package com.interview.bankApp.exception;
+
+public class CurrencyConversionException extends RuntimeException {
+
+    public CurrencyConversionException() {}
+
+    public CurrencyConversionException(String message) {
+        super(message);
+    }
+}
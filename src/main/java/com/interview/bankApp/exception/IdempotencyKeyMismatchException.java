@@ -0,0 +1,10 @@
+package com.interview.bankApp.exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException() {}
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
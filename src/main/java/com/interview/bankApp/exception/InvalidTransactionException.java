@@ -0,0 +1,10 @@
+package com.interview.bankApp.exception;
+
+public class InvalidTransactionException extends RuntimeException {
+
+    public InvalidTransactionException() {}
+
+    public InvalidTransactionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,220 @@
+package com.interview.bankApp.fx;
+
+import com.interview.bankApp.exception.CurrencyConversionException;
+import com.interview.bankApp.model.Money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable matrix of the exchange rates between the loaded currencies. Every currency gets an ordinal, and the cell
+ * {@code [from * size + to]} holds the factor that converts an amount in minor units of {@code from} straight into minor
+ * units of {@code to}, the rate and the difference of decimals included. Every factor is also kept as a long unscaled value and
+ * a power of ten, so a conversion is a long multiplication and a rounding division. Only a product that overflows a long
+ * is computed with {@code BigDecimal}. The matrix is never changed after it is built, a refresh builds a new one.
+ */
+public final class FxRateMatrix {
+
+    /**
+     * The matrix without rates, only transfers between accounts of the same currency are possible
+     */
+    public static final FxRateMatrix EMPTY = new FxRateMatrix(Collections.emptyMap());
+
+    private static final int LETTERS = 26;
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    /**
+     * Powers of ten that fit in a long, the divisors of the unscaled factors
+     */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    /**
+     * Ordinal of every three letter currency code, indexed by {@link #code(String)}, -1 for the currencies without rates
+     */
+    private final int[] ordinals = new int[LETTERS * LETTERS * LETTERS];
+
+    private final List<String> currencies;
+
+    private final BigDecimal[] factors;
+
+    /**
+     * {@code factors[i]} is {@code unscaledFactors[i] / 10^factorScales[i]}, the scale is -1 when the factor does not fit a long
+     */
+    private final long[] unscaledFactors;
+
+    private final int[] factorScales;
+
+    /**
+     * This method builds the matrix from the quoted rates. The missing rates are derived from the inverse quote,
+     * then through a currency quoted against both sides.
+     * @param rates - units of the target currency for one unit of the source currency, by source and target ISO 4217 code
+     */
+    public FxRateMatrix(Map<String, Map<String, BigDecimal>> rates) {
+        Arrays.fill(ordinals, -1);
+        List<String> codes = new ArrayList<>();
+        for (Map.Entry<String, Map<String, BigDecimal>> quotes : rates.entrySet()) {
+            addCurrency(codes, quotes.getKey());
+            quotes.getValue().keySet().forEach(code -> addCurrency(codes, code));
+        }
+        currencies = Collections.unmodifiableList(codes);
+        int size = codes.size();
+
+        BigDecimal[] decimalRates = new BigDecimal[size * size];
+        for (int i = 0; i < size; i++)
+            decimalRates[i * size + i] = BigDecimal.ONE;
+        rates.forEach((from, quotes) -> quotes.forEach((to, rate) -> {
+            if (rate.signum() <= 0)
+                throw new IllegalArgumentException("The rate from " + from + " to " + to + " should be positive");
+            decimalRates[ordinal(from) * size + ordinal(to)] = rate;
+        }));
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                if (decimalRates[i * size + j] == null && decimalRates[j * size + i] != null)
+                    decimalRates[i * size + j] = BigDecimal.ONE.divide(decimalRates[j * size + i], PRECISION);
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                for (int k = 0; k < size && decimalRates[i * size + j] == null; k++)
+                    if (decimalRates[i * size + k] != null && decimalRates[k * size + j] != null)
+                        decimalRates[i * size + j] = decimalRates[i * size + k].multiply(decimalRates[k * size + j], PRECISION);
+
+        factors = new BigDecimal[size * size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                if (decimalRates[i * size + j] != null)
+                    factors[i * size + j] = decimalRates[i * size + j].movePointRight(Money.scale(codes.get(j)) - Money.scale(codes.get(i)));
+
+        unscaledFactors = new long[size * size];
+        factorScales = new int[size * size];
+        Arrays.fill(factorScales, -1);
+        for (int i = 0; i < factors.length; i++) {
+            if (factors[i] == null)
+                continue;
+            BigDecimal factor = factors[i].stripTrailingZeros();
+            if (factor.scale() < 0)
+                factor = factor.setScale(0);
+            if (factor.scale() < POWERS_OF_TEN.length && factor.unscaledValue().bitLength() < Long.SIZE) {
+                unscaledFactors[i] = factor.unscaledValue().longValue();
+                factorScales[i] = factor.scale();
+            }
+        }
+    }
+
+    /**
+     * This method converts an amount between two currencies, rounding half to even to the minor unit of {@code to}
+     * @param amount - amount in minor units of {@code from}
+     * @param from - ISO 4217 code of the amount
+     * @param to - ISO 4217 code of the result
+     * @return {@code long} - amount in minor units of {@code to}
+     * @throws CurrencyConversionException - if there is no rate between the two currencies
+     */
+    public long convert(long amount, String from, String to) {
+        if (from == null || to == null)
+            throw new CurrencyConversionException("The currency of the transaction and of the accounts is mandatory");
+        if (from.equals(to))
+            return amount;
+        int fromOrdinal = ordinal(from);
+        int toOrdinal = ordinal(to);
+        int cell = fromOrdinal < 0 || toOrdinal < 0 ? -1 : fromOrdinal * currencies.size() + toOrdinal;
+        if (cell < 0 || factors[cell] == null)
+            throw new CurrencyConversionException("There is no exchange rate from " + from + " to " + to);
+        try {
+            if (factorScales[cell] >= 0)
+                return divideHalfEven(Math.multiplyExact(amount, unscaledFactors[cell]), POWERS_OF_TEN[factorScales[cell]]);
+        } catch (ArithmeticException ae) {
+            // the product does not fit a long, it is computed with BigDecimal
+        }
+        try {
+            return BigDecimal.valueOf(amount).multiply(factors[cell]).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        } catch (ArithmeticException ae) {
+            throw new CurrencyConversionException(Money.format(amount, from) + " cannot be converted to " + to + ", the result is too large");
+        }
+    }
+
+    /**
+     * @return {@code long} - {@code dividend / divisor} rounded half to even, the divisor is positive
+     */
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long twiceRemainder = Math.abs(dividend % divisor) * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0))
+            quotient += Long.signum(dividend);
+        return quotient;
+    }
+
+    /**
+     * @return {@code List<String>} - the currencies of the matrix, in ordinal order
+     */
+    public List<String> getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * This method returns the quoted or derived rates, units of the target currency for one unit of the source currency
+     * @return {@code Map<String, Map<String, BigDecimal>>}
+     */
+    public Map<String, Map<String, BigDecimal>> getRates() {
+        int size = currencies.size();
+        Map<String, Map<String, BigDecimal>> rates = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, BigDecimal> quotes = new LinkedHashMap<>();
+            for (int j = 0; j < size; j++)
+                if (i != j && factors[i * size + j] != null)
+                    quotes.put(currencies.get(j), plain(factors[i * size + j].movePointLeft(Money.scale(currencies.get(j)) - Money.scale(currencies.get(i)))));
+            rates.put(currencies.get(i), quotes);
+        }
+        return rates;
+    }
+
+    /**
+     * @return {@code BigDecimal} - the rate without trailing zeros and without an exponent, e.g. 160 instead of 1.6E+2
+     */
+    private static BigDecimal plain(BigDecimal rate) {
+        BigDecimal stripped = rate.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    private void addCurrency(List<String> codes, String currency) {
+        int code = code(currency);
+        if (code < 0)
+            throw new IllegalArgumentException(currency + " is not a three letter currency code");
+        if (ordinals[code] < 0) {
+            ordinals[code] = codes.size();
+            codes.add(currency);
+        }
+    }
+
+    private int ordinal(String currency) {
+        int code = code(currency);
+        return code < 0 ? -1 : ordinals[code];
+    }
+
+    /**
+     * @return {@code int} - the position of a three upper case letter code among all such codes, or -1 for any other text
+     */
+    static int code(String currency) {
+        if (currency.length() != 3)
+            return -1;
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = currency.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS)
+                return -1;
+            code = code * LETTERS + letter;
+        }
+        return code;
+    }
+}
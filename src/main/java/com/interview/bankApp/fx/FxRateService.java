@@ -0,0 +1,112 @@
+package com.interview.bankApp.fx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This service holds the exchange rates used by the transfers. The rates are loaded from the {@code bankApp.fx.rates-file}
+ * file, one {@code FROM,TO,RATE} line per quote, and reloaded when the file changes. Every load builds a new {@link FxRateMatrix}
+ * that replaces the previous one in a single write, so the transfers read the rates without locks or database lookups.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class FxRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+    private final Path ratesFile;
+
+    private volatile FxRateMatrix matrix = FxRateMatrix.EMPTY;
+
+    private long loadedModifiedTime = -1;
+
+    @Autowired
+    public FxRateService(@Value("${bankApp.fx.rates-file:}") String ratesFile) {
+        this.ratesFile = ratesFile.isEmpty() ? null : Paths.get(ratesFile);
+    }
+
+    /**
+     * This method converts an amount between two currencies with the current rates
+     * @param amount - amount in minor units of {@code from}
+     * @param from - ISO 4217 code of the amount
+     * @param to - ISO 4217 code of the result
+     * @return {@code long} - amount in minor units of {@code to}
+     * @throws com.interview.bankApp.exception.CurrencyConversionException - if there is no rate between the two currencies
+     */
+    public long convert(long amount, String from, String to) {
+        return matrix.convert(amount, from, to);
+    }
+
+    /**
+     * @return {@code FxRateMatrix} - the current rates
+     */
+    public FxRateMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * This method loads the rates file if it changed since the last load. A file that cannot be read or parsed is logged
+     * and the previous rates are kept.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${bankApp.fx.refresh-interval-millis:60000}", fixedDelayString = "${bankApp.fx.refresh-interval-millis:60000}")
+    public synchronized void refresh() {
+        if (ratesFile == null)
+            return;
+        try {
+            long modifiedTime = Files.getLastModifiedTime(ratesFile).toMillis();
+            if (modifiedTime == loadedModifiedTime)
+                return;
+            try (BufferedReader reader = Files.newBufferedReader(ratesFile, StandardCharsets.UTF_8)) {
+                matrix = new FxRateMatrix(parse(reader));
+            }
+            loadedModifiedTime = modifiedTime;
+            logger.info("Exchange rates loaded from " + ratesFile + " for " + matrix.getCurrencies().size() + " currencies");
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Exchange rates could not be loaded from " + ratesFile + ", the previous rates are kept", e);
+        }
+    }
+
+    /**
+     * This method reads the {@code FROM,TO,RATE} lines of a rates file, empty lines and lines starting with # are skipped
+     * @param reader - the rates file
+     * @return {@code Map<String, Map<String, BigDecimal>>} - the rates by source and target currency
+     * @throws IllegalArgumentException - if a line is malformed
+     */
+    static Map<String, Map<String, BigDecimal>> parse(BufferedReader reader) throws IOException {
+        Map<String, Map<String, BigDecimal>> rates = new LinkedHashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] values = line.split(",");
+            if (values.length != 3)
+                throw new IllegalArgumentException("Line " + lineNumber + " should be FROM,TO,RATE: " + line);
+            try {
+                rates.computeIfAbsent(values[0].trim(), from -> new LinkedHashMap<>()).put(values[1].trim(), new BigDecimal(values[2].trim()));
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has an invalid rate: " + line, nfe);
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,122 @@
+package com.interview.bankApp.journal;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot of all the accounts, taken at a journal position. The accounts are streamed from the database,
+ * so taking a snapshot does not need memory proportional to the number of accounts.
+ */
+final class BalanceSnapshot {
+
+    static final String SUFFIX = ".snap";
+
+    private static final int MAGIC = 0x42414e4b;
+
+    private static final String SELECT_ACCOUNTS = "select account_id, account_number, account_currency, account_status, account_value, version from account";
+
+    private BalanceSnapshot() {
+    }
+
+    static String fileName(long journalPosition) {
+        return String.format("snapshot-%020d%s", journalPosition, SUFFIX);
+    }
+
+    static long journalPosition(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("snapshot-".length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it to disk and then renames it atomically
+     * @return {@code Path} - the snapshot file
+     */
+    static Path write(Path directory, long journalPosition, JdbcTemplate jdbcTemplate) throws IOException {
+        Path snapshot = directory.resolve(fileName(journalPosition));
+        Path temporary = directory.resolve(fileName(journalPosition) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream channelStream = Channels.newOutputStream(channel);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(channelStream, 64 * 1024));
+            output.writeInt(MAGIC);
+            output.writeLong(journalPosition);
+            try {
+                jdbcTemplate.query(SELECT_ACCOUNTS, (RowCallbackHandler) resultSet -> {
+                    try {
+                        output.writeBoolean(true);
+                        output.writeLong(resultSet.getLong(1));
+                        output.writeUTF(resultSet.getString(2));
+                        output.writeUTF(resultSet.getString(3));
+                        output.writeUTF(resultSet.getString(4));
+                        output.writeLong(resultSet.getLong(5));
+                        output.writeLong(resultSet.getLong(6));
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            output.writeBoolean(false);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return snapshot;
+    }
+
+    /**
+     * Reads a snapshot
+     * @param file - the snapshot file
+     * @param consumer - receives every account of the snapshot
+     * @return {@code long} - the journal position of the snapshot
+     */
+    static long read(Path file, Consumer<RecoveredAccount> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (input.readInt() != MAGIC)
+                throw new IOException("File " + file + " is not a balance snapshot");
+            long journalPosition = input.readLong();
+            while (input.readBoolean()) {
+                long accountId = input.readLong();
+                String accountNumber = input.readUTF();
+                String accountCurrency = input.readUTF();
+                String accountStatus = input.readUTF();
+                long accountValue = input.readLong();
+                long version = input.readLong();
+                consumer.accept(new RecoveredAccount(accountId, accountNumber, accountCurrency, accountStatus, accountValue, version, version));
+            }
+            return journalPosition;
+        }
+    }
+
+    /**
+     * @return {@code List<Path>} - the snapshots of the directory, the latest last
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> snapshots = files.filter(file -> file.getFileName().toString().startsWith("snapshot-")
+                    && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+            return new ArrayList<>(snapshots);
+        }
+    }
+}
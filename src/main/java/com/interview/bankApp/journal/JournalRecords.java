@@ -0,0 +1,80 @@
+package com.interview.bankApp.journal;
+
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary layout of the journal records
+ */
+final class JournalRecords {
+
+    static final byte TRANSFER = 1;
+
+    static final byte ACCOUNT = 2;
+
+    static final byte ACCOUNT_DELETED = 3;
+
+    private JournalRecords() {
+    }
+
+    static void writeTransfer(ByteBuffer buffer, Transaction transaction, long senderVersion, long receiverVersion) {
+        LocalDateTime date = transaction.getTransactionDate();
+        buffer.put(TRANSFER);
+        buffer.putLong(transaction.getTransactionId());
+        buffer.putLong(transaction.getTransactionValue());
+        buffer.putLong(date.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(date.getNano());
+        putString(buffer, transaction.getTransactionCurrency());
+        putString(buffer, transaction.getTransactionSender());
+        putString(buffer, transaction.getTransactionReceiver());
+        buffer.putLong(senderVersion);
+        buffer.putLong(receiverVersion);
+        buffer.putLong(transaction.getSenderAmount());
+        buffer.putLong(transaction.getReceiverAmount());
+    }
+
+    static void writeAccount(ByteBuffer buffer, Account account) {
+        buffer.put(ACCOUNT);
+        buffer.putLong(account.getAccountId());
+        putString(buffer, account.getAccountNumber());
+        putString(buffer, account.getAccountCurrency());
+        putString(buffer, account.getAccountStatus());
+        buffer.putLong(account.getAccountValue());
+        buffer.putLong(account.getVersion() == null ? 0 : account.getVersion());
+    }
+
+    static void writeAccountDeleted(ByteBuffer buffer, long accountId) {
+        buffer.put(ACCOUNT_DELETED);
+        buffer.putLong(accountId);
+    }
+
+    static LocalDateTime readDate(ByteBuffer buffer) {
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
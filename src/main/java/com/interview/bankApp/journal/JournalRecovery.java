@@ -0,0 +1,170 @@
+package com.interview.bankApp.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the accounts at startup: the latest snapshot is loaded and only the journal records written after it are replayed.
+ * A transfer leg is applied only if its account version is newer than the last full state of the account, so the records
+ * that were already included in the snapshot are not applied twice.
+ */
+class JournalRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalRecovery.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_ACCOUNT = "insert into account (account_id, account_currency, account_number, account_status, account_value, opening_balance, version) values (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The journal only holds the latest account values and the transactions written since the snapshot, the opening balances
+     * are derived from them so that the recovered accounts reconcile
+     */
+    private static final String UPDATE_OPENING_BALANCES = "update account a set opening_balance = a.account_value"
+            + " - coalesce((select sum(t.receiver_amount) from transaction t where t.receiver_account_id = a.account_id), 0)"
+            + " + coalesce((select sum(t.sender_amount) from transaction t where t.account_id = a.account_id), 0)";
+
+    private static final String INSERT_TRANSACTION = "insert into transaction (transaction_id, transaction_currency, transaction_date, transaction_receiver, transaction_sender, transaction_value, sender_amount, receiver_amount, account_id, receiver_account_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, RecoveredAccount> accountsById = new HashMap<>();
+
+    private final Map<String, RecoveredAccount> accountsByNumber = new HashMap<>();
+
+    private final List<Object[]> transactions = new ArrayList<>();
+
+    JournalRecovery(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Restores the accounts and the transactions of the journal tail into an empty database
+     * @param directory - the journal directory
+     * @param segments - the journal segments, ordered by position
+     */
+    void recover(Path directory, List<JournalSegment> segments) throws IOException {
+        Integer existingAccounts = jdbcTemplate.queryForObject("select count(*) from account", Integer.class);
+        if (existingAccounts != null && existingAccounts > 0) {
+            logger.info("Database already has " + existingAccounts + " accounts, the journal is not replayed");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        long snapshotPosition = 0;
+        List<Path> snapshots = BalanceSnapshot.list(directory);
+        if (!snapshots.isEmpty()) {
+            snapshotPosition = BalanceSnapshot.read(snapshots.get(snapshots.size() - 1), this::putAccount);
+        }
+        long[] replayedRecords = new long[1];
+        for (JournalSegment segment : segments) {
+            segment.read(snapshotPosition, (position, payload) -> {
+                replay(payload);
+                replayedRecords[0]++;
+            });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT, accountsById.values(), BATCH_SIZE, (statement, account) -> {
+            statement.setLong(1, account.getAccountId());
+            statement.setString(2, account.getAccountCurrency());
+            statement.setString(3, account.getAccountNumber());
+            statement.setString(4, account.getAccountStatus());
+            statement.setLong(5, account.getAccountValue());
+            statement.setLong(6, account.getAccountValue());
+            statement.setLong(7, account.getVersion());
+        });
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, BATCH_SIZE, (statement, row) -> {
+            for (int i = 0; i < row.length; i++)
+                statement.setObject(i + 1, row[i]);
+        });
+        jdbcTemplate.update(UPDATE_OPENING_BALANCES);
+        logger.info("Recovered " + accountsById.size() + " accounts from the snapshot at position " + snapshotPosition + " and "
+                + replayedRecords[0] + " journal records in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private void putAccount(RecoveredAccount account) {
+        accountsById.put(account.getAccountId(), account);
+        accountsByNumber.put(account.getAccountNumber(), account);
+    }
+
+    private void replay(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type == JournalRecords.TRANSFER)
+            replayTransfer(payload);
+        else if (type == JournalRecords.ACCOUNT)
+            replayAccount(payload);
+        else if (type == JournalRecords.ACCOUNT_DELETED)
+            replayAccountDeleted(payload);
+    }
+
+    private void replayTransfer(ByteBuffer payload) {
+        long transactionId = payload.getLong();
+        long transactionValue = payload.getLong();
+        LocalDateTime transactionDate = JournalRecords.readDate(payload);
+        String transactionCurrency = JournalRecords.getString(payload);
+        String transactionSender = JournalRecords.getString(payload);
+        String transactionReceiver = JournalRecords.getString(payload);
+        long senderVersion = payload.getLong();
+        long receiverVersion = payload.getLong();
+        // records written before the multi-currency transfers only hold the transaction value
+        long senderAmount = payload.remaining() >= 16 ? payload.getLong() : transactionValue;
+        long receiverAmount = payload.remaining() >= 8 ? payload.getLong() : transactionValue;
+
+        RecoveredAccount senderAccount = accountsByNumber.get(transactionSender);
+        RecoveredAccount receiverAccount = accountsByNumber.get(transactionReceiver);
+        if (senderAccount != null && senderVersion > senderAccount.getBaseVersion()) {
+            senderAccount.setAccountValue(senderAccount.getAccountValue() - senderAmount);
+            senderAccount.setVersion(Math.max(senderAccount.getVersion(), senderVersion));
+        }
+        if (receiverAccount != null && receiverVersion > receiverAccount.getBaseVersion()) {
+            receiverAccount.setAccountValue(receiverAccount.getAccountValue() + receiverAmount);
+            receiverAccount.setVersion(Math.max(receiverAccount.getVersion(), receiverVersion));
+        }
+        // an interest accrual has only one account leg
+        if (senderAccount != null || receiverAccount != null) {
+            transactions.add(new Object[] {transactionId, transactionCurrency, Timestamp.valueOf(transactionDate),
+                    transactionReceiver, transactionSender, transactionValue, senderAmount, receiverAmount,
+                    senderAccount == null ? null : senderAccount.getAccountId(),
+                    receiverAccount == null ? null : receiverAccount.getAccountId()});
+        }
+    }
+
+    private void replayAccount(ByteBuffer payload) {
+        long accountId = payload.getLong();
+        String accountNumber = JournalRecords.getString(payload);
+        String accountCurrency = JournalRecords.getString(payload);
+        String accountStatus = JournalRecords.getString(payload);
+        long accountValue = payload.getLong();
+        long version = payload.getLong();
+
+        RecoveredAccount account = accountsById.get(accountId);
+        if (account == null) {
+            putAccount(new RecoveredAccount(accountId, accountNumber, accountCurrency, accountStatus, accountValue, version, version));
+        } else if (version > account.getVersion()) {
+            account.setAccountStatus(accountStatus);
+            account.setAccountValue(accountValue);
+            account.setVersion(version);
+            account.setBaseVersion(version);
+        } else if (version > account.getBaseVersion()) {
+            // a newer transfer leg was journaled first, its value already includes this state except for the status
+            account.setAccountStatus(accountStatus);
+            account.setBaseVersion(version);
+        }
+    }
+
+    private void replayAccountDeleted(ByteBuffer payload) {
+        RecoveredAccount account = accountsById.remove(payload.getLong());
+        if (account != null)
+            accountsByNumber.remove(account.getAccountNumber());
+    }
+}
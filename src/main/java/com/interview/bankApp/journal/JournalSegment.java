@@ -0,0 +1,145 @@
+package com.interview.bankApp.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, pre-sized journal segment file. Every record is framed as {@code [length][crc32][payload]},
+ * the first zero length (or a record with a wrong checksum, left by a torn write) marks the end of the segment.
+ * The name of the file holds the journal position of its first record.
+ */
+class JournalSegment implements Closeable {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+
+    private final long basePosition;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final CRC32 crc = new CRC32();
+
+    private JournalSegment(Path path, long basePosition, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.basePosition = basePosition;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens (or creates) a segment and moves its write position after the last valid record
+     */
+    static JournalSegment open(Path directory, long basePosition, int size) throws IOException {
+        Path path = directory.resolve(fileName(basePosition));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long mappedSize = Math.max(size, channel.size());
+        JournalSegment segment = new JournalSegment(path, basePosition, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+        segment.buffer.position(segment.scan(null));
+        return segment;
+    }
+
+    static String fileName(long basePosition) {
+        return String.format("journal-%020d%s", basePosition, SUFFIX);
+    }
+
+    static long basePosition(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - SUFFIX.length()));
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getBasePosition() {
+        return basePosition;
+    }
+
+    /**
+     * @return {@code long} - journal position right after the last record of this segment
+     */
+    long getEndPosition() {
+        return basePosition + buffer.position();
+    }
+
+    /**
+     * Appends a record, the caller has to serialize the appends
+     * @param payload - the record, between its position and limit
+     * @return {@code boolean} - false if the segment is full
+     */
+    boolean append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (buffer.remaining() < HEADER_SIZE + length + 4)
+            return false;
+        crc.reset();
+        crc.update(payload.duplicate());
+        buffer.putInt(length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Reads the records of this segment in order
+     * @param fromPosition - journal position of the first record to return
+     * @param consumer - receives the journal position and the payload of every record
+     */
+    void read(long fromPosition, RecordConsumer consumer) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(0);
+        scan(reader, fromPosition, consumer);
+    }
+
+    private int scan(RecordConsumer consumer) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(0);
+        return scan(reader, Long.MIN_VALUE, consumer);
+    }
+
+    private int scan(ByteBuffer reader, long fromPosition, RecordConsumer consumer) {
+        CRC32 checksum = new CRC32();
+        while (reader.remaining() >= HEADER_SIZE) {
+            int start = reader.position();
+            int length = reader.getInt();
+            int expectedCrc = reader.getInt();
+            if (length <= 0 || length > reader.remaining())
+                return start;
+            ByteBuffer payload = reader.slice();
+            payload.limit(length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expectedCrc)
+                return start;
+            if (consumer != null && basePosition + start >= fromPosition)
+                consumer.accept(basePosition + start, payload);
+            reader.position(start + HEADER_SIZE + length);
+        }
+        return reader.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+
+        void accept(long position, ByteBuffer payload);
+    }
+}
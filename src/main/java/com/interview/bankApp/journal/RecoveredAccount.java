@@ -0,0 +1,28 @@
+package com.interview.bankApp.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Account state rebuilt from a snapshot and the journal. {@code baseVersion} is the version of the last full state
+ * (snapshot or account record), transfer legs with a version not greater than it are already included in the value.
+ * {@code version} is the highest version replayed so far.
+ */
+@Data
+@AllArgsConstructor
+class RecoveredAccount {
+
+    private long accountId;
+
+    private String accountNumber;
+
+    private String accountCurrency;
+
+    private String accountStatus;
+
+    private long accountValue;
+
+    private long version;
+
+    private long baseVersion;
+}
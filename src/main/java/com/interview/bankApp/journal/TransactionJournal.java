@@ -0,0 +1,263 @@
+package com.interview.bankApp.journal;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.AccountsCreatedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable, append-only journal of the committed transfers and account changes, enabled with {@code bankApp.journal.enabled=true}.
+ * Records are appended to memory-mapped segment files and a flusher thread forces them to disk in groups, so concurrent
+ * transfers share one fsync. Balance snapshots are taken periodically and, at startup, the latest snapshot is loaded and
+ * only the journal tail written after it is replayed.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "bankApp.journal.enabled", havingValue = "true")
+public class TransactionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final int MAX_RECORD_SIZE = 4096;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${bankApp.journal.directory:data/journal}")
+    String directoryName;
+
+    @Value("${bankApp.journal.segment-size-mb:64}")
+    int segmentSizeMb;
+
+    @Value("${bankApp.journal.flush-interval-micros:500}")
+    long flushIntervalMicros;
+
+    private Path directory;
+
+    private JournalSegment currentSegment;
+
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+
+    private volatile long appendPosition;
+
+    private volatile long durablePosition;
+
+    private final Object durableMonitor = new Object();
+
+    private volatile boolean running = true;
+
+    private Thread flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(directoryName);
+        Files.createDirectories(directory);
+        List<JournalSegment> segments = openSegments();
+        new JournalRecovery(jdbcTemplate).recover(directory, segments);
+
+        for (int i = 0; i < segments.size() - 1; i++)
+            segments.get(i).close();
+        currentSegment = segments.isEmpty()
+                ? JournalSegment.open(directory, 0, segmentSize())
+                : segments.get(segments.size() - 1);
+        appendPosition = currentSegment.getEndPosition();
+        durablePosition = appendPosition;
+
+        flusher = new Thread(this::flushLoop, "transaction-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Transaction journal opened in " + directory.toAbsolutePath() + " at position " + appendPosition);
+    }
+
+    /**
+     * Journals the transfers of a committed posting and waits until they are durable
+     * @param event - the posting event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Map<String, Long> versions = new HashMap<>();
+        for (Account account : event.getAccounts())
+            versions.put(account.getAccountNumber(), account.getVersion() == null ? 0 : account.getVersion());
+        long position = 0;
+        synchronized (this) {
+            for (Transaction transaction : event.getTransactions()) {
+                recordBuffer.clear();
+                JournalRecords.writeTransfer(recordBuffer, transaction,
+                        versions.getOrDefault(transaction.getTransactionSender(), 0L),
+                        versions.getOrDefault(transaction.getTransactionReceiver(), 0L));
+                position = append();
+            }
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Journals an account that was created, updated or deleted and waits until the record is durable
+     * @param event - the account event
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        long position;
+        synchronized (this) {
+            recordBuffer.clear();
+            if (event.getAccount() == null)
+                JournalRecords.writeAccountDeleted(recordBuffer, event.getAccountId());
+            else
+                JournalRecords.writeAccount(recordBuffer, event.getAccount());
+            position = append();
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Journals a chunk of imported accounts and waits once until all of them are durable
+     * @param event - the import event
+     */
+    @EventListener
+    public void onAccountsCreated(AccountsCreatedEvent event) {
+        long position = 0;
+        synchronized (this) {
+            for (Account account : event.getAccounts()) {
+                recordBuffer.clear();
+                JournalRecords.writeAccount(recordBuffer, account);
+                position = append();
+            }
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Takes a snapshot of all the account values and removes the journal segments and snapshots that are no longer needed
+     */
+    @Scheduled(initialDelayString = "${bankApp.journal.snapshot-interval-millis:300000}", fixedDelayString = "${bankApp.journal.snapshot-interval-millis:300000}")
+    public void snapshot() throws IOException {
+        long position = appendPosition;
+        Path snapshot = BalanceSnapshot.write(directory, position, jdbcTemplate);
+        logger.info("Balance snapshot " + snapshot.getFileName() + " was written");
+
+        for (Path oldSnapshot : BalanceSnapshot.list(directory)) {
+            if (!oldSnapshot.equals(snapshot))
+                Files.deleteIfExists(oldSnapshot);
+        }
+        long currentBasePosition;
+        synchronized (this) {
+            currentBasePosition = currentSegment.getBasePosition();
+        }
+        List<Path> segmentFiles = listSegmentFiles();
+        for (int i = 0; i + 1 < segmentFiles.size(); i++) {
+            long nextBasePosition = JournalSegment.basePosition(segmentFiles.get(i + 1));
+            if (nextBasePosition <= position && JournalSegment.basePosition(segmentFiles.get(i)) < currentBasePosition)
+                Files.deleteIfExists(segmentFiles.get(i));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        synchronized (this) {
+            currentSegment.force();
+            currentSegment.close();
+        }
+    }
+
+    private long append() {
+        recordBuffer.flip();
+        if (!currentSegment.append(recordBuffer)) {
+            try {
+                JournalSegment fullSegment = currentSegment;
+                fullSegment.force();
+                currentSegment = JournalSegment.open(directory, fullSegment.getEndPosition(), segmentSize());
+                fullSegment.close();
+            } catch (IOException ioe) {
+                throw new IllegalStateException("Journal segment could not be rolled", ioe);
+            }
+            currentSegment.append(recordBuffer);
+        }
+        appendPosition = currentSegment.getEndPosition();
+        return appendPosition;
+    }
+
+    private void awaitDurable(long position) {
+        synchronized (durableMonitor) {
+            while (durablePosition < position && running) {
+                try {
+                    durableMonitor.wait(1);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            long target;
+            JournalSegment segment;
+            synchronized (this) {
+                target = appendPosition;
+                segment = currentSegment;
+            }
+            if (target > durablePosition) {
+                segment.force();
+                synchronized (durableMonitor) {
+                    durablePosition = target;
+                    durableMonitor.notifyAll();
+                }
+            } else {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros));
+            }
+        }
+    }
+
+    private List<JournalSegment> openSegments() throws IOException {
+        List<JournalSegment> segments = new ArrayList<>();
+        for (Path file : listSegmentFiles())
+            segments.add(JournalSegment.open(directory, JournalSegment.basePosition(file), segmentSize()));
+        return segments;
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")
+                    && file.getFileName().toString().endsWith(JournalSegment.SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private int segmentSize() {
+        return segmentSizeMb * 1024 * 1024;
+    }
+}
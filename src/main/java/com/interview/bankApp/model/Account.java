@@ -11,6 +11,8 @@ import java.util.List;
 @Entity
 @Table
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Account {
 
     @Id
@@ -25,14 +27,28 @@ public class Account {
     @NotNull
     private String accountNumber;
 
+    /**
+     * Account value in minor units of {@code accountCurrency}, see {@link Money}
+     */
     @Column
-    @NotNull
-    private Double accountValue;
+    private long accountValue;
+
+    /**
+     * Account value before the transfers of the {@code Transaction} table, in minor units of {@code accountCurrency}. The reconciliation checks that
+     * {@code accountValue} equals it plus the received minus the sent transactions. A direct change of the account value moves it too,
+     * and so does the archival of old transfers.
+     */
+    @Column
+    private long openingBalance;
 
     @Column
     @NotNull
     private String accountStatus;
 
+    @Version
+    @Column
+    private Long version;
+
     @OneToMany(mappedBy = "account")
     @JsonManagedReference
     private List<Transaction> transactions;
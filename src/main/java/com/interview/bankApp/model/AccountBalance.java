@@ -0,0 +1,29 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Value of an account at a point in time
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+
+    private long accountId;
+
+    private LocalDateTime at;
+
+    /**
+     * Account value in minor units of {@code accountCurrency}, see {@link Money}
+     */
+    private long accountValue;
+
+    private String accountCurrency;
+}
@@ -0,0 +1,24 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optimistic locking statistics of a single account
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountContention {
+
+    private long accountId;
+
+    private long conflicts;
+
+    private long retries;
+
+    private long failures;
+}
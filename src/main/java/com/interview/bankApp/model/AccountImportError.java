@@ -0,0 +1,25 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of an account import that was rejected
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountImportError {
+
+    /**
+     * Line of the row in the imported file, starting from 1
+     */
+    private long line;
+
+    private String accountNumber;
+
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an account import: the number of created and rejected rows and the reasons of the first rejections
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountImportReport {
+
+    private long imported;
+
+    private long rejected;
+
+    private List<AccountImportError> errors;
+}
@@ -0,0 +1,40 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Transfer totals of an account between two days (both included), built from the {@link DailyRollup daily rollups}.
+ * The minimum, maximum and closing balance are missing when the account has no transfers in (or, for the closing balance, before) the period.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPeriodSummary {
+
+    private long accountId;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private long debitTotal;
+
+    private long creditTotal;
+
+    private long transactionCount;
+
+    private Long minTransactionValue;
+
+    private Long maxTransactionValue;
+
+    private Long closingBalance;
+
+    private List<DailyRollup> days;
+}
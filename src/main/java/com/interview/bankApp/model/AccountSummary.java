@@ -0,0 +1,49 @@
+package com.interview.bankApp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model of an account, the columns of the {@code Account} table without the transaction history.
+ * The transactions are only filled when the client asks for them with {@code ?include=transactions}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountSummary {
+
+    public static final String INCLUDE_TRANSACTIONS = "transactions";
+
+    private long accountId;
+
+    private String accountNumber;
+
+    private String accountCurrency;
+
+    private long accountValue;
+
+    private String accountStatus;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CursorPage<TransactionRow> transactions;
+
+    /**
+     * Constructor used by the JPQL constructor projections
+     */
+    public AccountSummary(long accountId, String accountNumber, String accountCurrency, long accountValue, String accountStatus) {
+        this(accountId, accountNumber, accountCurrency, accountValue, accountStatus, null);
+    }
+
+    /**
+     * @param account - an account entity or a cached copy
+     * @return {@code AccountSummary} - the summary of the account, without transactions
+     */
+    public static AccountSummary of(Account account) {
+        return new AccountSummary(account.getAccountId(), account.getAccountNumber(), account.getAccountCurrency(),
+                account.getAccountValue(), account.getAccountStatus());
+    }
+}
@@ -0,0 +1,39 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An archive segment file holding the transactions of one day that were moved out of the {@code Transaction} table.
+ * The row is written in the same database transaction that deletes the archived transactions, so only the registered
+ * files are read and a file left by an interrupted archival is ignored.
+ */
+@Data
+@Entity
+@Table
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedSegment {
+
+    @Id
+    @Column
+    private String fileName;
+
+    @Column
+    @NotNull
+    private LocalDate archiveDate;
+
+    @Column
+    private long transactionCount;
+
+    @Column
+    private LocalDateTime archivedAt;
+}
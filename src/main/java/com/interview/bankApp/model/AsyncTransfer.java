@@ -0,0 +1,30 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of a transaction submitted on {@code /transactions/async}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsyncTransfer {
+
+    private String transferId;
+
+    private String status;
+
+    private Long transactionId;
+
+    private String message;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,53 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Value of an account at a position of the {@code (transactionDate, transactionId)} order: it includes the transfers
+ * of the account up to and including that position. A balance at any time is computed from the nearest checkpoint.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_balance_checkpoint_account_date", columnList = "accountId, checkpointDate, transactionId"))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+    /**
+     * {@code transactionId} of the checkpoints taken after a direct change of the account value, they include every transfer
+     * dated at or before {@code checkpointDate}
+     */
+    public static final long AFTER_ALL_TRANSACTIONS = Long.MAX_VALUE;
+
+    @Id
+    @GeneratedValue
+    @Column
+    private Long checkpointId;
+
+    @Column
+    private long accountId;
+
+    @Column
+    @NotNull
+    private LocalDateTime checkpointDate;
+
+    /**
+     * The last transaction included in the balance, among the transactions dated {@code checkpointDate}
+     */
+    @Column
+    private long transactionId;
+
+    /**
+     * Account value in minor units of the account currency, see {@link Money}
+     */
+    @Column
+    private long accountValue;
+}
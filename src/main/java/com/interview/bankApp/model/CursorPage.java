@@ -0,0 +1,70 @@
+package com.interview.bankApp.model;
+
+import com.interview.bankApp.exception.InvalidInputException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset paginated listing. {@code next} is passed as the {@code after} parameter to get the following page
+ * and is {@code null} on the last page.
+ * @param <T> - the type of the listed items
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> items;
+
+    private String next;
+
+    /**
+     * This method builds a page out of the rows read with a limit of {@code limit + 1}, the extra row only tells that another page exists
+     * @param rows - the rows read from the database, at most {@code limit + 1}
+     * @param limit - the page size
+     * @param cursor - returns the cursor of the last item of the page
+     * @return {@code CursorPage<T>}
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, String> cursor) {
+        if (rows.size() <= limit)
+            return new CursorPage<>(rows, null);
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursor.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * This method returns the request for the rows of a page, one more than the page size
+     * @param limit - the page size, between 1 and {@link #MAX_LIMIT}
+     * @return {@code Pageable}
+     * @throws InvalidInputException - if the limit is out of range
+     */
+    public static Pageable firstRows(int limit) throws InvalidInputException {
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new InvalidInputException("The limit should be between 1 and " + MAX_LIMIT + ", " + limit + " was entered");
+        return PageRequest.of(0, limit + 1);
+    }
+
+    /**
+     * This method reads the {@code after} parameter of a transaction listing
+     * @param after - the {@code next} cursor of the previous page
+     * @return {@code TransactionCursor}
+     * @throws InvalidInputException - if the cursor is malformed
+     */
+    public static TransactionCursor decodeTransactionCursor(String after) throws InvalidInputException {
+        try {
+            return TransactionCursor.decode(after);
+        } catch (IllegalArgumentException iae) {
+            throw new InvalidInputException(iae.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * Totals of the transfers of one account in one day, in minor units of the account currency.
+ * The rows are updated together with every posting, so a period summary reads one row per day
+ * instead of the transactions of the period.
+ */
+@Data
+@Entity
+@Table
+@IdClass(DailyRollupId.class)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRollup {
+
+    @Id
+    @Column
+    private long accountId;
+
+    @Id
+    @Column
+    @NotNull
+    private LocalDate rollupDate;
+
+    /**
+     * Sum of the transfers sent by the account
+     */
+    @Column
+    private long debitTotal;
+
+    /**
+     * Sum of the transfers received by the account
+     */
+    @Column
+    private long creditTotal;
+
+    @Column
+    private long transactionCount;
+
+    @Column
+    private long minTransactionValue;
+
+    @Column
+    private long maxTransactionValue;
+
+    /**
+     * Account value after the last transfer of the day: the closing balance of the previous rollup, or the opening balance
+     * of the account for its first one, plus the received minus the sent amounts of the day
+     */
+    @Column
+    private long closingBalance;
+}
@@ -0,0 +1,36 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column
+    private String idempotencyKey;
+
+    @Column
+    private long transactionId;
+
+    /**
+     * SHA-256 of the request sent with the key, a different request with the same key is refused
+     */
+    @Column(length = 64)
+    private String requestHash;
+
+    @Column
+    @NotNull
+    private LocalDateTime createdAt;
+}
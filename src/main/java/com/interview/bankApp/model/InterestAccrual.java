@@ -0,0 +1,43 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * Interest accrued by one account for one day, in minor units of the account currency (negative for a fee).
+ * The row is written in the same database transaction as the account value, so an interrupted accrual job
+ * resumes with the accounts that have no row for the day yet.
+ */
+@Data
+@Entity
+@Table
+@IdClass(InterestAccrualId.class)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrual {
+
+    @Id
+    @Column
+    private long accountId;
+
+    @Id
+    @Column
+    @NotNull
+    private LocalDate accrualDate;
+
+    @Column
+    private long accruedValue;
+
+    /**
+     * The accrual transaction, null if nothing was accrued
+     */
+    @Column
+    private Long transactionId;
+}
@@ -0,0 +1,21 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Primary key of an {@link InterestAccrual}: one row per account and day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualId implements Serializable {
+
+    private long accountId;
+
+    private LocalDate accrualDate;
+}
@@ -0,0 +1,38 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of a run of the interest accrual job: the days it accrued, how many accounts were accrued and how fast it went
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualReport {
+
+    private InterestAccrualStatus status;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    private long durationMillis;
+
+    private List<LocalDate> accrualDates;
+
+    private long chunks;
+
+    private long accountsAccrued;
+
+    private double accountsPerSecond;
+
+    private String message;
+}
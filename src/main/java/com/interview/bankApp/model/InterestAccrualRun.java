@@ -0,0 +1,39 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An accrual day that was started. The day is complete once {@code completedAt} is set, until then every run of the job
+ * resumes it before accruing a new day.
+ */
+@Data
+@Entity
+@Table
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualRun {
+
+    @Id
+    @Column
+    private LocalDate accrualDate;
+
+    @Column
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    /**
+     * Accounts accrued for the day, over all the runs that worked on it
+     */
+    @Column
+    private long accountsAccrued;
+}
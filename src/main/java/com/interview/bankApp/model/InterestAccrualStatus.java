@@ -0,0 +1,7 @@
+package com.interview.bankApp.model;
+
+public enum InterestAccrualStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,65 @@
+package com.interview.bankApp.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Money amounts are kept as primitive {@code long} values in minor units of their currency (e.g. 10050 RON means 100.50 RON),
+ * so balances are exact and the arithmetic does not allocate. This class holds the conversions between minor units and decimals.
+ * @author Adrian
+ * @version 1.0
+ */
+public final class Money {
+
+    private static final int DEFAULT_SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * This method returns the number of decimals of a currency, e.g. 2 for RON, 0 for JPY
+     * @param currencyCode - ISO 4217 currency code
+     * @return {@code int}
+     */
+    public static int scale(String currencyCode) {
+        if (currencyCode == null)
+            return DEFAULT_SCALE;
+        try {
+            int fractionDigits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return fractionDigits < 0 ? DEFAULT_SCALE : fractionDigits;
+        } catch (IllegalArgumentException iae) {
+            return DEFAULT_SCALE;
+        }
+    }
+
+    /**
+     * This method converts a decimal amount into minor units
+     * @param amount - decimal amount, e.g. 100.50
+     * @param currencyCode - ISO 4217 currency code
+     * @return {@code long} - amount in minor units, e.g. 10050
+     * @throws ArithmeticException - if the amount has more decimals than the currency or does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount, String currencyCode) {
+        return amount.movePointRight(scale(currencyCode)).longValueExact();
+    }
+
+    /**
+     * This method converts an amount in minor units into a decimal amount
+     * @param minorUnits - amount in minor units, e.g. 10050
+     * @param currencyCode - ISO 4217 currency code
+     * @return {@code BigDecimal} - decimal amount, e.g. 100.50
+     */
+    public static BigDecimal toDecimal(long minorUnits, String currencyCode) {
+        return BigDecimal.valueOf(minorUnits, scale(currencyCode));
+    }
+
+    /**
+     * This method formats an amount in minor units for messages and logs, e.g. "100.50 RON"
+     * @param minorUnits - amount in minor units
+     * @param currencyCode - ISO 4217 currency code
+     * @return {@code String}
+     */
+    public static String format(long minorUnits, String currencyCode) {
+        return toDecimal(minorUnits, currencyCode).toPlainString() + " " + currencyCode;
+    }
+}
@@ -0,0 +1,22 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An account whose value differs from its opening balance plus the net of its transactions, values in minor units
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationMismatch {
+
+    private long accountId;
+
+    private long accountValue;
+
+    private long expectedValue;
+}
@@ -0,0 +1,40 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of a reconciliation run: how many accounts were checked, how many did not reconcile and how fast it went.
+ * Only the first mismatches are listed, {@code mismatchCount} counts all of them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+
+    private ReconciliationStatus status;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    private long durationMillis;
+
+    private long partitions;
+
+    private long accountsChecked;
+
+    private long mismatchCount;
+
+    private double accountsPerSecond;
+
+    private List<ReconciliationMismatch> mismatches;
+
+    private String message;
+}
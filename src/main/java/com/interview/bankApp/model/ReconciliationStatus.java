@@ -0,0 +1,7 @@
+package com.interview.bankApp.model;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -1,8 +1,11 @@
 package com.interview.bankApp.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -10,17 +13,25 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_transaction_account_date", columnList = "accountId, transactionDate, transactionId"),
+        @Index(name = "idx_transaction_receiver_date", columnList = "receiverAccountId, transactionDate, transactionId"),
+        @Index(name = "idx_transaction_date", columnList = "transactionDate, transactionId")
+})
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Transaction {
 
     @Id
     @Column
     private long transactionId;
 
+    /**
+     * Transaction value in minor units of {@code transactionCurrency}, see {@link Money}
+     */
     @Column
-    @NotNull
-    private Double transactionValue;
+    private long transactionValue;
 
     @Column
     @NotNull
@@ -38,8 +49,31 @@ public class Transaction {
     @NotNull
     private String transactionCurrency;
 
+    /**
+     * Amount debited from the sender, {@code transactionValue} converted to minor units of the sender account currency
+     */
+    @Column
+    private long senderAmount;
+
+    /**
+     * Amount credited to the receiver, {@code transactionValue} converted to minor units of the receiver account currency
+     */
+    @Column
+    private long receiverAmount;
+
+    /**
+     * The sender account
+     */
     @ManyToOne
     @JoinColumn(name = "accountId")
     @JsonBackReference
     private Account account;
+
+    /**
+     * The receiver account, so the incoming transactions of an account are read through an index like the outgoing ones
+     */
+    @ManyToOne
+    @JoinColumn(name = "receiverAccountId")
+    @JsonIgnore
+    private Account receiverAccount;
 }
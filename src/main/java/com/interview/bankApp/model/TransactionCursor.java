@@ -0,0 +1,49 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a transaction in the {@code (transactionDate, transactionId)} order used by the transaction listings,
+ * exchanged with the clients as an opaque string
+ */
+@Data
+@AllArgsConstructor
+public class TransactionCursor {
+
+    private LocalDateTime transactionDate;
+
+    private long transactionId;
+
+    /**
+     * This method returns the cursor that points right after a transaction
+     * @param transaction - the last transaction of a page
+     * @return {@code String}
+     */
+    public static String encode(TransactionRow transaction) {
+        String position = transaction.getTransactionDate() + "|" + transaction.getTransactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This method reads a cursor returned by {@link #encode(TransactionRow)}
+     * @param cursor - the {@code after} parameter of a request
+     * @return {@code TransactionCursor}
+     * @throws IllegalArgumentException - if the cursor is malformed
+     */
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, ex);
+        }
+    }
+}
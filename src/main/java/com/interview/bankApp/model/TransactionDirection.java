@@ -0,0 +1,10 @@
+package com.interview.bankApp.model;
+
+/**
+ * Side of the transactions of an account: received ({@code IN}), sent ({@code OUT}) or both
+ */
+public enum TransactionDirection {
+    IN,
+    OUT,
+    BOTH
+}
@@ -0,0 +1,8 @@
+package com.interview.bankApp.model;
+
+public enum TransactionResultStatus {
+    ACCEPTED,
+    REJECTED,
+    QUEUED,
+    PENDING
+}
@@ -0,0 +1,31 @@
+package com.interview.bankApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a transaction, the columns of the {@code Transaction} table without the owning account.
+ * It is filled by a JPQL constructor projection, so listing transactions does not load any entity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRow {
+
+    private long transactionId;
+
+    private long transactionValue;
+
+    private LocalDateTime transactionDate;
+
+    private String transactionSender;
+
+    private String transactionReceiver;
+
+    private String transactionCurrency;
+}
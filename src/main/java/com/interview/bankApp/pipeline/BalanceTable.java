@@ -0,0 +1,143 @@
+package com.interview.bankApp.pipeline;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open addressing table of the account values of the business logic stage, keyed by account id.
+ * Every slot is 16 bytes, {@code [accountId][accountValue]}, in a single buffer that is either on the heap or a direct
+ * (off-heap) buffer, so reading and updating an account value never allocates. The slots are probed linearly and the
+ * table doubles when it is 70% full. Account id 0 marks a free slot, so account 0 itself is kept in an extra slot after the
+ * table. Only the single writer of the pipeline uses it, it is not thread safe.
+ */
+class BalanceTable {
+
+    private static final int SLOT_SIZE = 16;
+
+    /**
+     * A buffer is addressed with int offsets, so the table stops growing at 2^26 slots (1 GB)
+     */
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    /**
+     * The buffer is zeroed when allocated, account id 0 marks a free slot
+     */
+    private static final long FREE = 0L;
+
+    /**
+     * True when account 0 is stored, its slot is the one after the table
+     */
+    private boolean zeroAccountStored;
+
+    private final boolean direct;
+
+    private ByteBuffer slots;
+
+    private int mask;
+
+    private int size;
+
+    BalanceTable(int initialCapacity, boolean direct) {
+        if (initialCapacity < 2 || Integer.bitCount(initialCapacity) != 1 || initialCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Balance table capacity should be a power of 2 up to " + MAX_CAPACITY + ", but was " + initialCapacity);
+        this.direct = direct;
+        allocate(initialCapacity);
+    }
+
+    /**
+     * This method finds the slot of an account. A slot stays valid until the next {@link #insert(long, long)}.
+     * @param accountId - the account id
+     * @return {@code int} - the slot, or -1 if the account is not in the table
+     */
+    int find(long accountId) {
+        if (accountId == FREE)
+            return zeroAccountStored ? capacity() : -1;
+        for (int slot = index(accountId); ; slot = (slot + 1) & mask) {
+            long slotAccountId = slots.getLong(slot * SLOT_SIZE);
+            if (slotAccountId == accountId)
+                return slot;
+            if (slotAccountId == FREE)
+                return -1;
+        }
+    }
+
+    /**
+     * This method adds an account, or overwrites its value if it is already in the table
+     * @param accountId - the account id
+     * @param accountValue - the account value
+     * @return {@code int} - the slot of the account
+     */
+    int insert(long accountId, long accountValue) {
+        int slot = find(accountId);
+        if (slot < 0 && accountId == FREE) {
+            zeroAccountStored = true;
+            size++;
+            slot = capacity();
+        } else if (slot < 0) {
+            if ((size + 1) * 10L > (mask + 1) * 7L)
+                grow();
+            slot = index(accountId);
+            while (slots.getLong(slot * SLOT_SIZE) != FREE)
+                slot = (slot + 1) & mask;
+            slots.putLong(slot * SLOT_SIZE, accountId);
+            size++;
+        }
+        slots.putLong(slot * SLOT_SIZE + 8, accountValue);
+        return slot;
+    }
+
+    long getAccountId(int slot) {
+        return slots.getLong(slot * SLOT_SIZE);
+    }
+
+    long getAccountValue(int slot) {
+        return slots.getLong(slot * SLOT_SIZE + 8);
+    }
+
+    void setAccountValue(int slot, long accountValue) {
+        slots.putLong(slot * SLOT_SIZE + 8, accountValue);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean isDirect() {
+        return slots.isDirect();
+    }
+
+    private void allocate(int capacity) {
+        slots = direct ? ByteBuffer.allocateDirect((capacity + 1) * SLOT_SIZE) : ByteBuffer.allocate((capacity + 1) * SLOT_SIZE);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        if (capacity() == MAX_CAPACITY)
+            throw new IllegalStateException("Balance table is full with " + size + " accounts");
+        ByteBuffer previous = slots;
+        int previousCapacity = capacity();
+        allocate(previousCapacity * 2);
+        for (int i = 0; i < previousCapacity; i++) {
+            long accountId = previous.getLong(i * SLOT_SIZE);
+            if (accountId == FREE)
+                continue;
+            int slot = index(accountId);
+            while (slots.getLong(slot * SLOT_SIZE) != FREE)
+                slot = (slot + 1) & mask;
+            slots.putLong(slot * SLOT_SIZE, accountId);
+            slots.putLong(slot * SLOT_SIZE + 8, previous.getLong(i * SLOT_SIZE + 8));
+        }
+        slots.putLong(capacity() * SLOT_SIZE + 8, previous.getLong(previousCapacity * SLOT_SIZE + 8));
+    }
+
+    /**
+     * Home slot of an account, the account ids are mixed so that consecutive ids do not form long probe runs
+     */
+    private int index(long accountId) {
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,195 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.exception.CurrencyConversionException;
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.fx.FxRateService;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.service.BalanceCheckpointService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Business logic stage of the transfer pipeline. It is the single writer of the account values: the accounts are loaded
+ * once and then kept in memory, so the transfers are applied in order without any locking. Only the id and the currency of
+ * an account are kept as objects, the account values live in a {@link BalanceTable} that can be off-heap.
+ * An account that was changed outside of the pipeline, or had a transfer dropped by the persistence stage, is loaded again
+ * before the next transfer, see {@link InFlightTransfers}. A deleted account is forgotten, its transfers are then rejected.
+ * A transaction id accepted by this stage and not persisted yet is rejected here, from memory. An id that is already stored
+ * is rejected by the persistence stage, which checks the ids of a whole batch at once.
+ * The persistence stage may take a balance checkpoint at any accepted transfer, so a transfer dated before the last accepted
+ * transfer of one of its accounts is rejected, like one dated before the latest checkpoint of the account.
+ */
+class BusinessLogicHandler implements TransferEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessLogicHandler.class);
+
+    private final AccountRepository accountRepository;
+
+    private final FxRateService fxRateService;
+
+    private final Map<String, LoadedAccount> accounts = new HashMap<>();
+
+    private final Map<Long, LoadedAccount> accountsById = new HashMap<>();
+
+    private final BalanceCheckpointService balanceCheckpointService;
+
+    private final BalanceTable balances;
+
+    private final InFlightTransfers inFlightTransfers;
+
+    BusinessLogicHandler(AccountRepository accountRepository, FxRateService fxRateService, BalanceCheckpointService balanceCheckpointService,
+                         BalanceTable balances, InFlightTransfers inFlightTransfers) {
+        this.accountRepository = accountRepository;
+        this.fxRateService = fxRateService;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.balances = balances;
+        this.inFlightTransfers = inFlightTransfers;
+    }
+
+    @Override
+    public void onEvent(TransferEvent event, long sequence, boolean endOfBatch) {
+        reloadAccounts();
+        String rejectionReason = apply(event, event.getTransaction());
+        if (rejectionReason != null) {
+            event.setRejectionReason(rejectionReason);
+            logger.warn("Transaction with ID = " + event.getTransaction().getTransactionId() + " was rejected: " + rejectionReason);
+            event.getOutcome().completeExceptionally(new InvalidTransactionException(rejectionReason));
+        }
+    }
+
+    private String apply(TransferEvent event, Transaction transaction) {
+        if (transaction.getTransactionId() <= 0)
+            return "Transaction ID should be positive";
+        if (transaction.getTransactionValue() <= 0)
+            return "Transaction value should be positive";
+        if (transaction.getTransactionDate() == null || transaction.getTransactionCurrency() == null)
+            return "Transaction date and currency are mandatory";
+        if (inFlightTransfers.contains(transaction.getTransactionId()))
+            return "Transaction with ID = " + transaction.getTransactionId() + " already exists";
+        LoadedAccount senderAccount = getAccount(transaction.getTransactionSender());
+        if (senderAccount == null)
+            return "Account with account number = " + transaction.getTransactionSender() + " was not found";
+        LoadedAccount receiverAccount = getAccount(transaction.getTransactionReceiver());
+        if (receiverAccount == null)
+            return "Account with account number = " + transaction.getTransactionReceiver() + " was not found";
+        try {
+            transaction.setSenderAmount(fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), senderAccount.accountCurrency));
+            transaction.setReceiverAmount(fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), receiverAccount.accountCurrency));
+        } catch (CurrencyConversionException cce) {
+            return cce.getMessage();
+        }
+        int senderSlot = balances.find(senderAccount.reference.getAccountId());
+        if (transaction.getSenderAmount() > balances.getAccountValue(senderSlot))
+            return "The account with account number = " + transaction.getTransactionSender() + " has insufficient funds";
+        if (!senderAccount.isInOrder(transaction) || balanceCheckpointService.isCheckpointed(senderAccount.reference.getAccountId(),
+                transaction.getTransactionDate(), transaction.getTransactionId()))
+            return "The transaction is dated before the last transaction or balance checkpoint of the account with account number = " + transaction.getTransactionSender();
+        if (!receiverAccount.isInOrder(transaction) || balanceCheckpointService.isCheckpointed(receiverAccount.reference.getAccountId(),
+                transaction.getTransactionDate(), transaction.getTransactionId()))
+            return "The transaction is dated before the last transaction or balance checkpoint of the account with account number = " + transaction.getTransactionReceiver();
+
+        long senderAccountValue = Math.subtractExact(balances.getAccountValue(senderSlot), transaction.getSenderAmount());
+        balances.setAccountValue(senderSlot, senderAccountValue);
+        int receiverSlot = balances.find(receiverAccount.reference.getAccountId());
+        long receiverAccountValue = Math.addExact(balances.getAccountValue(receiverSlot), transaction.getReceiverAmount());
+        balances.setAccountValue(receiverSlot, receiverAccountValue);
+        senderAccount.accepted(transaction);
+        receiverAccount.accepted(transaction);
+        transaction.setAccount(senderAccount.reference);
+        transaction.setReceiverAccount(receiverAccount.reference);
+        inFlightTransfers.accepted(transaction);
+        event.setAccepted(true);
+        return null;
+    }
+
+    private LoadedAccount getAccount(String accountNumber) {
+        LoadedAccount loadedAccount = accounts.get(accountNumber);
+        if (loadedAccount == null && accountNumber != null) {
+            Account account = load(() -> accountRepository.findByAccountNumber(accountNumber));
+            if (account != null) {
+                loadedAccount = new LoadedAccount(account);
+                balances.insert(account.getAccountId(), account.getAccountValue());
+                accounts.put(accountNumber, loadedAccount);
+                accountsById.put(account.getAccountId(), loadedAccount);
+            }
+        }
+        return loadedAccount;
+    }
+
+    /**
+     * Loads again the known accounts that were changed since the previous transfer. The slot of a deleted account stays in
+     * the balance table, it is overwritten if the account id is loaded again.
+     */
+    private void reloadAccounts() {
+        for (Long accountId = inFlightTransfers.nextAccountToReload(); accountId != null; accountId = inFlightTransfers.nextAccountToReload()) {
+            LoadedAccount loadedAccount = accountsById.get(accountId);
+            if (loadedAccount == null)
+                continue;
+            long id = accountId;
+            Account account = load(() -> accountRepository.findById(id).orElse(null));
+            if (account != null) {
+                balances.insert(id, account.getAccountValue());
+            } else {
+                accountsById.remove(id);
+                accounts.remove(loadedAccount.accountNumber);
+            }
+        }
+    }
+
+    /**
+     * Reads an account with its value including the transfers in flight, or null if the account does not exist
+     */
+    private Account load(Supplier<Account> finder) {
+        return inFlightTransfers.exclusive(() -> {
+            Account account = finder.get();
+            if (account != null)
+                account.setAccountValue(Math.addExact(account.getAccountValue(), inFlightTransfers.pendingNetAmount(account.getAccountId())));
+            return account;
+        });
+    }
+
+    /**
+     * An account known to the stage. The {@code reference} only holds the account id, it is set on the accepted
+     * transactions for the persistence stage.
+     */
+    private static class LoadedAccount {
+
+        private final String accountNumber;
+
+        private final String accountCurrency;
+
+        private final Account reference;
+
+        /**
+         * Position of the last accepted transfer of the account, in {@code (transactionDate, transactionId)} order
+         */
+        private LocalDateTime lastTransactionDate;
+
+        private long lastTransactionId;
+
+        private LoadedAccount(Account account) {
+            this.accountNumber = account.getAccountNumber();
+            this.accountCurrency = account.getAccountCurrency();
+            this.reference = Account.builder().accountId(account.getAccountId()).build();
+        }
+
+        private boolean isInOrder(Transaction transaction) {
+            if (lastTransactionDate == null)
+                return true;
+            int order = transaction.getTransactionDate().compareTo(lastTransactionDate);
+            return order > 0 || (order == 0 && transaction.getTransactionId() > lastTransactionId);
+        }
+
+        private void accepted(Transaction transaction) {
+            lastTransactionDate = transaction.getTransactionDate();
+            lastTransactionId = transaction.getTransactionId();
+        }
+    }
+}
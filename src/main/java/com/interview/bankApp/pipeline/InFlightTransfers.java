@@ -0,0 +1,92 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.model.Transaction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * State shared by the business logic and the persistence stages of the transfer pipeline: the transfers accepted and not
+ * committed yet, with the net amount they add to every account, and the accounts whose value the business logic stage
+ * has to load again from the database.
+ * A reloaded account value is the stored value plus the pending net amount of the account. The commits of the persistence
+ * stage and the reloads run {@link #exclusive}, so a committed transfer is counted in one of the two, never in both.
+ */
+class InFlightTransfers {
+
+    private final Set<Long> transactionIds = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Long> pendingNetAmounts = new ConcurrentHashMap<>();
+
+    private final Queue<Long> accountsToReload = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Called by the business logic stage for every accepted transfer
+     */
+    void accepted(Transaction transaction) {
+        transactionIds.add(transaction.getTransactionId());
+        pendingNetAmounts.merge(transaction.getAccount().getAccountId(), -transaction.getSenderAmount(), InFlightTransfers::add);
+        pendingNetAmounts.merge(transaction.getReceiverAccount().getAccountId(), transaction.getReceiverAmount(), InFlightTransfers::add);
+    }
+
+    /**
+     * Called by the persistence stage once a batch is committed, or dropped, inside {@link #exclusive}
+     */
+    void released(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            pendingNetAmounts.merge(transaction.getAccount().getAccountId(), transaction.getSenderAmount(), InFlightTransfers::add);
+            pendingNetAmounts.merge(transaction.getReceiverAccount().getAccountId(), -transaction.getReceiverAmount(), InFlightTransfers::add);
+            transactionIds.remove(transaction.getTransactionId());
+        }
+    }
+
+    boolean contains(long transactionId) {
+        return transactionIds.contains(transactionId);
+    }
+
+    long pendingNetAmount(long accountId) {
+        return pendingNetAmounts.getOrDefault(accountId, 0L);
+    }
+
+    /**
+     * Asks the business logic stage to load an account again before its next transfer
+     */
+    void reload(long accountId) {
+        accountsToReload.add(accountId);
+    }
+
+    /**
+     * @return {@code Long} - the next account to load again, or null if there is none
+     */
+    Long nextAccountToReload() {
+        return accountsToReload.poll();
+    }
+
+    /**
+     * Runs a commit of the persistence stage or a reload of the business logic stage, one at a time
+     */
+    <T> T exclusive(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds two amounts, a zero sum removes the account from the pending amounts
+     */
+    private static Long add(Long pendingNetAmount, Long netAmount) {
+        long sum = Math.addExact(pendingNetAmount, netAmount);
+        return sum == 0 ? null : sum;
+    }
+}
@@ -0,0 +1,130 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.service.TransactionPostingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence stage of the transfer pipeline. The accepted transfers are collected and written to the database in batches.
+ * A batch that cannot be written is retried with a growing backoff. When it still fails the pipeline is stopped: the business
+ * logic stage has already applied the batch to its account values, so no later transfer can be persisted consistently.
+ * The transfers that were not persisted are logged. A transfer whose id is already stored, or whose sender or receiver account
+ * was deleted in the meantime, is rejected from its batch instead, and the business logic stage loads both accounts again.
+ * The stored ids are checked here, once per batch through the primary key, so the business logic stage never waits for the database.
+ * The outcome of every accepted transfer is completed here, after its batch is committed or dropped.
+ */
+class PersistenceHandler implements TransferEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceHandler.class);
+
+    private final TransactionPostingService transactionPostingService;
+
+    private final int maxBatchSize;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final InFlightTransfers inFlightTransfers;
+
+    private final List<Transaction> transactions = new ArrayList<>();
+
+    private final List<CompletableFuture<Void>> outcomes = new ArrayList<>();
+
+    private volatile boolean failed;
+
+    PersistenceHandler(TransactionPostingService transactionPostingService, int maxBatchSize, int maxAttempts, long initialBackoffMillis,
+                       InFlightTransfers inFlightTransfers) {
+        this.transactionPostingService = transactionPostingService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.inFlightTransfers = inFlightTransfers;
+    }
+
+    /**
+     * @return {@code boolean} - true once a batch could not be persisted, the pipeline does not accept transfers anymore
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    @Override
+    public void onEvent(TransferEvent event, long sequence, boolean endOfBatch) throws InterruptedException {
+        if (event.isAccepted()) {
+            if (failed) {
+                event.setRejectionReason("The transfer pipeline was stopped by a persistence failure");
+                logger.error("Transaction with ID = " + event.getTransaction().getTransactionId() + " was not persisted, the pipeline is stopped");
+                event.getOutcome().completeExceptionally(new IllegalStateException(event.getRejectionReason()));
+            } else {
+                transactions.add(event.getTransaction());
+                outcomes.add(event.getOutcome());
+            }
+        }
+        if (endOfBatch || transactions.size() >= maxBatchSize)
+            flush();
+    }
+
+    private void flush() throws InterruptedException {
+        if (transactions.isEmpty())
+            return;
+        long backoffMillis = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<TransactionResult> rejections = inFlightTransfers.exclusive(() -> {
+                    List<TransactionResult> results = transactionPostingService.persistPosted(transactions);
+                    inFlightTransfers.released(transactions);
+                    return results;
+                });
+                complete(rejections);
+                transactions.clear();
+                outcomes.clear();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed = true;
+                    logger.error("Batch of " + transactions.size() + " transactions could not be persisted after " + attempt
+                            + " attempts, the transfer pipeline is stopped", e);
+                    transactions.forEach(transaction -> logger.error("Transaction with ID = " + transaction.getTransactionId() + " was not persisted"));
+                    outcomes.forEach(outcome -> outcome.completeExceptionally(new IllegalStateException("The transfer pipeline was stopped by a persistence failure", e)));
+                    transactions.clear();
+                    outcomes.clear();
+                    return;
+                }
+                logger.warn("Batch of " + transactions.size() + " transactions could not be persisted, attempt " + attempt + " of " + maxAttempts, e);
+                Thread.sleep(backoffMillis);
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    /**
+     * Completes the outcomes of a committed batch. The business logic stage has applied the rejected transfers to its account
+     * values, it loads their accounts again.
+     */
+    private void complete(List<TransactionResult> rejections) {
+        Map<Long, String> rejectionReasons = new HashMap<>();
+        rejections.forEach(rejection -> rejectionReasons.put(rejection.getTransactionId(), rejection.getMessage()));
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            String rejectionReason = rejectionReasons.get(transaction.getTransactionId());
+            if (rejectionReason == null) {
+                outcomes.get(i).complete(null);
+                continue;
+            }
+            logger.warn("Transaction with ID = " + transaction.getTransactionId() + " was rejected: " + rejectionReason);
+            inFlightTransfers.reload(transaction.getAccount().getAccountId());
+            inFlightTransfers.reload(transaction.getReceiverAccount().getAccountId());
+            outcomes.get(i).completeExceptionally(new InvalidTransactionException(rejectionReason));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.model.Transaction;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pre-allocated slot of the {@link TransferRingBuffer}. The same instance is reused for every transfer that lands on its slot.
+ * The business logic stage fills in the outcome, the persistence stage writes the accepted transfers.
+ */
+@Getter
+@Setter
+public class TransferEvent {
+
+    private Transaction transaction;
+
+    private boolean accepted;
+
+    private String rejectionReason;
+
+    /**
+     * Completed by the stage that decides the transfer: normally once it is persisted, exceptionally when it is rejected
+     */
+    private CompletableFuture<Void> outcome;
+
+    void reset(Transaction transaction, CompletableFuture<Void> outcome) {
+        this.transaction = transaction;
+        this.accepted = false;
+        this.rejectionReason = null;
+        this.outcome = outcome;
+    }
+}
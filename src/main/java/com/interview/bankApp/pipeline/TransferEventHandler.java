@@ -0,0 +1,15 @@
+package com.interview.bankApp.pipeline;
+
+/**
+ * A stage of the transfer pipeline. Every handler runs on its own thread and sees the events in sequence order.
+ */
+public interface TransferEventHandler {
+
+    /**
+     * Called for every event available to this stage
+     * @param event - the transfer event
+     * @param sequence - the sequence of the event in the ring buffer
+     * @param endOfBatch - true for the last event that is currently available, so batching stages can flush
+     */
+    void onEvent(TransferEvent event, long sequence, boolean endOfBatch) throws Exception;
+}
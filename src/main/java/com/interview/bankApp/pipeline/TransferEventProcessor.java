@@ -0,0 +1,81 @@
+package com.interview.bankApp.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs one {@link TransferEventHandler} on its own thread. The processor consumes the events published in the ring buffer,
+ * or, when it has dependencies, only the events already processed by all the stages it depends on.
+ */
+public class TransferEventProcessor implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferEventProcessor.class);
+
+    private static final int SPIN_TRIES = 100;
+
+    private final TransferRingBuffer ringBuffer;
+
+    private final TransferEventHandler handler;
+
+    private final AtomicLong[] dependencies;
+
+    private final AtomicLong sequence = new AtomicLong(-1);
+
+    private volatile boolean running = true;
+
+    public TransferEventProcessor(TransferRingBuffer ringBuffer, TransferEventHandler handler, AtomicLong... dependencies) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.dependencies = dependencies;
+    }
+
+    public AtomicLong getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Stops the processor once it has consumed everything that is currently available
+     */
+    public void halt() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (true) {
+            long next = sequence.get() + 1;
+            long available = availableSequence(next);
+            if (available < next) {
+                if (!running)
+                    return;
+                if (++idle < SPIN_TRIES)
+                    Thread.yield();
+                else
+                    LockSupport.parkNanos(50_000L);
+                continue;
+            }
+            idle = 0;
+            for (long current = next; current <= available; current++) {
+                try {
+                    handler.onEvent(ringBuffer.get(current), current, current == available);
+                } catch (Exception e) {
+                    logger.error("Transfer event with sequence = " + current + " could not be processed", e);
+                }
+            }
+            sequence.set(available);
+        }
+    }
+
+    private long availableSequence(long next) {
+        if (dependencies.length == 0)
+            return ringBuffer.getHighestPublishedSequence(next);
+        long available = Long.MAX_VALUE;
+        for (AtomicLong dependency : dependencies)
+            available = Math.min(available, dependency.get());
+        return available;
+    }
+}
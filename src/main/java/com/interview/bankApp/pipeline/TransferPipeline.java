@@ -0,0 +1,139 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.fx.FxRateService;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.service.BalanceCheckpointService;
+import com.interview.bankApp.service.TransactionPostingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single writer transfer pipeline, enabled with {@code bankApp.transactions.mode=ring-buffer}.
+ * Submitting a transfer only publishes it in the ring buffer. The business logic stage decides the outcome and the
+ * persistence stage writes the accepted transfers to the database after it. A transfer is durable once its batch is committed,
+ * it is then journaled like any other posting when {@code bankApp.journal.enabled} is set.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "bankApp.transactions.mode", havingValue = "ring-buffer")
+public class TransferPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferPipeline.class);
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionPostingService transactionPostingService;
+
+    @Autowired
+    FxRateService fxRateService;
+
+    @Autowired
+    BalanceCheckpointService balanceCheckpointService;
+
+    @Value("${bankApp.pipeline.buffer-size:65536}")
+    int bufferSize;
+
+    @Value("${bankApp.pipeline.persistence-batch-size:1000}")
+    int persistenceBatchSize;
+
+    @Value("${bankApp.pipeline.persistence-max-attempts:5}")
+    int persistenceMaxAttempts;
+
+    @Value("${bankApp.pipeline.persistence-initial-backoff-millis:100}")
+    long persistenceInitialBackoffMillis;
+
+    @Value("${bankApp.pipeline.balance-table-capacity:65536}")
+    int balanceTableCapacity;
+
+    @Value("${bankApp.pipeline.off-heap-balances:false}")
+    boolean offHeapBalances;
+
+    private TransferRingBuffer ringBuffer;
+
+    private InFlightTransfers inFlightTransfers;
+
+    private PersistenceHandler persistenceHandler;
+
+    private TransferEventProcessor businessLogicProcessor;
+
+    private TransferEventProcessor persistenceProcessor;
+
+    private Thread[] threads;
+
+    @PostConstruct
+    public void start() {
+        ringBuffer = new TransferRingBuffer(bufferSize);
+        BalanceTable balances = new BalanceTable(balanceTableCapacity, offHeapBalances);
+        inFlightTransfers = new InFlightTransfers();
+        businessLogicProcessor = new TransferEventProcessor(ringBuffer,
+                new BusinessLogicHandler(accountRepository, fxRateService, balanceCheckpointService, balances, inFlightTransfers));
+        persistenceHandler = new PersistenceHandler(transactionPostingService, persistenceBatchSize, persistenceMaxAttempts,
+                persistenceInitialBackoffMillis, inFlightTransfers);
+        persistenceProcessor = new TransferEventProcessor(ringBuffer, persistenceHandler, businessLogicProcessor.getSequence());
+        ringBuffer.setGatingSequences(persistenceProcessor.getSequence());
+
+        threads = new Thread[] {
+                new Thread(businessLogicProcessor, "transfer-business-logic"),
+                new Thread(persistenceProcessor, "transfer-persistence")
+        };
+        for (Thread thread : threads)
+            thread.start();
+        logger.info("Transfer pipeline started with a ring buffer of " + bufferSize + " slots and " + (balances.isDirect() ? "off-heap" : "heap")
+                + " account values");
+    }
+
+    /**
+     * This method publishes a transfer in the ring buffer. It returns as soon as the transfer is published,
+     * the outcome is decided later by the business logic and the persistence stages.
+     * @param transaction - the new transaction
+     * @return {@code CompletableFuture<Void>} - completed once the transfer is persisted, or exceptionally with an
+     * {@code InvalidTransactionException} when it is rejected. It is completed on a pipeline thread, so the actions that
+     * block should be chained with one of the {@code Async} methods.
+     * @throws IllegalStateException - if the pipeline was stopped because a batch could not be persisted
+     */
+    public CompletableFuture<Void> submit(Transaction transaction) {
+        if (persistenceHandler.isFailed())
+            throw new IllegalStateException("The transfer pipeline was stopped by a persistence failure, see the log for the transfers that were not persisted");
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        long sequence = ringBuffer.next();
+        try {
+            ringBuffer.get(sequence).reset(transaction, outcome);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return outcome;
+    }
+
+    /**
+     * Makes the business logic stage load an account again after it was changed outside of the pipeline, or forget it after it was deleted
+     * @param event - the account event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        inFlightTransfers.reload(event.getAccountId());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        businessLogicProcessor.halt();
+        threads[0].join();
+        persistenceProcessor.halt();
+        threads[1].join();
+        logger.info("Transfer pipeline stopped");
+    }
+}
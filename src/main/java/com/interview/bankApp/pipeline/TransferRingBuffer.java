@@ -0,0 +1,91 @@
+package com.interview.bankApp.pipeline;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pre-allocated ring of {@link TransferEvent} slots shared by the producers (request threads) and the pipeline stages.
+ * Producers claim a sequence, fill the slot and publish it. A slot is reused only after the last stage (the gating sequences)
+ * has moved past it, so the buffer never allocates after startup.
+ */
+public class TransferRingBuffer {
+
+    private final TransferEvent[] entries;
+
+    private final int mask;
+
+    private final int indexShift;
+
+    private final AtomicIntegerArray publishedRounds;
+
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    private volatile AtomicLong[] gatingSequences = new AtomicLong[0];
+
+    public TransferRingBuffer(int bufferSize) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("Ring buffer size should be a power of 2, but was " + bufferSize);
+        this.entries = new TransferEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++)
+            entries[i] = new TransferEvent();
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.publishedRounds = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++)
+            publishedRounds.set(i, -1);
+    }
+
+    /**
+     * Sets the sequences of the last stages, producers never overtake them
+     * @param sequences - sequences of the last pipeline stages
+     */
+    public void setGatingSequences(AtomicLong... sequences) {
+        this.gatingSequences = sequences;
+    }
+
+    /**
+     * Claims the next slot, waiting while the ring is full
+     * @return {@code long} - the claimed sequence
+     */
+    public long next() {
+        long sequence = cursor.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        while (wrapPoint > minimumGatingSequence())
+            LockSupport.parkNanos(1000L);
+        return sequence;
+    }
+
+    public TransferEvent get(long sequence) {
+        return entries[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the slot of the claimed sequence visible to the pipeline stages
+     * @param sequence - sequence returned by {@link #next()}
+     */
+    public void publish(long sequence) {
+        publishedRounds.set((int) sequence & mask, (int) (sequence >>> indexShift));
+    }
+
+    /**
+     * Returns the highest sequence in [{@code lowerBound}, cursor] such that all the sequences before it are published
+     * @param lowerBound - first sequence a stage is waiting for
+     * @return {@code long} - highest contiguous published sequence, or {@code lowerBound - 1} if none is available
+     */
+    public long getHighestPublishedSequence(long lowerBound) {
+        long upperBound = cursor.get();
+        for (long sequence = lowerBound; sequence <= upperBound; sequence++) {
+            if (publishedRounds.get((int) sequence & mask) != (int) (sequence >>> indexShift))
+                return sequence - 1;
+        }
+        return upperBound;
+    }
+
+    private long minimumGatingSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (AtomicLong sequence : gatingSequences)
+            minimum = Math.min(minimum, sequence.get());
+        return minimum == Long.MAX_VALUE ? cursor.get() : minimum;
+    }
+}
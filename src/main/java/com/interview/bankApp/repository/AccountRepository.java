@@ -1,8 +1,14 @@
 package com.interview.bankApp.repository;
 
 import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface AccountRepository extends CrudRepository<Account, Long> {
 
     /**
@@ -12,4 +18,46 @@ public interface AccountRepository extends CrudRepository<Account, Long> {
      */
     public Account findByAccountNumber(String accountNumber);
 
+    /**
+     * This method queries the database to find all the accounts that have one of the given accountNumbers
+     * @param accountNumbers
+     * @return {@code List<Account>}
+     */
+    public List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    /**
+     * This method queries the database for the ids of the accounts that have one of the given accountNumbers
+     * @param accountNumbers
+     * @return {@code List<Long>}
+     */
+    @Query("select a.accountId from Account a where a.accountNumber in ?1")
+    public List<Long> findAccountIdsByAccountNumberIn(Collection<String> accountNumbers);
+
+    /**
+     * This method queries the database for the account ids that are already used, without loading the accounts
+     * @param accountIds
+     * @return {@code List<Long>}
+     */
+    @Query("select a.accountId from Account a where a.accountId in ?1")
+    public List<Long> findExistingAccountIds(Collection<Long> accountIds);
+
+    /**
+     * This method queries the database for the account numbers that are already used, without loading the accounts
+     * @param accountNumbers
+     * @return {@code List<String>}
+     */
+    @Query("select a.accountNumber from Account a where a.accountNumber in ?1")
+    public List<String> findExistingAccountNumbers(Collection<String> accountNumbers);
+
+    /**
+     * This method queries the database for the summaries of the accounts whose id follows {@code accountId}, in id order.
+     * Only the account columns are read, the transactions are not loaded.
+     * @param accountId - id of the last account of the previous page
+     * @param pageable - the number of accounts to read, the page number is always 0
+     * @return {@code List<AccountSummary>}
+     */
+    @Query("select new com.interview.bankApp.model.AccountSummary(a.accountId, a.accountNumber, a.accountCurrency, a.accountValue, a.accountStatus) "
+            + "from Account a where a.accountId > ?1 order by a.accountId")
+    public List<AccountSummary> findAccountSummariesAfter(long accountId, Pageable pageable);
+
 }
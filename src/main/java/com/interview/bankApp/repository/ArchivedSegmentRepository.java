@@ -0,0 +1,15 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.ArchivedSegment;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface ArchivedSegmentRepository extends CrudRepository<ArchivedSegment, String> {
+
+    /**
+     * This method returns all the registered archive segments, oldest day first
+     * @return {@code List<ArchivedSegment>}
+     */
+    public List<ArchivedSegment> findAllByOrderByArchiveDateAscFileNameAsc();
+}
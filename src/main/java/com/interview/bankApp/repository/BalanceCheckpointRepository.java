@@ -0,0 +1,45 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface BalanceCheckpointRepository extends CrudRepository<BalanceCheckpoint, Long> {
+
+    /**
+     * This method returns the latest checkpoint of an account taken at or before {@code at}
+     * @param accountId - the account id
+     * @param at - the point in time
+     * @return {@code BalanceCheckpoint} - or null if there is none
+     */
+    public BalanceCheckpoint findFirstByAccountIdAndCheckpointDateLessThanEqualOrderByCheckpointDateDescTransactionIdDesc(long accountId, LocalDateTime at);
+
+    /**
+     * This method returns the latest checkpoint of an account
+     * @param accountId - the account id
+     * @return {@code BalanceCheckpoint} - or null if there is none
+     */
+    public BalanceCheckpoint findFirstByAccountIdOrderByCheckpointDateDescTransactionIdDesc(long accountId);
+
+    /**
+     * This method returns the earliest checkpoint of an account taken after {@code at}
+     * @param accountId - the account id
+     * @param at - the point in time
+     * @return {@code BalanceCheckpoint} - or null if there is none
+     */
+    public BalanceCheckpoint findFirstByAccountIdAndCheckpointDateGreaterThanOrderByCheckpointDateAscTransactionIdAsc(long accountId, LocalDateTime at);
+
+    /**
+     * This method removes all the checkpoints of an account
+     * @param accountId - the account id
+     * @return {@code int} - number of removed checkpoints
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from BalanceCheckpoint c where c.accountId = ?1")
+    public int deleteByAccountId(long accountId);
+}
@@ -0,0 +1,74 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.DailyRollup;
+import com.interview.bankApp.model.DailyRollupId;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRollupRepository extends CrudRepository<DailyRollup, DailyRollupId> {
+
+    /**
+     * This method returns the rollups of an account between two days, both included, ordered by day
+     * @param accountId - the account id
+     * @param from - the first day
+     * @param to - the last day
+     * @return {@code List<DailyRollup>}
+     */
+    public List<DailyRollup> findByAccountIdAndRollupDateBetweenOrderByRollupDate(long accountId, LocalDate from, LocalDate to);
+
+    /**
+     * This method returns the latest rollup of an account made at or before {@code to}
+     * @param accountId - the account id
+     * @param to - the last day
+     * @return {@code DailyRollup} - or null if the account has no transfers up to {@code to}
+     */
+    public DailyRollup findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(long accountId, LocalDate to);
+
+    /**
+     * This method adds the totals of new transfers to an existing rollup in a single statement, so concurrent postings
+     * never overwrite each other's totals. The closing balance moves by the net amount of the new transfers.
+     * The pending account updates are flushed first, which makes postings on the same account wait for each other on
+     * the account row before they reach the rollup.
+     * @return {@code int} - 0 if the account has no rollup for that day yet
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "update daily_rollup set debit_total = debit_total + :debitTotal, credit_total = credit_total + :creditTotal, " +
+            "transaction_count = transaction_count + :transactionCount, " +
+            "min_transaction_value = least(min_transaction_value, :minTransactionValue), " +
+            "max_transaction_value = greatest(max_transaction_value, :maxTransactionValue), " +
+            "closing_balance = closing_balance + :creditTotal - :debitTotal " +
+            "where account_id = :accountId and rollup_date = :rollupDate", nativeQuery = true)
+    public int addToRollup(@Param("accountId") long accountId, @Param("rollupDate") LocalDate rollupDate,
+                           @Param("debitTotal") long debitTotal, @Param("creditTotal") long creditTotal,
+                           @Param("transactionCount") long transactionCount, @Param("minTransactionValue") long minTransactionValue,
+                           @Param("maxTransactionValue") long maxTransactionValue);
+
+    /**
+     * This method moves the closing balances of the days after {@code rollupDate} by the net amount of transfers dated that day
+     * @param accountId - the account id
+     * @param rollupDate - the day of the transfers
+     * @param netAmount - the received minus the sent amount of the transfers
+     * @return {@code int} - number of updated rollups
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("update DailyRollup r set r.closingBalance = r.closingBalance + ?3 where r.accountId = ?1 and r.rollupDate > ?2")
+    public int addToLaterClosingBalances(long accountId, LocalDate rollupDate, long netAmount);
+
+    /**
+     * This method removes all the rollups of an account
+     * @param accountId - the account id
+     * @return {@code int} - number of removed rollups
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from DailyRollup r where r.accountId = ?1")
+    public int deleteByAccountId(long accountId);
+}
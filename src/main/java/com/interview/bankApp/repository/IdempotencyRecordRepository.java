@@ -0,0 +1,22 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, String> {
+
+    /**
+     * This method removes all the idempotency records created before {@code createdAt}
+     * @param createdAt
+     * @return {@code int} - number of removed records
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.createdAt < ?1")
+    public int deleteCreatedBefore(LocalDateTime createdAt);
+}
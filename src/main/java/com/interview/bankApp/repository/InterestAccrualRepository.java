@@ -0,0 +1,21 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.InterestAccrual;
+import com.interview.bankApp.model.InterestAccrualId;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface InterestAccrualRepository extends CrudRepository<InterestAccrual, InterestAccrualId> {
+
+    /**
+     * This method removes all the accruals of an account
+     * @param accountId - the account id
+     * @return {@code int} - number of removed accruals
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from InterestAccrual i where i.accountId = ?1")
+    public int deleteByAccountId(long accountId);
+}
@@ -0,0 +1,16 @@
+package com.interview.bankApp.repository;
+
+import com.interview.bankApp.model.InterestAccrualRun;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface InterestAccrualRunRepository extends CrudRepository<InterestAccrualRun, LocalDate> {
+
+    /**
+     * This method returns the accrual days that were started but not completed, oldest first
+     * @return {@code List<InterestAccrualRun>}
+     */
+    public List<InterestAccrualRun> findByCompletedAtIsNullOrderByAccrualDate();
+}
@@ -1,7 +1,150 @@
 package com.interview.bankApp.repository;
 
 import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface TransactionRepository extends CrudRepository<Transaction, Long> {
+
+    int STREAM_FETCH_SIZE = 1000;
+
+    String SELECT_TRANSACTION_ROWS = "select new com.interview.bankApp.model.TransactionRow(t.transactionId, t.transactionValue, "
+            + "t.transactionDate, t.transactionSender, t.transactionReceiver, t.transactionCurrency) from Transaction t ";
+
+    /**
+     * This method queries the database for the transaction ids that are already used, without loading the transactions
+     * @param transactionIds
+     * @return {@code List<Long>}
+     */
+    @Query("select t.transactionId from Transaction t where t.transactionId in ?1")
+    public List<Long> findExistingTransactionIds(Collection<Long> transactionIds);
+
+    /**
+     * This method queries the database for the transactions of an account made at or after {@code from},
+     * using the {@code (accountId, transactionDate)} index instead of loading the whole history of the account
+     * @param accountId - the id of the account that owns the transactions
+     * @param from - the earliest transaction date, inclusive
+     * @return {@code List<Transaction>} - ordered by transaction date
+     */
+    @Query("select t from Transaction t where t.account.accountId = ?1 and t.transactionDate >= ?2 order by t.transactionDate, t.transactionId")
+    public List<Transaction> findAccountTransactionsSince(long accountId, LocalDateTime from);
+
+    /**
+     * This method queries the database for the ids and dates of the transactions of an account made at or after {@code from},
+     * without loading the transactions
+     * @param accountId - the id of the account that owns the transactions
+     * @param from - the earliest transaction date, inclusive
+     * @return {@code List<Object[]>} - pairs of transaction id and transaction date
+     */
+    @Query("select t.transactionId, t.transactionDate from Transaction t where t.account.accountId = ?1 and t.transactionDate >= ?2")
+    public List<Object[]> findAccountTransactionDatesSince(long accountId, LocalDateTime from);
+
+    /**
+     * This method queries the database for the first transactions in {@code (transactionDate, transactionId)} order, as rows
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findFirstTransactions(Pageable pageable);
+
+    /**
+     * This method queries the database for the transactions that follow a cursor in {@code (transactionDate, transactionId)} order.
+     * The cursor is a seek condition on the index: the leading {@code transactionDate >= ?1} bound starts the index range at the cursor
+     * and the rest only skips the rows of the cursor date already read, so every page costs the same as the first one.
+     * @param transactionDate - date of the last transaction of the previous page
+     * @param transactionId - id of the last transaction of the previous page
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "where t.transactionDate >= ?1 and (t.transactionDate > ?1 or t.transactionId > ?2) order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findTransactionsAfter(LocalDateTime transactionDate, long transactionId, Pageable pageable);
+
+    /**
+     * This method queries the database for the first transactions sent by an account in {@code (transactionDate, transactionId)} order, as rows
+     * @param accountId - the id of the sender account
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "where t.account.accountId = ?1 order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findFirstAccountTransactions(long accountId, Pageable pageable);
+
+    /**
+     * This method queries the database for the transactions sent by an account that follow a cursor in {@code (transactionDate, transactionId)} order, as rows
+     * @param accountId - the id of the sender account
+     * @param transactionDate - date of the last transaction of the previous page
+     * @param transactionId - id of the last transaction of the previous page
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "where t.account.accountId = ?1 and t.transactionDate >= ?2 and (t.transactionDate > ?2 or t.transactionId > ?3) order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findAccountTransactionsAfter(long accountId, LocalDateTime transactionDate, long transactionId, Pageable pageable);
+
+    /**
+     * This method queries the database for the first transactions received by an account in {@code (transactionDate, transactionId)} order, as rows,
+     * using the {@code (receiverAccountId, transactionDate, transactionId)} index
+     * @param receiverAccountId - the id of the receiver account
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "where t.receiverAccount.accountId = ?1 order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findFirstReceivedTransactions(long receiverAccountId, Pageable pageable);
+
+    /**
+     * This method queries the database for the transactions received by an account that follow a cursor in {@code (transactionDate, transactionId)} order, as rows
+     * @param receiverAccountId - the id of the receiver account
+     * @param transactionDate - date of the last transaction of the previous page
+     * @param transactionId - id of the last transaction of the previous page
+     * @param pageable - the number of transactions to read, the page number is always 0
+     * @return {@code List<TransactionRow>}
+     */
+    @Query(SELECT_TRANSACTION_ROWS + "where t.receiverAccount.accountId = ?1 and t.transactionDate >= ?2 and (t.transactionDate > ?2 or t.transactionId > ?3) order by t.transactionDate, t.transactionId")
+    public List<TransactionRow> findReceivedTransactionsAfter(long receiverAccountId, LocalDateTime transactionDate, long transactionId, Pageable pageable);
+
+    /**
+     * This method sums the transactions sent by an account between two positions of the {@code (transactionDate, transactionId)} order,
+     * reading only the {@code [fromDate, toDate]} range of the {@code (accountId, transactionDate, transactionId)} index
+     * @param accountId - the id of the sender account
+     * @param fromDate - date of the lower position, excluded
+     * @param fromId - transaction id of the lower position
+     * @param toDate - date of the upper position, included
+     * @param toId - transaction id of the upper position
+     * @return {@code long} - the sum of the amounts debited, in the currency of the account
+     */
+    @Query("select coalesce(sum(t.senderAmount), 0) from Transaction t where t.account.accountId = ?1 "
+            + "and t.transactionDate >= ?2 and t.transactionDate <= ?4 "
+            + "and (t.transactionDate > ?2 or t.transactionId > ?3) and (t.transactionDate < ?4 or t.transactionId <= ?5)")
+    public long sumSentBetween(long accountId, LocalDateTime fromDate, long fromId, LocalDateTime toDate, long toId);
+
+    /**
+     * This method sums the transactions received by an account between two positions of the {@code (transactionDate, transactionId)} order,
+     * reading only the {@code [fromDate, toDate]} range of the {@code (receiverAccountId, transactionDate, transactionId)} index
+     * @param receiverAccountId - the id of the receiver account
+     * @param fromDate - date of the lower position, excluded
+     * @param fromId - transaction id of the lower position
+     * @param toDate - date of the upper position, included
+     * @param toId - transaction id of the upper position
+     * @return {@code long} - the sum of the amounts credited, in the currency of the account
+     */
+    @Query("select coalesce(sum(t.receiverAmount), 0) from Transaction t where t.receiverAccount.accountId = ?1 "
+            + "and t.transactionDate >= ?2 and t.transactionDate <= ?4 "
+            + "and (t.transactionDate > ?2 or t.transactionId > ?3) and (t.transactionDate < ?4 or t.transactionId <= ?5)")
+    public long sumReceivedBetween(long receiverAccountId, LocalDateTime fromDate, long fromId, LocalDateTime toDate, long toId);
+
+    /**
+     * This method reads all the transactions as a forward-only cursor, {@link #STREAM_FETCH_SIZE} rows per round trip.
+     * It has to be called in a transaction and the stream has to be closed.
+     * @return {@code Stream<Transaction>} - ordered by transaction date and id
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select t from Transaction t order by t.transactionDate, t.transactionId")
+    public Stream<Transaction> streamAllTransactions();
 }
@@ -0,0 +1,205 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountCacheStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the accounts, looked up by account id or account number. Entries expire after
+ * {@code bankApp.account-cache.ttl-seconds} and the least recently used ones are evicted above {@code bankApp.account-cache.size}.
+ * The cache holds copies of the accounts without their transactions, every lookup returns a new copy.
+ * An invalidated account leaves a stamped marker, so a lookup that read the account from the database before the invalidation
+ * cannot put the old values back.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+public class AccountCache {
+
+    private final int size;
+
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final HashMap<String, Long> accountIds = new HashMap<>();
+
+    private long stamp;
+
+    private long lastEvictedInvalidationStamp;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public AccountCache(@Value("${bankApp.account-cache.size:10000}") int size,
+                        @Value("${bankApp.account-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.size = size;
+        this.ttlMillis = ttlSeconds * 1000L;
+    }
+
+    /**
+     * @return {@code long} - the stamp to pass to {@link #put(Account, long)}, taken before the account is read from the database
+     */
+    public synchronized long stamp() {
+        return ++stamp;
+    }
+
+    /**
+     * @param accountId - the account id
+     * @return {@code Account} - a copy of the cached account, or {@code null} if it is not cached
+     */
+    public synchronized Account get(long accountId) {
+        Entry entry = entries.get(accountId);
+        if (entry == null || entry.account == null || isExpired(entry)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(entry.account);
+    }
+
+    /**
+     * @param accountNumber - the account number
+     * @return {@code Account} - a copy of the cached account, or {@code null} if it is not cached
+     */
+    public synchronized Account get(String accountNumber) {
+        Long accountId = accountIds.get(accountNumber);
+        if (accountId == null) {
+            misses.increment();
+            return null;
+        }
+        return get(accountId);
+    }
+
+    /**
+     * This method caches an account read from the database, unless the account was invalidated after {@code readStamp}
+     * @param account - the account read from the database
+     * @param readStamp - the {@link #stamp()} taken before reading the account
+     */
+    public synchronized void put(Account account, long readStamp) {
+        Entry entry = entries.get(account.getAccountId());
+        if (entry != null && entry.invalidationStamp > readStamp)
+            return;
+        if (entry == null && lastEvictedInvalidationStamp > readStamp)
+            return;
+        if (entry != null && entry.account != null)
+            accountIds.remove(entry.account.getAccountNumber());
+        entries.put(account.getAccountId(), new Entry(copy(account), System.currentTimeMillis() + ttlMillis, 0));
+        accountIds.put(account.getAccountNumber(), account.getAccountId());
+        evict();
+    }
+
+    /**
+     * This method removes an account whose values were changed or that was deleted
+     * @param accountId - the account id
+     */
+    public synchronized void invalidate(long accountId) {
+        Entry entry = entries.get(accountId);
+        if (entry != null && entry.account != null)
+            accountIds.remove(entry.account.getAccountNumber());
+        entries.put(accountId, new Entry(null, System.currentTimeMillis() + ttlMillis, ++stamp));
+        invalidations.increment();
+        evict();
+    }
+
+    /**
+     * Invalidates the accounts whose values were changed by a committed posting
+     * @param event - the posting event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        for (Account account : event.getAccounts())
+            invalidate(account.getAccountId());
+    }
+
+    /**
+     * @return {@code AccountCacheStatistics} - the counters since startup
+     */
+    public synchronized AccountCacheStatistics getStatistics() {
+        return AccountCacheStatistics.builder()
+                .size(accountIds.size())
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext() && entries.size() > size) {
+            remove(oldest, oldest.next().getValue());
+        }
+        // expired entries are dropped from the least recently used end only, the others expire on lookup
+        oldest = entries.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next().getValue();
+            if (entry.expiresAt >= now)
+                break;
+            remove(oldest, entry);
+        }
+    }
+
+    private void remove(Iterator<Map.Entry<Long, Entry>> iterator, Entry entry) {
+        iterator.remove();
+        if (entry.account != null) {
+            accountIds.remove(entry.account.getAccountNumber());
+            evictions.increment();
+        } else {
+            lastEvictedInvalidationStamp = Math.max(lastEvictedInvalidationStamp, entry.invalidationStamp);
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.expiresAt < System.currentTimeMillis();
+    }
+
+    /**
+     * @param account - an account entity
+     * @return {@code Account} - a detached copy of the account without its transactions
+     */
+    static Account copy(Account account) {
+        return Account.builder()
+                .accountId(account.getAccountId())
+                .accountNumber(account.getAccountNumber())
+                .accountCurrency(account.getAccountCurrency())
+                .accountValue(account.getAccountValue())
+                .openingBalance(account.getOpeningBalance())
+                .accountStatus(account.getAccountStatus())
+                .version(account.getVersion())
+                .build();
+    }
+
+    private static final class Entry {
+
+        private final Account account;
+
+        private final long expiresAt;
+
+        private final long invalidationStamp;
+
+        private Entry(Account account, long expiresAt, long invalidationStamp) {
+            this.account = account;
+            this.expiresAt = expiresAt;
+            this.invalidationStamp = invalidationStamp;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.interview.bankApp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountImportError;
+import com.interview.bankApp.model.AccountImportReport;
+import com.interview.bankApp.model.AccountStatus;
+import com.interview.bankApp.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This service creates accounts in bulk from a CSV or NDJSON body. The body is read one line at a time, the valid rows
+ * are stored in chunks of {@code bankApp.import.chunk-size} accounts, one database transaction per chunk, and an invalid
+ * row or a failed chunk only rejects its own rows.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class AccountImportService {
+
+    /**
+     * Columns of the CSV header, {@code accountStatus} is optional and defaults to {@code OPEN}
+     */
+    static final String[] CSV_COLUMNS = {"accountId", "accountNumber", "accountCurrency", "accountValue", "accountStatus"};
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountImportService.class);
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    @Autowired
+    public AccountImportService(@Value("${bankApp.import.chunk-size:1000}") int chunkSize,
+                                @Value("${bankApp.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * This method imports accounts from a CSV body whose first line names the columns, see {@link #CSV_COLUMNS}
+     * @param body - the request body
+     * @return {@code AccountImportReport}
+     * @throws InvalidInputException - if the header is missing a mandatory column
+     * @throws IOException - if the body cannot be read
+     */
+    public AccountImportReport importCsv(InputStream body) throws InvalidInputException, IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null)
+            return emptyReport();
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",");
+        for (int i = 0; i < names.length; i++)
+            columns.put(names[i].trim(), i);
+        for (int i = 0; i < CSV_COLUMNS.length - 1; i++)
+            if (!columns.containsKey(CSV_COLUMNS[i]))
+                throw new InvalidInputException("The CSV header should name the columns " + String.join(",", CSV_COLUMNS) + ", " + CSV_COLUMNS[i] + " is missing");
+        return importRows(reader, 2, line -> parseCsv(line, columns, names.length));
+    }
+
+    /**
+     * This method imports accounts from an NDJSON body, one account JSON object per line
+     * @param body - the request body
+     * @return {@code AccountImportReport}
+     * @throws IOException - if the body cannot be read
+     */
+    public AccountImportReport importNdjson(InputStream body) throws IOException {
+        ObjectReader accountReader = objectMapper.readerFor(Account.class);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return importRows(reader, 1, line -> {
+            try {
+                Account account = accountReader.readValue(line);
+                if (account == null)
+                    throw new IllegalArgumentException("Expected an account JSON object");
+                return account;
+            } catch (JsonProcessingException jpe) {
+                throw new IllegalArgumentException("Malformed JSON: " + jpe.getOriginalMessage());
+            }
+        });
+    }
+
+    /**
+     * Repeated ids and account numbers are detected inside a chunk only, so the memory used does not grow with the body:
+     * a row repeating an account of an earlier chunk is rejected as already existing when its own chunk is stored
+     */
+    private AccountImportReport importRows(BufferedReader reader, long firstLine, RowParser parser) throws IOException {
+        AccountImportReport report = emptyReport();
+        Set<Long> seenAccountIds = new HashSet<>();
+        Set<String> seenAccountNumbers = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = firstLine - 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty())
+                continue;
+            Account account;
+            try {
+                account = parser.parse(line);
+            } catch (IllegalArgumentException iae) {
+                reject(report, lineNumber, null, iae.getMessage());
+                continue;
+            }
+            String rejectionReason = validate(account);
+            if (rejectionReason == null && !seenAccountIds.add(account.getAccountId()))
+                rejectionReason = "Account with ID = " + account.getAccountId() + " is repeated in the file";
+            if (rejectionReason == null && !seenAccountNumbers.add(account.getAccountNumber()))
+                rejectionReason = "Account with account number = " + account.getAccountNumber() + " is repeated in the file";
+            if (rejectionReason != null) {
+                reject(report, lineNumber, account.getAccountNumber(), rejectionReason);
+                continue;
+            }
+            chunk.add(new Row(lineNumber, account));
+            if (chunk.size() == chunkSize) {
+                store(chunk, report);
+                chunk.clear();
+                seenAccountIds.clear();
+                seenAccountNumbers.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            store(chunk, report);
+        logger.info("Account import created " + report.getImported() + " accounts and rejected " + report.getRejected() + " rows");
+        return report;
+    }
+
+    private void store(List<Row> chunk, AccountImportReport report) {
+        Set<Long> accountIds = new HashSet<>();
+        Set<String> accountNumbers = new HashSet<>();
+        for (Row row : chunk) {
+            accountIds.add(row.account.getAccountId());
+            accountNumbers.add(row.account.getAccountNumber());
+        }
+        Set<Long> usedAccountIds = new HashSet<>(accountRepository.findExistingAccountIds(accountIds));
+        Set<String> usedAccountNumbers = new HashSet<>(accountRepository.findExistingAccountNumbers(accountNumbers));
+
+        List<Row> newRows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (usedAccountIds.contains(row.account.getAccountId()))
+                reject(report, row.line, row.account.getAccountNumber(), "Account with ID = " + row.account.getAccountId() + " already exists");
+            else if (usedAccountNumbers.contains(row.account.getAccountNumber()))
+                reject(report, row.line, row.account.getAccountNumber(), "Account with account number = " + row.account.getAccountNumber() + " already exists");
+            else
+                newRows.add(row);
+        }
+        if (newRows.isEmpty())
+            return;
+        List<Account> accounts = new ArrayList<>(newRows.size());
+        newRows.forEach(row -> accounts.add(row.account));
+        try {
+            accountService.createAccounts(accounts);
+            report.setImported(report.getImported() + accounts.size());
+        } catch (DataAccessException dae) {
+            logger.error(dae.getMessage(), dae);
+            for (Row row : newRows)
+                reject(report, row.line, row.account.getAccountNumber(), "The chunk of this row could not be stored: " + dae.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static AccountImportReport emptyReport() {
+        return AccountImportReport.builder().errors(new ArrayList<>()).build();
+    }
+
+    private void reject(AccountImportReport report, long line, String accountNumber, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxReportedErrors)
+            report.getErrors().add(AccountImportError.builder().line(line).accountNumber(accountNumber).message(message).build());
+    }
+
+    /**
+     * The checks of {@code POST /account}, plus the mandatory columns and a known status
+     * @return {@code String} - the rejection reason, or null if the account is valid
+     */
+    static String validate(Account account) {
+        if (!AccountService.allowOnlyLettersAndDigits(account.getAccountNumber()))
+            return "Account number should contain only letters and digits";
+        if (account.getAccountValue() < 0)
+            return "Account value should not be negative";
+        if (account.getAccountCurrency() == null || account.getAccountCurrency().isEmpty())
+            return "Account currency is mandatory";
+        if (account.getAccountStatus() == null || account.getAccountStatus().isEmpty())
+            account.setAccountStatus(AccountStatus.OPEN.toString());
+        else if (!AccountStatus.OPEN.toString().equals(account.getAccountStatus()) && !AccountStatus.CLOSED.toString().equals(account.getAccountStatus()))
+            return "Account status should be OPEN or CLOSED";
+        account.setVersion(null);
+        account.setTransactions(null);
+        return null;
+    }
+
+    static Account parseCsv(String line, Map<String, Integer> columns, int columnCount) {
+        String[] values = line.split(",", -1);
+        if (values.length != columnCount)
+            throw new IllegalArgumentException("Expected " + columnCount + " columns, found " + values.length);
+        try {
+            return Account.builder()
+                    .accountId(Long.parseLong(value(values, columns, "accountId")))
+                    .accountNumber(value(values, columns, "accountNumber"))
+                    .accountCurrency(value(values, columns, "accountCurrency"))
+                    .accountValue(Long.parseLong(value(values, columns, "accountValue")))
+                    .accountStatus(value(values, columns, "accountStatus"))
+                    .build();
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Account id and account value should be integers: " + nfe.getMessage());
+        }
+    }
+
+    private static String value(String[] values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : values[index].trim();
+    }
+
+    private interface RowParser {
+        /**
+         * @throws IllegalArgumentException - if the line is malformed
+         */
+        Account parse(String line);
+    }
+
+    private static class Row {
+
+        private final long line;
+
+        private final Account account;
+
+        private Row(long line, Account account) {
+            this.line = line;
+            this.account = account;
+        }
+    }
+}
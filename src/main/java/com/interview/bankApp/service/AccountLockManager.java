@@ -0,0 +1,84 @@
+package com.interview.bankApp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class holds a fixed set of striped locks keyed by account id.
+ * Transfers touching different stripes run in parallel, while transfers touching the same account are serialized.
+ * Locks are always acquired in ascending stripe order, so two transfers can never wait on each other in a cycle.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    @Autowired
+    public AccountLockManager(@Value("${bankApp.locks.stripes:1024}") int stripeCount) {
+        int size = 1;
+        while (size < stripeCount)
+            size <<= 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++)
+            stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    /**
+     * This method locks all the stripes of the given accounts in canonical order
+     * @param accountIds - ids of the accounts that are going to be modified
+     * @return {@code AccountLocks} - handle that releases the locks when closed
+     */
+    public AccountLocks lock(long... accountIds) {
+        int[] indexes = new int[accountIds.length];
+        for (int i = 0; i < accountIds.length; i++)
+            indexes[i] = stripeIndex(accountIds[i]);
+        Arrays.sort(indexes);
+
+        ReentrantLock[] acquired = new ReentrantLock[indexes.length];
+        int count = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i > 0 && indexes[i] == indexes[i - 1])
+                continue;
+            ReentrantLock lock = stripes[indexes[i]];
+            lock.lock();
+            acquired[count++] = lock;
+        }
+        return new AccountLocks(acquired, count);
+    }
+
+    private int stripeIndex(long accountId) {
+        int hash = Long.hashCode(accountId);
+        hash ^= (hash >>> 16);
+        return hash & mask;
+    }
+
+    /**
+     * Handle for the locks taken by {@link #lock(long...)}. It is meant to be used in a try-with-resources block.
+     */
+    public static final class AccountLocks implements AutoCloseable {
+
+        private final ReentrantLock[] locks;
+
+        private final int count;
+
+        private AccountLocks(ReentrantLock[] locks, int count) {
+            this.locks = locks;
+            this.count = count;
+        }
+
+        @Override
+        public void close() {
+            for (int i = count - 1; i >= 0; i--)
+                locks[i].unlock();
+        }
+    }
+}
@@ -1,24 +1,46 @@
 package com.interview.bankApp.service;
 
+import com.interview.bankApp.archive.TransactionArchive;
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.AccountsCreatedEvent;
 import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.CurrencyConversionException;
 import com.interview.bankApp.exception.InsufficientAmountException;
 import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.fx.FxRateService;
 import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountSummary;
+import com.interview.bankApp.model.CursorPage;
+import com.interview.bankApp.model.Money;
 import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
 import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.repository.TransactionRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.chrono.ChronoLocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * This is the {@code @Service} class for the account
@@ -30,39 +52,144 @@ public class AccountService {
 
     private final static Logger logger = LoggerFactory.getLogger(AccountService.class);
 
+    private static final Comparator<TransactionRow> TRANSACTION_ROW_ORDER =
+            Comparator.comparing(TransactionRow::getTransactionDate).thenComparingLong(TransactionRow::getTransactionId);
+
+    private static final Pattern LETTERS_AND_DIGITS = Pattern.compile("\\w+");
+
     @Autowired
     AccountRepository accountRepository;
 
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    RecentActivityIndex recentActivityIndex;
+
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    AccountLockManager accountLockManager;
+
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    FxRateService fxRateService;
+
+    @Autowired
+    TransactionArchive transactionArchive;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
     /**
-     * This method returns all the accounts from the {@code accountRepository}
-     * @return {@code List<Account>}
+     * This method returns one page of the account summaries from the {@code accountRepository}, in account id order
+     * @param limit - the page size, between 1 and {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page (the last account id), {@code null} for the first page
+     * @param includeTransactions - true to add the first page of transactions of every account
+     * @param transactionLimit - the size of the included transaction pages
+     * @return {@code CursorPage<AccountSummary>}
+     * @throws InvalidInputException - if a limit is out of range or the cursor is malformed
      */
-    public List<Account> getAllAccounts() {
-        List<Account> accountList = new ArrayList<>();
-        accountRepository.findAll().forEach(accountList::add);
-        return accountList;
+    public CursorPage<AccountSummary> getAccounts(int limit, String after, boolean includeTransactions, int transactionLimit) throws InvalidInputException {
+        long lastAccountId = Long.MIN_VALUE;
+        if (after != null) {
+            try {
+                lastAccountId = Long.parseLong(after);
+            } catch (NumberFormatException nfe) {
+                throw new InvalidInputException("Invalid cursor " + after);
+            }
+        }
+        Pageable transactionPageable = includeTransactions ? CursorPage.firstRows(transactionLimit) : null;
+        List<AccountSummary> rows = accountRepository.findAccountSummariesAfter(lastAccountId, CursorPage.firstRows(limit));
+        CursorPage<AccountSummary> page = CursorPage.of(rows, limit, account -> String.valueOf(account.getAccountId()));
+        if (includeTransactions) {
+            for (AccountSummary account : page.getItems())
+                account.setTransactions(getFirstTransactions(account.getAccountId(), transactionPageable, transactionLimit));
+        }
+        return page;
+    }
+
+    /**
+     * This method returns the summary of a specific account, answered by the {@code accountCache} when the account is cached
+     * @param id - the account id
+     * @param includeTransactions - true to add the first page of transactions of the account
+     * @param transactionLimit - the size of the included transaction page
+     * @return {@code AccountSummary}
+     * @throws AccountNotFoundException - if the account is not found
+     * @throws InvalidInputException - if the transaction limit is out of range
+     */
+    public AccountSummary getAccountSummary(long id, boolean includeTransactions, int transactionLimit) throws AccountNotFoundException, InvalidInputException {
+        Pageable transactionPageable = includeTransactions ? CursorPage.firstRows(transactionLimit) : null;
+        AccountSummary account = AccountSummary.of(getAccountById(id));
+        if (includeTransactions)
+            account.setTransactions(getFirstTransactions(id, transactionPageable, transactionLimit));
+        return account;
     }
 
     /**
-     * This method returns a specific account from the {@code accountRepository}
+     * This method returns a specific account from the {@code accountCache}, or from the {@code accountRepository} if it is not cached.
+     * The returned account is a copy without its transactions, they are listed on {@code /accounts/{id}/transactions}.
      * @param id represents the account id
      * @return {@code Account}
      * @throws AccountNotFoundException - if the {@code id} is not found in the database this error is thrown
      */
     public Account getAccountById(long id) throws AccountNotFoundException {
-        if(accountRepository.findById(id).isPresent())
-            return accountRepository.findById(id).get();
-        else
-            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
+        Account cachedAccount = accountCache.get(id);
+        if (cachedAccount != null)
+            return cachedAccount;
+        long stamp = accountCache.stamp();
+        Account account = findAccountById(id);
+        accountCache.put(account, stamp);
+        return AccountCache.copy(account);
     }
 
     /**
-     * This method returns a specific account from the {@code accountRepository} using the {@code accNumber}
+     * This method returns a specific account from the {@code accountCache} or the {@code accountRepository} using the {@code accNumber}.
+     * The returned account is a copy without its transactions.
      * @param accNumber - parameter used to retrieve the account
-     * @return {@code Account}
+     * @return {@code Account} - or {@code null} if there is no account with this account number
      */
     public Account getAccountByAccountNumber(String accNumber) {
-        return accountRepository.findByAccountNumber(accNumber);
+        Account cachedAccount = accountCache.get(accNumber);
+        if (cachedAccount != null)
+            return cachedAccount;
+        long stamp = accountCache.stamp();
+        Account account = accountRepository.findByAccountNumber(accNumber);
+        if (account == null)
+            return null;
+        accountCache.put(account, stamp);
+        return AccountCache.copy(account);
+    }
+
+    /**
+     * This method returns the id of the account identified by {@code accNumber}, repeated lookups are answered by the {@code accountCache}
+     * @param accNumber - parameter used to identify the account
+     * @return {@code long} - the account id
+     * @throws AccountNotFoundException - if there is no account with this account number
+     */
+    public long getAccountIdByAccountNumber(String accNumber) throws AccountNotFoundException {
+        Account account = getAccountByAccountNumber(accNumber);
+        if(account == null)
+            throw new AccountNotFoundException("Account with account number = " + accNumber + " was not found");
+        return account.getAccountId();
+    }
+
+    /**
+     * This method returns the ids of all the accounts identified by one of the {@code accNumbers}
+     * @param accNumbers - account numbers used to identify the accounts
+     * @return {@code List<Long>} - ids of the accounts that exist
+     */
+    public List<Long> getAccountIdsByAccountNumbers(Collection<String> accNumbers) {
+        return accountRepository.findAccountIdsByAccountNumberIn(accNumbers);
     }
 
     /**
@@ -71,6 +198,8 @@ public class AccountService {
      */
     public void deleteAccountById(long id){
         accountRepository.deleteById(id);
+        accountCache.invalidate(id);
+        applicationEventPublisher.publishEvent(new AccountChangedEvent(id, null));
     }
 
     /**
@@ -79,133 +208,267 @@ public class AccountService {
      * @throws InvalidInputException - if the validation are not meet this error is thrown
      */
     public void createAccount(Account account) throws InvalidInputException {
-        if(allowOnlyLettersAndDigits(account.getAccountNumber()) && account.getAccountValue() >= 0)
+        if(allowOnlyLettersAndDigits(account.getAccountNumber()) && account.getAccountValue() >= 0) {
+            account.setOpeningBalance(account.getAccountValue());
             accountRepository.save(account);
+            accountCache.invalidate(account.getAccountId());
+            applicationEventPublisher.publishEvent(new AccountChangedEvent(account.getAccountId(), account));
+        }
         else throw new InvalidInputException("You have entered some invalid information for this account. Please check accountNumber or accountValue. AccountNumber = "
-                + account.getAccountNumber() + " ; AccountValue = " +account.getAccountValue());
+                + account.getAccountNumber() + " ; AccountValue = " + Money.format(account.getAccountValue(), account.getAccountCurrency()));
     }
 
+    /**
+     * This method stores a chunk of new accounts, already validated with {@link #allowOnlyLettersAndDigits(String)},
+     * in a single database transaction. The inserts are sent in JDBC batches of {@code hibernate.jdbc.batch_size}.
+     * A single {@code AccountsCreatedEvent} is published once the transaction is committed.
+     * @param accounts - the new accounts, their ids and account numbers are not used yet
+     */
+    public void createAccounts(List<Account> accounts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Account account : accounts) {
+                account.setOpeningBalance(account.getAccountValue());
+                entityManager.persist(account);
+            }
+            entityManager.flush();
+        });
+        for (Account account : accounts)
+            accountCache.invalidate(account.getAccountId());
+        applicationEventPublisher.publishEvent(new AccountsCreatedEvent(accounts));
+    }
+
+    /**
+     * This method updates the status of a specific account. The update is retried if the account was changed concurrently.
+     * @param id - account id
+     * @param status - the new status
+     * @throws AccountNotFoundException - if the {@code id} is not found in the database this error is thrown
+     */
     public void updateAccountStatus(long id, String status) throws AccountNotFoundException {
-        if(accountRepository.findById(id).isPresent()) {
-            accountRepository.findById(id).get().setAccountStatus(status);
-            accountRepository.save(accountRepository.findById(id).get());
+        try (AccountLockManager.AccountLocks locks = accountLockManager.lock(id)) {
+            Account savedAccount = optimisticRetryExecutor.execute(() -> {
+                Account account = findAccountById(id);
+                account.setAccountStatus(status);
+                return accountRepository.save(account);
+            }, id);
+            accountCache.invalidate(id);
+            applicationEventPublisher.publishEvent(new AccountChangedEvent(id, savedAccount));
         }
-        else
-            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
     }
 
-    public void updateAccountValue(long id, double newAccountValue) throws AccountNotFoundException {
-        if(accountRepository.findById(id).isPresent()) {
-            accountRepository.findById(id).get().setAccountValue(newAccountValue);
-            accountRepository.save(accountRepository.findById(id).get());
+    /**
+     * This method updates the {@code accountValue} of a specific account. The update is retried if the account was changed concurrently.
+     * @param id - account id
+     * @param newAccountValue - the new account value, in minor units of the account currency
+     * @throws AccountNotFoundException - if the {@code id} is not found in the database this error is thrown
+     */
+    public void updateAccountValue(long id, long newAccountValue) throws AccountNotFoundException {
+        try (AccountLockManager.AccountLocks locks = accountLockManager.lock(id)) {
+            Account savedAccount = optimisticRetryExecutor.execute(() -> {
+                Account account = findAccountById(id);
+                account.setOpeningBalance(Math.addExact(account.getOpeningBalance(), Math.subtractExact(newAccountValue, account.getAccountValue())));
+                account.setAccountValue(newAccountValue);
+                return accountRepository.save(account);
+            }, id);
+            accountCache.invalidate(id);
+            applicationEventPublisher.publishEvent(new AccountChangedEvent(id, savedAccount));
             logger.info("Account with ID = " + id + " was updated with accountValue =" + newAccountValue);
         }
-        else {
+    }
+
+    /**
+     * This method returns one page of the transactions of an account in {@code (transactionDate, transactionId)} order.
+     * Sent and received transactions are read through their own index, {@code BOTH} merges the two sorted pages,
+     * and the page is then merged with the archived transactions of the account.
+     * @param id - the account id
+     * @param direction - the received ({@code IN}), sent ({@code OUT}) or all ({@code BOTH}) transactions
+     * @param limit - the page size, between 1 and {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page, {@code null} for the first page
+     * @return {@code CursorPage<TransactionRow>}
+     * @throws AccountNotFoundException - if the account is not found
+     * @throws InvalidInputException - if the limit is out of range or the cursor is malformed
+     */
+    public CursorPage<TransactionRow> getTransactionsForAnAccount(long id, TransactionDirection direction, int limit, String after) throws AccountNotFoundException, InvalidInputException {
+        Pageable pageable = CursorPage.firstRows(limit);
+        if (!accountRepository.existsById(id))
             throw new AccountNotFoundException("Account with ID = " + id + " was not found");
-        }
+        TransactionCursor cursor = after == null ? null : CursorPage.decodeTransactionCursor(after);
+        List<TransactionRow> rows = transactionArchive.read(() -> {
+            List<TransactionRow> tableRows;
+            switch (direction) {
+                case IN:
+                    tableRows = getReceivedTransactions(id, cursor, pageable);
+                    break;
+                case OUT:
+                    tableRows = getSentTransactions(id, cursor, pageable);
+                    break;
+                default:
+                    tableRows = merge(getSentTransactions(id, cursor, pageable), getReceivedTransactions(id, cursor, pageable), pageable.getPageSize());
+            }
+            return merge(transactionArchive.findAccountTransactions(id, direction, cursor, pageable.getPageSize()), tableRows, pageable.getPageSize());
+        });
+        return CursorPage.of(rows, limit, TransactionCursor::encode);
     }
 
-    public List<Transaction> getAllTransactionsForAnAccount(long id) throws AccountNotFoundException {
-         return getAccountById(id).getTransactions();
+    private CursorPage<TransactionRow> getFirstTransactions(long id, Pageable pageable, int limit) {
+        List<TransactionRow> rows = transactionArchive.read(() -> merge(
+                transactionArchive.findAccountTransactions(id, TransactionDirection.OUT, null, pageable.getPageSize()),
+                transactionRepository.findFirstAccountTransactions(id, pageable), pageable.getPageSize()));
+        return CursorPage.of(rows, limit, TransactionCursor::encode);
     }
 
+    private List<TransactionRow> getSentTransactions(long id, TransactionCursor cursor, Pageable pageable) {
+        if (cursor == null)
+            return transactionRepository.findFirstAccountTransactions(id, pageable);
+        return transactionRepository.findAccountTransactionsAfter(id, cursor.getTransactionDate(), cursor.getTransactionId(), pageable);
+    }
+
+    private List<TransactionRow> getReceivedTransactions(long id, TransactionCursor cursor, Pageable pageable) {
+        if (cursor == null)
+            return transactionRepository.findFirstReceivedTransactions(id, pageable);
+        return transactionRepository.findReceivedTransactionsAfter(id, cursor.getTransactionDate(), cursor.getTransactionId(), pageable);
+    }
+
+    /**
+     * Merges two pages sorted by {@code (transactionDate, transactionId)} into the first {@code size} rows,
+     * a transfer from the account to itself is listed once
+     */
+    static List<TransactionRow> merge(List<TransactionRow> sent, List<TransactionRow> received, int size) {
+        List<TransactionRow> rows = new ArrayList<>(Math.min(size, sent.size() + received.size()));
+        int i = 0, j = 0;
+        while (rows.size() < size && (i < sent.size() || j < received.size())) {
+            if (j == received.size()) {
+                rows.add(sent.get(i++));
+                continue;
+            }
+            if (i == sent.size()) {
+                rows.add(received.get(j++));
+                continue;
+            }
+            int order = TRANSACTION_ROW_ORDER.compare(sent.get(i), received.get(j));
+            if (order == 0)
+                j++;
+            rows.add(order <= 0 ? sent.get(i++) : received.get(j++));
+        }
+        return rows;
+    }
+
+    /**
+     * This method returns the transactions of an account made after the {@code desiredDateString} day
+     * @param id - the account id
+     * @param desiredDateString - day in the {@code yyyy-MM-dd} format, its own transactions are not included
+     * @return {@code List<Transaction>}
+     * @throws AccountNotFoundException - if the account is not found
+     * @throws InvalidInputException - if the day is in the future
+     */
     public List<Transaction> getAllTransactionsForAnAccountAfterDate(long id, String desiredDateString) throws AccountNotFoundException, InvalidInputException {
-        List<Transaction> transactionList = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         LocalDate desiredDateConverted = LocalDate.parse(desiredDateString, formatter);
         logger.info("desiredDateConverted = " + desiredDateString);
         if(desiredDateConverted.isAfter(ChronoLocalDate.from(LocalDateTime.now()))) {
             throw new InvalidInputException("You have have entered a date in the future" + desiredDateString + " , please retry with a correct date");
         }
-        try {
-            getAccountById(id).getTransactions().forEach(
-                    transaction -> {if(transaction.getTransactionDate().toLocalDate().isAfter(desiredDateConverted))
-                    transactionList.add(transaction);}
-            );
-        } catch (AccountNotFoundException e) {
-            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
-        }
-        return transactionList;
+        return getTransactionsForAnAccountSince(id, desiredDateConverted.plusDays(1).atStartOfDay());
     }
 
+    /**
+     * This method returns the transactions of an account made today
+     * @param id - the account id
+     * @return {@code List<Transaction>}
+     * @throws AccountNotFoundException - if the account is not found
+     */
     public List<Transaction> getAllTransactionsForAnAccountForToday(long id) throws AccountNotFoundException {
-        List<Transaction> transactionList = new ArrayList<>();
-        LocalDate yesterday = LocalDateTime.now().minusDays(1).toLocalDate();
-        logger.info("Today= " + yesterday);
-        try {
-            getAccountById(id).getTransactions().forEach(
-                    transaction -> {if(transaction.getTransactionDate().toLocalDate().isAfter(yesterday))
-                    transactionList.add(transaction);}
-            );
-        } catch (AccountNotFoundException e) {
-            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
-        }
-        return transactionList;
+        LocalDate today = LocalDate.now();
+        logger.info("Today= " + today);
+        return getTransactionsForAnAccountSince(id, today.atStartOfDay());
     }
 
+    /**
+     * This method returns the transactions of an account made since the start of yesterday
+     * @param id - the account id
+     * @return {@code List<Transaction>}
+     * @throws AccountNotFoundException - if the account is not found
+     */
     public List<Transaction> getAllTransactionsForAnAccountForYesterday(long id) throws AccountNotFoundException {
-        List<Transaction> transactionList = new ArrayList<>();
-        LocalDate dayBeforeYesterday = LocalDateTime.now().minusDays(2).toLocalDate();
-        try {
-            getAccountById(id).getTransactions().forEach(
-                    transaction -> {if(transaction.getTransactionDate().toLocalDate().isAfter(dayBeforeYesterday))
-                    transactionList.add(transaction);}
-            );
-        } catch (AccountNotFoundException e) {
-            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
-        }
-        return transactionList;
+        return getTransactionsForAnAccountSince(id, LocalDate.now().minusDays(1).atStartOfDay());
     }
 
+    /**
+     * This method returns the transactions of an account made in the last {@code hours}
+     * @param id - the account id
+     * @param hours - a positive number of hours
+     * @return {@code List<Transaction>}
+     * @throws AccountNotFoundException - if the account is not found
+     * @throws InvalidInputException - if the number of hours is not positive
+     */
     public List<Transaction> getAllTransactionsForAnAccountForLastHours(long id, long hours) throws AccountNotFoundException, InvalidInputException {
-        List<Transaction> transactionList = new ArrayList<>();
         if(hours <= 0)
             throw new InvalidInputException("You have entered a invalid parameter, " + hours + " . Hours parameter should be always positive");
-        LocalDateTime time = LocalDateTime.now().minusHours(hours);
-        try {
-            getAccountById(id).getTransactions().forEach(
-                    transaction -> {if(transaction.getTransactionDate().isAfter(time))
-                    transactionList.add(transaction);}
-            );
-        } catch (AccountNotFoundException e) {
+        return getTransactionsForAnAccountSince(id, LocalDateTime.now().minusHours(hours));
+    }
+
+    private List<Transaction> getTransactionsForAnAccountSince(long id, LocalDateTime from) throws AccountNotFoundException {
+        if (!recentActivityIndex.isLoaded(id) && !accountRepository.existsById(id))
             throw new AccountNotFoundException("Account with ID = " + id + " was not found");
-        }
-        return transactionList;
+        return transactionArchive.read(() -> {
+            List<Transaction> transactionList = new ArrayList<>(transactionArchive.findSentTransactionsSince(id, from));
+            if (!recentActivityIndex.covers(from)) {
+                transactionList.addAll(transactionRepository.findAccountTransactionsSince(id, from));
+                return transactionList;
+            }
+            transactionRepository.findAllById(recentActivityIndex.getTransactionIdsSince(id, from)).forEach(transactionList::add);
+            transactionList.sort(Comparator.comparing(Transaction::getTransactionDate).thenComparing(Transaction::getTransactionId));
+            return transactionList;
+        });
     }
 
     /**
-     * This method updates the {@code accountValue} for the sender
-     * @param accountNumberSender - parameter used to identify the sender account
+     * This method debits the {@code transactionValue} of a single transaction from the sender account, converted to the
+     * account currency, and stores the debited amount as the {@code senderAmount} of the transaction.
+     * Only the new transaction is applied, so the cost does not depend on the sender's transaction history.
+     * @param transaction - the transaction that is posted
+     * @return {@code Account} - the updated sender account
      * @throws AccountNotFoundException -  if the account is not found, error is thrown
+     * @throws CurrencyConversionException - if there is no exchange rate to the account currency
      */
-    public void accountValueUpdateSender(String accountNumberSender) throws AccountNotFoundException {
-        Account senderAccount =  getAccountByAccountNumber(accountNumberSender);
-        double senderAccountValue = senderAccount.getAccountValue();
-        List<Transaction> senderTransactionsList =  senderAccount.getTransactions();
-        for(Transaction transaction : senderTransactionsList) {
-            if(transaction.getTransactionValue() <= senderAccountValue)
-                senderAccountValue -= transaction.getTransactionValue();
-            else
-                throw new InsufficientAmountException("The account with account number = " + senderAccount.getAccountNumber() + " has insufficient funds");
-        }
-        updateAccountValue(senderAccount.getAccountId(), senderAccountValue);
+    public Account accountValueUpdateSender(Transaction transaction) throws AccountNotFoundException {
+        Account senderAccount = getExistingAccountByAccountNumber(transaction.getTransactionSender());
+        long senderAccountValue = senderAccount.getAccountValue();
+        long senderAmount = fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), senderAccount.getAccountCurrency());
+        if(senderAmount > senderAccountValue)
+            throw new InsufficientAmountException("The account with account number = " + senderAccount.getAccountNumber() + " has insufficient funds");
+        senderAccount.setAccountValue(Math.subtractExact(senderAccountValue, senderAmount));
+        transaction.setSenderAmount(senderAmount);
+        return accountRepository.save(senderAccount);
     }
 
     /**
-     * This method updates the {@code accountValue} for the receiver
-     * @param accountNumberSender- parameter used to identify the sender account
+     * This method credits the {@code transactionValue} of a single transaction to the receiver account, converted to the
+     * account currency, and stores the credited amount as the {@code receiverAmount} of the transaction
+     * @param transaction - the transaction that is posted
+     * @return {@code Account} - the updated receiver account
      * @throws AccountNotFoundException -  if the account is not found, error is thrown
+     * @throws CurrencyConversionException - if there is no exchange rate to the account currency
      */
-    public void accountValueUpdateReceiver(String accountNumberSender) throws AccountNotFoundException {
-        Account senderAccount = getAccountByAccountNumber(accountNumberSender);
-        List<Transaction> senderTransactionList = senderAccount.getTransactions();
-        for (Transaction transaction : senderTransactionList) {
-            String receiverAccountNumber = transaction.getTransactionReceiver();
-            Account receiverAccount = getAccountByAccountNumber(receiverAccountNumber);
-            double receiverAccountValue = receiverAccount.getAccountValue() ;
-            receiverAccountValue += transaction.getTransactionValue();
-            updateAccountValue(receiverAccount.getAccountId(), receiverAccountValue);
-        }
+    public Account accountValueUpdateReceiver(Transaction transaction) throws AccountNotFoundException {
+        Account receiverAccount = getExistingAccountByAccountNumber(transaction.getTransactionReceiver());
+        long receiverAmount = fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), receiverAccount.getAccountCurrency());
+        receiverAccount.setAccountValue(Math.addExact(receiverAccount.getAccountValue(), receiverAmount));
+        transaction.setReceiverAmount(receiverAmount);
+        return accountRepository.save(receiverAccount);
+    }
+
+    private Account findAccountById(long id) throws AccountNotFoundException {
+        Optional<Account> account = accountRepository.findById(id);
+        if (!account.isPresent())
+            throw new AccountNotFoundException("Account with ID = " + id + " was not found");
+        return account.get();
+    }
+
+    private Account getExistingAccountByAccountNumber(String accountNumber) throws AccountNotFoundException {
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+        if(account == null)
+            throw new AccountNotFoundException("Account with account number = " + accountNumber + " was not found");
+        return account;
     }
 
     /**
@@ -213,7 +476,7 @@ public class AccountService {
      * @param textToBeVerified
      * @return {@code boolean}
      */
-    private boolean allowOnlyLettersAndDigits(String textToBeVerified) {
-        return textToBeVerified.matches("\\w+");
+    static boolean allowOnlyLettersAndDigits(String textToBeVerified) {
+        return textToBeVerified != null && LETTERS_AND_DIGITS.matcher(textToBeVerified).matches();
     }
 }
@@ -0,0 +1,144 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.CurrencyConversionException;
+import com.interview.bankApp.exception.InsufficientAmountException;
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.exception.TransactionNotFoundException;
+import com.interview.bankApp.model.AsyncTransfer;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResultStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This is the {@code @Service} class that runs transactions in the background on the transfer executor.
+ * At most {@code bankApp.async.max-pending} transactions are waiting or running at the same time,
+ * and the status of the most recent {@code bankApp.async.status-cache-size} submissions is kept for polling.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class AsyncTransferService {
+
+    private final static Logger logger = LoggerFactory.getLogger(AsyncTransferService.class);
+
+    @Autowired
+    TransactionService transactionService;
+
+    @Autowired
+    @Qualifier("transferExecutor")
+    ExecutorService transferExecutor;
+
+    private final Semaphore pendingPermits;
+
+    private final int statusCacheSize;
+
+    private final LinkedHashMap<String, AsyncTransfer> transfers = new LinkedHashMap<>();
+
+    @Autowired
+    public AsyncTransferService(@Value("${bankApp.async.max-pending:10000}") int maxPending,
+                                @Value("${bankApp.async.status-cache-size:100000}") int statusCacheSize) {
+        this.pendingPermits = new Semaphore(maxPending);
+        this.statusCacheSize = statusCacheSize;
+    }
+
+    /**
+     * This method queues a transaction to be created in the background
+     * @param transaction - the transaction to create
+     * @return {@code AsyncTransfer} - the submission, with a {@code PENDING} status
+     * @throws RejectedExecutionException - if too many transactions are already pending
+     */
+    public AsyncTransfer submit(Transaction transaction) {
+        if (!pendingPermits.tryAcquire())
+            throw new RejectedExecutionException("Too many transactions are pending");
+        AsyncTransfer transfer = AsyncTransfer.builder()
+                .transferId(UUID.randomUUID().toString())
+                .status(TransactionResultStatus.PENDING.name())
+                .submittedAt(LocalDateTime.now())
+                .build();
+        store(transfer);
+        try {
+            transferExecutor.execute(() -> run(transfer.getTransferId(), transaction));
+        } catch (RejectedExecutionException ree) {
+            pendingPermits.release();
+            remove(transfer.getTransferId());
+            throw ree;
+        }
+        return copy(transfer);
+    }
+
+    /**
+     * This method returns the status of a submitted transaction
+     * @param transferId - the id returned on submission
+     * @return {@code AsyncTransfer}
+     * @throws TransactionNotFoundException - if the id is unknown or its status is no longer kept
+     */
+    public synchronized AsyncTransfer getTransfer(String transferId) throws TransactionNotFoundException {
+        AsyncTransfer transfer = transfers.get(transferId);
+        if (transfer == null)
+            throw new TransactionNotFoundException("Transfer with ID = " + transferId + " was not found");
+        return copy(transfer);
+    }
+
+    private void run(String transferId, Transaction transaction) {
+        try {
+            transactionService.createTransaction(transaction);
+            complete(transferId, TransactionResultStatus.ACCEPTED, transaction.getTransactionId(), null);
+        } catch (AccountNotFoundException | InsufficientAmountException | CurrencyConversionException | InvalidTransactionException e) {
+            complete(transferId, TransactionResultStatus.REJECTED, null, e.getMessage());
+        } catch (RuntimeException re) {
+            logger.error("Transfer with ID = " + transferId + " failed", re);
+            complete(transferId, TransactionResultStatus.REJECTED, null, "The transaction could not be created");
+        } finally {
+            pendingPermits.release();
+        }
+    }
+
+    private synchronized void complete(String transferId, TransactionResultStatus status, Long transactionId, String message) {
+        AsyncTransfer transfer = transfers.get(transferId);
+        if (transfer == null)
+            return;
+        transfer.setStatus(status.name());
+        transfer.setTransactionId(transactionId);
+        transfer.setMessage(message);
+        transfer.setCompletedAt(LocalDateTime.now());
+    }
+
+    private synchronized void store(AsyncTransfer transfer) {
+        transfers.put(transfer.getTransferId(), transfer);
+        Iterator<Map.Entry<String, AsyncTransfer>> oldest = transfers.entrySet().iterator();
+        while (transfers.size() > statusCacheSize && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private synchronized void remove(String transferId) {
+        transfers.remove(transferId);
+    }
+
+    private static AsyncTransfer copy(AsyncTransfer transfer) {
+        return AsyncTransfer.builder()
+                .transferId(transfer.getTransferId())
+                .status(transfer.getStatus())
+                .transactionId(transfer.getTransactionId())
+                .message(transfer.getMessage())
+                .submittedAt(transfer.getSubmittedAt())
+                .completedAt(transfer.getCompletedAt())
+                .build();
+    }
+}
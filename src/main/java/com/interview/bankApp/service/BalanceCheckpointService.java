@@ -0,0 +1,305 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.archive.TransactionArchive;
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.AccountsCreatedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountBalance;
+import com.interview.bankApp.model.BalanceCheckpoint;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.BalanceCheckpointRepository;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This service takes periodic balance checkpoints of every account and answers the balance of an account at a point in time
+ * from the nearest checkpoint, applying only the transfers between the two. A checkpoint is taken, inside the database
+ * transaction of a posting, once an account had {@code bankApp.checkpoints.interval-transactions} transfers or
+ * {@code bankApp.checkpoints.interval-minutes} passed since its previous checkpoint, and after every direct change of the account.
+ * The transfer dates are chosen by the clients, so a transfer dated at or before the latest checkpoint of one of its accounts
+ * is rejected, see {@link #isCheckpointed}: the balances computed from that checkpoint would not include it.
+ * The progress towards the next checkpoint and the position of the latest one are kept for the
+ * {@code bankApp.checkpoints.max-tracked-accounts} most recently active accounts, an account that was evicted starts counting again.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class BalanceCheckpointService {
+
+    /**
+     * Upper position used when the nearest checkpoint is the current account value
+     */
+    static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    TransactionArchive transactionArchive;
+
+    private final long intervalTransactions;
+
+    private final Duration interval;
+
+    private final int maxTrackedAccounts;
+
+    /**
+     * Progress of the tracked accounts, in the order of their last transfer
+     */
+    private final LinkedHashMap<Long, CheckpointProgress> progress = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public BalanceCheckpointService(@Value("${bankApp.checkpoints.interval-transactions:1000}") long intervalTransactions,
+                                    @Value("${bankApp.checkpoints.interval-minutes:60}") long intervalMinutes,
+                                    @Value("${bankApp.checkpoints.max-tracked-accounts:100000}") int maxTrackedAccounts) {
+        this.intervalTransactions = intervalTransactions;
+        this.interval = Duration.ofMinutes(intervalMinutes);
+        this.maxTrackedAccounts = maxTrackedAccounts;
+    }
+
+    /**
+     * This method returns the value of an account at {@code at}, including the transfers dated at or before it.
+     * It starts from the latest checkpoint at or before {@code at} and adds the later transfers, or, when there is none,
+     * from the earliest later checkpoint (or the current value) and takes the transfers back.
+     * @param accountId - the account id
+     * @param at - the point in time
+     * @return {@code AccountBalance}
+     * @throws AccountNotFoundException - if the account is not found
+     */
+    public AccountBalance getBalanceAt(long accountId, LocalDateTime at) throws AccountNotFoundException {
+        Account account = accountService.getAccountById(accountId);
+        long accountValue;
+        BalanceCheckpoint before = balanceCheckpointRepository.findFirstByAccountIdAndCheckpointDateLessThanEqualOrderByCheckpointDateDescTransactionIdDesc(accountId, at);
+        if (before != null) {
+            accountValue = before.getAccountValue()
+                    + netAmount(accountId, before.getCheckpointDate(), before.getTransactionId(), at, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS);
+        } else {
+            BalanceCheckpoint after = balanceCheckpointRepository.findFirstByAccountIdAndCheckpointDateGreaterThanOrderByCheckpointDateAscTransactionIdAsc(accountId, at);
+            if (after != null)
+                accountValue = after.getAccountValue()
+                        - netAmount(accountId, at, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, after.getCheckpointDate(), after.getTransactionId());
+            else
+                accountValue = account.getAccountValue()
+                        - netAmount(accountId, at, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, END_OF_TIME, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS);
+        }
+        return AccountBalance.builder()
+                .accountId(accountId)
+                .at(at)
+                .accountValue(accountValue)
+                .accountCurrency(account.getAccountCurrency())
+                .build();
+    }
+
+    /**
+     * This method tells whether a transfer is positioned at or before the latest checkpoint of an account,
+     * in which case it has to be rejected. The position of the latest checkpoint is read once per tracked account.
+     * @param accountId - the sender or receiver account id
+     * @param transactionDate - the transfer date
+     * @param transactionId - the transfer id
+     * @return {@code boolean} - true if the latest checkpoint of the account already covers this position
+     */
+    public boolean isCheckpointed(long accountId, LocalDateTime transactionDate, long transactionId) {
+        return progress(accountId, LocalDateTime.now()).isCheckpointed(transactionDate, transactionId);
+    }
+
+    /**
+     * Counts the posted transfers of every touched account and takes the checkpoints that are due, before the posting commits.
+     * A checkpoint is positioned at the latest of the posted transfers of the account, since the account value includes all of them.
+     * @param event - the posting event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Map<Long, Integer> transfers = new HashMap<>();
+        Map<Long, Transaction> lastTransactions = new HashMap<>();
+        for (Transaction transaction : event.getTransactions()) {
+            for (Account account : new Account[]{transaction.getAccount(), transaction.getReceiverAccount()}) {
+                if (account == null)
+                    continue;
+                transfers.merge(account.getAccountId(), 1, Integer::sum);
+                lastTransactions.merge(account.getAccountId(), transaction, BalanceCheckpointService::latest);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Account account : event.getAccounts()) {
+            Transaction lastTransaction = lastTransactions.get(account.getAccountId());
+            if (lastTransaction == null)
+                continue;
+            CheckpointProgress accountProgress = progress(account.getAccountId(), now);
+            if (accountProgress.add(transfers.get(account.getAccountId()), now, intervalTransactions, interval,
+                    lastTransaction.getTransactionDate(), lastTransaction.getTransactionId()))
+                balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+                        .accountId(account.getAccountId())
+                        .checkpointDate(lastTransaction.getTransactionDate())
+                        .transactionId(lastTransaction.getTransactionId())
+                        .accountValue(account.getAccountValue())
+                        .build());
+        }
+    }
+
+    /**
+     * Takes a checkpoint after an account was created or changed outside of a transfer, and drops the checkpoints of a deleted account
+     * @param event - the account event
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getAccount() == null) {
+            forget(event.getAccountId());
+            balanceCheckpointRepository.deleteByAccountId(event.getAccountId());
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+                .accountId(event.getAccountId())
+                .checkpointDate(now)
+                .transactionId(BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)
+                .accountValue(event.getAccount().getAccountValue())
+                .build());
+        progress(event.getAccountId(), now).checkpointAt(now, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS);
+    }
+
+    /**
+     * Takes the first checkpoint of every account of an imported chunk, the checkpoints are stored in one database transaction.
+     * New accounts have no earlier checkpoint, so they are tracked without reading one.
+     * @param event - the import event
+     */
+    @EventListener
+    public void onAccountsCreated(AccountsCreatedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceCheckpoint> checkpoints = new ArrayList<>(event.getAccounts().size());
+        for (Account account : event.getAccounts())
+            checkpoints.add(BalanceCheckpoint.builder()
+                    .accountId(account.getAccountId())
+                    .checkpointDate(now)
+                    .transactionId(BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)
+                    .accountValue(account.getAccountValue())
+                    .build());
+        balanceCheckpointRepository.saveAll(checkpoints);
+        for (Account account : event.getAccounts())
+            track(account.getAccountId(), new CheckpointProgress(now)).checkpointAt(now, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS);
+    }
+
+    /**
+     * Returns the progress of an account. An account that is not tracked is started from its latest checkpoint, read outside
+     * of the lock, and the least recently active accounts are evicted.
+     */
+    private CheckpointProgress progress(long accountId, LocalDateTime now) {
+        CheckpointProgress accountProgress = trackedProgress(accountId);
+        if (accountProgress != null)
+            return accountProgress;
+        accountProgress = new CheckpointProgress(now);
+        BalanceCheckpoint latestCheckpoint = balanceCheckpointRepository.findFirstByAccountIdOrderByCheckpointDateDescTransactionIdDesc(accountId);
+        if (latestCheckpoint != null)
+            accountProgress.checkpointAt(latestCheckpoint.getCheckpointDate(), latestCheckpoint.getTransactionId());
+        return track(accountId, accountProgress);
+    }
+
+    private synchronized CheckpointProgress trackedProgress(long accountId) {
+        return progress.get(accountId);
+    }
+
+    /**
+     * Starts tracking an account, unless a concurrent caller already did
+     */
+    private synchronized CheckpointProgress track(long accountId, CheckpointProgress accountProgress) {
+        CheckpointProgress trackedProgress = progress.putIfAbsent(accountId, accountProgress);
+        if (trackedProgress != null)
+            return trackedProgress;
+        Iterator<CheckpointProgress> eldest = progress.values().iterator();
+        while (progress.size() > maxTrackedAccounts && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+        return accountProgress;
+    }
+
+    private synchronized void forget(long accountId) {
+        progress.remove(accountId);
+    }
+
+    /**
+     * The received minus the sent transfers of an account between two positions, the lower one excluded
+     */
+    private long netAmount(long accountId, LocalDateTime fromDate, long fromId, LocalDateTime toDate, long toId) {
+        return transactionArchive.read(() -> transactionArchive.netAmountBetween(accountId, fromDate, fromId, toDate, toId)
+                + transactionRepository.sumReceivedBetween(accountId, fromDate, fromId, toDate, toId)
+                - transactionRepository.sumSentBetween(accountId, fromDate, fromId, toDate, toId));
+    }
+
+    /**
+     * The later of two transfers in {@code (transactionDate, transactionId)} order
+     */
+    private static Transaction latest(Transaction first, Transaction second) {
+        int order = first.getTransactionDate().compareTo(second.getTransactionDate());
+        return order > 0 || (order == 0 && first.getTransactionId() > second.getTransactionId()) ? first : second;
+    }
+
+    /**
+     * Transfers and time elapsed since the last checkpoint of an account, and the position of its latest checkpoint
+     */
+    static class CheckpointProgress {
+
+        private long transfers;
+
+        private LocalDateTime lastCheckpoint;
+
+        private LocalDateTime checkpointDate;
+
+        private long checkpointTransactionId;
+
+        CheckpointProgress(LocalDateTime lastCheckpoint) {
+            this.lastCheckpoint = lastCheckpoint;
+        }
+
+        /**
+         * @return {@code boolean} - true if a checkpoint is due at {@code (transactionDate, transactionId)}, the progress is then reset
+         */
+        synchronized boolean add(long newTransfers, LocalDateTime now, long intervalTransactions, Duration interval,
+                                 LocalDateTime transactionDate, long transactionId) {
+            transfers += newTransfers;
+            boolean due = (intervalTransactions > 0 && transfers >= intervalTransactions)
+                    || (!interval.isZero() && !now.isBefore(lastCheckpoint.plus(interval)));
+            if (due) {
+                transfers = 0;
+                lastCheckpoint = now;
+                checkpointAt(transactionDate, transactionId);
+            }
+            return due;
+        }
+
+        synchronized void checkpointAt(LocalDateTime date, long transactionId) {
+            if (!isCheckpointed(date, transactionId)) {
+                checkpointDate = date;
+                checkpointTransactionId = transactionId;
+            }
+        }
+
+        synchronized boolean isCheckpointed(LocalDateTime date, long transactionId) {
+            if (checkpointDate == null)
+                return false;
+            int order = date.compareTo(checkpointDate);
+            return order < 0 || (order == 0 && transactionId <= checkpointTransactionId);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountPeriodSummary;
+import com.interview.bankApp.model.DailyRollup;
+import com.interview.bankApp.model.DailyRollupId;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.DailyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This service maintains the daily rollups of every account and answers the period summaries from them.
+ * The transfers of a posting are first aggregated in memory per account and day, then every touched rollup row is
+ * written once, inside the database transaction of the posting, so the rollups commit (or roll back) with the transfers.
+ * The rollups cover the transfers only: a direct change of the account value, which moves the {@code openingBalance}
+ * of the account instead, is not added to the closing balances of the days already rolled up.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class DailyRollupService {
+
+    @Autowired
+    DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    AccountService accountService;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Adds the posted transfers to the rollups of their senders and receivers, before the posting commits
+     * @param event - the posting event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Map<Long, Account> accountsById = new HashMap<>();
+        for (Account account : event.getAccounts())
+            accountsById.put(account.getAccountId(), account);
+        for (DailyRollup rollup : aggregate(event.getTransactions(), event.getAccounts())) {
+            // the transfers can be dated before the latest rollup of the account, the later closing balances include them too
+            long netAmount = rollup.getCreditTotal() - rollup.getDebitTotal();
+            if (netAmount != 0)
+                dailyRollupRepository.addToLaterClosingBalances(rollup.getAccountId(), rollup.getRollupDate(), netAmount);
+            int updated = dailyRollupRepository.addToRollup(rollup.getAccountId(), rollup.getRollupDate(),
+                    rollup.getDebitTotal(), rollup.getCreditTotal(), rollup.getTransactionCount(),
+                    rollup.getMinTransactionValue(), rollup.getMaxTransactionValue());
+            if (updated == 0) {
+                DailyRollup previous = dailyRollupRepository.findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(
+                        rollup.getAccountId(), rollup.getRollupDate());
+                long openingBalance = previous == null
+                        ? accountsById.get(rollup.getAccountId()).getOpeningBalance()
+                        : previous.getClosingBalance();
+                rollup.setClosingBalance(openingBalance + netAmount);
+                entityManager.persist(rollup);
+            }
+        }
+    }
+
+    /**
+     * Drops the rollups of a deleted account
+     * @param event - the account event
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getAccount() == null)
+            dailyRollupRepository.deleteByAccountId(event.getAccountId());
+    }
+
+    /**
+     * This method returns the transfer totals of an account between two days, both included, reading one rollup per day
+     * @param accountId - the account id
+     * @param from - the first day
+     * @param to - the last day
+     * @return {@code AccountPeriodSummary}
+     * @throws AccountNotFoundException - if the account is not found
+     * @throws InvalidInputException - if {@code from} is after {@code to}
+     */
+    public AccountPeriodSummary getSummary(long accountId, LocalDate from, LocalDate to) throws AccountNotFoundException, InvalidInputException {
+        if (from.isAfter(to))
+            throw new InvalidInputException("The start of the period, " + from + ", is after its end, " + to);
+        accountService.getAccountById(accountId);
+
+        List<DailyRollup> days = dailyRollupRepository.findByAccountIdAndRollupDateBetweenOrderByRollupDate(accountId, from, to);
+        AccountPeriodSummary summary = AccountPeriodSummary.builder().accountId(accountId).from(from).to(to).days(days).build();
+        for (DailyRollup day : days) {
+            summary.setDebitTotal(summary.getDebitTotal() + day.getDebitTotal());
+            summary.setCreditTotal(summary.getCreditTotal() + day.getCreditTotal());
+            summary.setTransactionCount(summary.getTransactionCount() + day.getTransactionCount());
+            if (summary.getMinTransactionValue() == null || day.getMinTransactionValue() < summary.getMinTransactionValue())
+                summary.setMinTransactionValue(day.getMinTransactionValue());
+            if (summary.getMaxTransactionValue() == null || day.getMaxTransactionValue() > summary.getMaxTransactionValue())
+                summary.setMaxTransactionValue(day.getMaxTransactionValue());
+        }
+        DailyRollup closing = days.isEmpty()
+                ? dailyRollupRepository.findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(accountId, to)
+                : days.get(days.size() - 1);
+        if (closing != null)
+            summary.setClosingBalance(closing.getClosingBalance());
+        return summary;
+    }
+
+    /**
+     * This method folds the transfers of a posting into one rollup delta per account and day, without a closing balance.
+     * Each leg is counted in the currency of its own account, and a transfer between two accounts counts for both.
+     * A transfer of an account to itself counts once and moves neither its debit nor its credit total.
+     * @param transactions - the posted transactions, in posting order
+     * @param accounts - the touched accounts
+     * @return {@code Collection<DailyRollup>}
+     */
+    static Collection<DailyRollup> aggregate(List<Transaction> transactions, Collection<Account> accounts) {
+        Map<String, Account> accountsByNumber = new HashMap<>();
+        for (Account account : accounts)
+            accountsByNumber.put(account.getAccountNumber(), account);
+
+        Map<DailyRollupId, DailyRollup> rollups = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            Account sender = accountsByNumber.get(transaction.getTransactionSender());
+            Account receiver = accountsByNumber.get(transaction.getTransactionReceiver());
+            LocalDate day = transaction.getTransactionDate().toLocalDate();
+            if (sender != null && sender == receiver) {
+                add(rollups, sender.getAccountId(), day, 0, 0, transaction.getSenderAmount());
+                continue;
+            }
+            // an interest accrual has only one account leg
+            if (sender != null)
+                add(rollups, sender.getAccountId(), day, transaction.getSenderAmount(), 0, transaction.getSenderAmount());
+            if (receiver != null)
+                add(rollups, receiver.getAccountId(), day, 0, transaction.getReceiverAmount(), transaction.getReceiverAmount());
+        }
+        return rollups.values();
+    }
+
+    private static void add(Map<DailyRollupId, DailyRollup> rollups, long accountId, LocalDate day, long debit, long credit, long value) {
+        DailyRollup rollup = rollups.get(new DailyRollupId(accountId, day));
+        if (rollup == null) {
+            rollups.put(new DailyRollupId(accountId, day), DailyRollup.builder().accountId(accountId).rollupDate(day)
+                    .debitTotal(debit).creditTotal(credit).transactionCount(1)
+                    .minTransactionValue(value).maxTransactionValue(value).build());
+            return;
+        }
+        rollup.setDebitTotal(rollup.getDebitTotal() + debit);
+        rollup.setCreditTotal(rollup.getCreditTotal() + credit);
+        rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+        rollup.setMinTransactionValue(Math.min(rollup.getMinTransactionValue(), value));
+        rollup.setMaxTransactionValue(Math.max(rollup.getMaxTransactionValue(), value));
+    }
+}
@@ -0,0 +1,186 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.IdempotencyKeyMismatchException;
+import com.interview.bankApp.model.IdempotencyRecord;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is the {@code @Service} class that remembers the result of the requests sent with an {@code Idempotency-Key}.
+ * Recent keys are answered from a bounded in-memory cache whose entries expire after the cache window,
+ * older keys are answered from the {@code IdempotencyRecord} table. A hash of the request is kept with every key,
+ * so a key sent again with a different request is refused instead of being answered with the result of the first one.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class IdempotencyService {
+
+    private final static Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final int cacheSize;
+
+    private final long cacheTtlMillis;
+
+    private final LinkedHashMap<String, CachedResult> cache = new LinkedHashMap<>();
+
+    private final Set<String> inFlightKeys = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${bankApp.idempotency.retention-hours:168}")
+    long retentionHours;
+
+    @Autowired
+    public IdempotencyService(@Value("${bankApp.idempotency.cache-size:100000}") int cacheSize,
+                              @Value("${bankApp.idempotency.cache-ttl-minutes:10}") long cacheTtlMinutes) {
+        this.cacheSize = cacheSize;
+        this.cacheTtlMillis = cacheTtlMinutes * 60_000L;
+    }
+
+    /**
+     * This method returns the id of the transaction created by a previous request with the same key
+     * @param idempotencyKey - the value of the {@code Idempotency-Key} header
+     * @param requestHash - the hash of the request, see {@link #requestHash(Transaction)}
+     * @return {@code Long} - the transaction id or {@code null} if the key was not used before
+     * @throws IdempotencyKeyMismatchException - if the key was used with a different request
+     */
+    public Long getTransactionId(String idempotencyKey, String requestHash) {
+        CachedResult result = getCachedResult(idempotencyKey);
+        if (result == null) {
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(idempotencyKey);
+            if (!record.isPresent())
+                return null;
+            result = cache(idempotencyKey, record.get().getTransactionId(), record.get().getRequestHash());
+        }
+        // the records stored before the hashes were kept have none
+        if (result.requestHash != null && !result.requestHash.equals(requestHash))
+            throw new IdempotencyKeyMismatchException("Idempotency-Key = " + idempotencyKey + " was already used by a different request");
+        return result.transactionId;
+    }
+
+    /**
+     * This method marks the key as being processed
+     * @param idempotencyKey - the value of the {@code Idempotency-Key} header
+     * @return {@code boolean} - false if another request with the same key is still being processed
+     */
+    public boolean begin(String idempotencyKey) {
+        return inFlightKeys.add(idempotencyKey);
+    }
+
+    /**
+     * This method stores the result of a successfully processed request.
+     * The result is cached before it is saved, so a retry within the cache window is answered even if the save fails.
+     * @param idempotencyKey - the value of the {@code Idempotency-Key} header
+     * @param transactionId - the id of the created transaction
+     * @param requestHash - the hash of the request, see {@link #requestHash(Transaction)}
+     */
+    public void complete(String idempotencyKey, long transactionId, String requestHash) {
+        cache(idempotencyKey, transactionId, requestHash);
+        try {
+            idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                    .idempotencyKey(idempotencyKey)
+                    .transactionId(transactionId)
+                    .requestHash(requestHash)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } finally {
+            inFlightKeys.remove(idempotencyKey);
+        }
+    }
+
+    /**
+     * This method releases the key of a request that did not create a transaction, so the request can be sent again
+     * @param idempotencyKey - the value of the {@code Idempotency-Key} header
+     */
+    public void abort(String idempotencyKey) {
+        inFlightKeys.remove(idempotencyKey);
+    }
+
+    /**
+     * This method removes the stored keys that are older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${bankApp.idempotency.purge-interval-millis:3600000}")
+    public void purgeExpiredRecords() {
+        int removed = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        logger.info(removed + " idempotency records older than " + retentionHours + " hours were removed");
+    }
+
+    /**
+     * This method hashes the fields of a transaction request that the posting reads, before the posting fills in the others
+     * @param transaction - the request body
+     * @return {@code String} - hex SHA-256 of the fields
+     */
+    public static String requestHash(Transaction transaction) {
+        String request = transaction.getTransactionId() + "|" + transaction.getTransactionSender() + "|" + transaction.getTransactionReceiver()
+                + "|" + transaction.getTransactionValue() + "|" + transaction.getTransactionCurrency() + "|" + transaction.getTransactionDate();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash)
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not available", nsae);
+        }
+    }
+
+    private synchronized CachedResult getCachedResult(String idempotencyKey) {
+        CachedResult cachedResult = cache.get(idempotencyKey);
+        if (cachedResult == null)
+            return null;
+        if (cachedResult.expiresAt < System.currentTimeMillis()) {
+            cache.remove(idempotencyKey);
+            return null;
+        }
+        return cachedResult;
+    }
+
+    private synchronized CachedResult cache(String idempotencyKey, long transactionId, String requestHash) {
+        long now = System.currentTimeMillis();
+        CachedResult result = new CachedResult(transactionId, requestHash, now + cacheTtlMillis);
+        cache.remove(idempotencyKey);
+        cache.put(idempotencyKey, result);
+        Iterator<Map.Entry<String, CachedResult>> oldest = cache.entrySet().iterator();
+        while (oldest.hasNext()) {
+            CachedResult cachedResult = oldest.next().getValue();
+            if (cache.size() <= cacheSize && cachedResult.expiresAt >= now)
+                break;
+            oldest.remove();
+        }
+        return result;
+    }
+
+    private static final class CachedResult {
+
+        private final long transactionId;
+
+        private final String requestHash;
+
+        private final long expiresAt;
+
+        private CachedResult(long transactionId, String requestHash, long expiresAt) {
+            this.transactionId = transactionId;
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountStatus;
+import com.interview.bankApp.model.InterestAccrual;
+import com.interview.bankApp.model.InterestAccrualReport;
+import com.interview.bankApp.model.InterestAccrualRun;
+import com.interview.bankApp.model.InterestAccrualStatus;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.InterestAccrualRepository;
+import com.interview.bankApp.repository.InterestAccrualRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This service accrues the daily interest of every OPEN account, a negative rate charges a fee instead.
+ * The accounts are split into chunks of {@code bankApp.accrual.chunk-size} accounts that are accrued in parallel on a fork-join pool.
+ * The chunk boundaries are taken from the stored account ids with a keyset walk, so sparse ids do not produce empty chunks.
+ * Every chunk is one database transaction: its accounts are read and locked by a single query, and the new values, the accrual
+ * transactions and the accrual records are written with batched statements. An account accrued for a day has an
+ * {@link InterestAccrual} row, so a job that stopped half way resumes with the chunks that were not committed.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class InterestAccrualService {
+
+    /**
+     * Counterpart of the accrual transactions, it is not an account
+     */
+    public static final String INTEREST_ACCOUNT_NUMBER = "INTEREST";
+
+    static final String SELECT_CHUNK = "select a.account_id, a.account_number, a.account_currency, a.account_status, a.account_value,"
+            + " a.opening_balance, a.version from account a where a.account_id >= ? and a.account_id < ?"
+            + " and a.account_status = '" + AccountStatus.OPEN + "'"
+            + " and not exists (select 1 from interest_accrual i where i.account_id = a.account_id and i.accrual_date = ?)"
+            + " order by a.account_id for update";
+
+    static final String SELECT_NEXT_CHUNK_START = "select account_id from account where account_id >= ? order by account_id limit 1 offset ?";
+
+    static final String UPDATE_ACCOUNT = "update account set account_value = ?, version = version + 1 where account_id = ?";
+
+    static final String INSERT_TRANSACTION = "insert into transaction (transaction_id, transaction_currency, transaction_date, transaction_receiver,"
+            + " transaction_sender, transaction_value, sender_amount, receiver_amount, account_id, receiver_account_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String INSERT_ACCRUAL = "insert into interest_accrual (account_id, accrual_date, accrued_value, transaction_id) values (?, ?, ?, ?)";
+
+    private static final Logger logger = LoggerFactory.getLogger(InterestAccrualService.class);
+
+    private static final RowMapper<Account> ACCOUNT_ROW_MAPPER = (resultSet, rowNumber) -> Account.builder()
+            .accountId(resultSet.getLong(1))
+            .accountNumber(resultSet.getString(2))
+            .accountCurrency(resultSet.getString(3))
+            .accountStatus(resultSet.getString(4))
+            .accountValue(resultSet.getLong(5))
+            .openingBalance(resultSet.getLong(6))
+            .version(resultSet.getLong(7))
+            .build();
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    InterestAccrualRepository interestAccrualRepository;
+
+    @Autowired
+    InterestAccrualRunRepository interestAccrualRunRepository;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    private final BigDecimal annualRatePercent;
+
+    private final int chunkSize;
+
+    private final boolean ringBufferMode;
+
+    private final ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Next id of an accrual transaction. The accrual transactions count down from below the lowest stored id and the
+     * transfers sent by clients are rejected unless their id is positive, so the two never take the same id.
+     */
+    private final AtomicLong nextTransactionId = new AtomicLong(-1);
+
+    private volatile InterestAccrualReport lastReport;
+
+    @Autowired
+    public InterestAccrualService(@Value("${bankApp.accrual.annual-rate-percent:0}") BigDecimal annualRatePercent,
+                                  @Value("${bankApp.accrual.chunk-size:1000}") int chunkSize,
+                                  @Value("${bankApp.accrual.parallelism:0}") int parallelism,
+                                  @Value("${bankApp.transactions.mode:locking}") String transactionsMode) {
+        this.annualRatePercent = annualRatePercent;
+        this.chunkSize = chunkSize;
+        this.ringBufferMode = "ring-buffer".equals(transactionsMode);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method starts the accrual of the previous day in the background, unless the job is disabled or already running
+     */
+    @Scheduled(cron = "${bankApp.accrual.cron:0 0 1 * * *}")
+    public void scheduledAccrual() {
+        if (annualRatePercent.signum() == 0)
+            return;
+        if (ringBufferMode) {
+            logger.warn("The transfer pipeline owns the account values, the interest accrual is skipped");
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("The previous interest accrual is still running, this one is skipped");
+            return;
+        }
+        lastReport = InterestAccrualReport.builder().status(InterestAccrualStatus.RUNNING).startedAt(LocalDateTime.now()).build();
+        pool.execute(() -> {
+            try {
+                lastReport = accrue(LocalDate.now().minusDays(1));
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return {@code InterestAccrualReport} - the running or the last completed accrual, or null if none ran yet
+     */
+    public InterestAccrualReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Drops the accruals of a deleted account
+     * @param event - the account event
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getAccount() == null)
+            interestAccrualRepository.deleteByAccountId(event.getAccountId());
+    }
+
+    /**
+     * This method completes the accrual days left unfinished by a previous run, then accrues {@code accrualDate}, and waits for the result
+     * @param accrualDate - the day to accrue
+     * @return {@code InterestAccrualReport}
+     */
+    InterestAccrualReport accrue(LocalDate accrualDate) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startTime = System.nanoTime();
+        List<LocalDate> accrualDates = new ArrayList<>();
+        try {
+            List<InterestAccrualRun> runs = new ArrayList<>(interestAccrualRunRepository.findByCompletedAtIsNullOrderByAccrualDate());
+            if (runs.stream().noneMatch(run -> run.getAccrualDate().equals(accrualDate))) {
+                InterestAccrualRun run = interestAccrualRunRepository.findById(accrualDate).orElse(null);
+                if (run == null)
+                    runs.add(interestAccrualRunRepository.save(InterestAccrualRun.builder().accrualDate(accrualDate).startedAt(startedAt).build()));
+                else
+                    logger.info("Interest was already accrued for " + accrualDate);
+            }
+
+            Long lowestTransactionId = jdbcTemplate.queryForObject("select min(transaction_id) from transaction", Long.class);
+            nextTransactionId.set(Math.min(lowestTransactionId == null ? 0 : lowestTransactionId, 0) - 1);
+            List<Long> chunkBoundaries = runs.isEmpty() ? Collections.emptyList() : chunkBoundaries();
+            ChunkResult result = new ChunkResult();
+            for (InterestAccrualRun run : runs) {
+                BigDecimal dailyRate = dailyRate(annualRatePercent, run.getAccrualDate());
+                ChunkResult runResult = chunkBoundaries.size() < 2
+                        ? new ChunkResult()
+                        : pool.invoke(new ChunkTask(run.getAccrualDate(), dailyRate, chunkBoundaries, 0, chunkBoundaries.size() - 1));
+                run.setAccountsAccrued(run.getAccountsAccrued() + runResult.accountsAccrued);
+                run.setCompletedAt(LocalDateTime.now());
+                interestAccrualRunRepository.save(run);
+                accrualDates.add(run.getAccrualDate());
+                result.merge(runResult);
+            }
+
+            long durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+            logger.info("Accrued interest of " + result.accountsAccrued + " accounts for " + accrualDates + " in " + result.chunks
+                    + " chunks and " + durationMillis + " ms");
+            return InterestAccrualReport.builder()
+                    .status(InterestAccrualStatus.COMPLETED)
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis(durationMillis)
+                    .accrualDates(accrualDates)
+                    .chunks(result.chunks)
+                    .accountsAccrued(result.accountsAccrued)
+                    .accountsPerSecond(durationMillis == 0 ? result.accountsAccrued : result.accountsAccrued * 1000.0 / durationMillis)
+                    .build();
+        } catch (RuntimeException re) {
+            logger.error("Interest accrual failed, the committed chunks are kept and the rest is accrued by the next run", re);
+            return InterestAccrualReport.builder()
+                    .status(InterestAccrualStatus.FAILED)
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis((System.nanoTime() - startTime) / 1_000_000)
+                    .accrualDates(accrualDates)
+                    .message(re.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * This method walks the account ids in order and takes every {@code chunkSize}-th id as the start of a chunk
+     * @return {@code List<Long>} - the start of every chunk followed by the end of the last one, empty if there are no accounts
+     */
+    private List<Long> chunkBoundaries() {
+        List<Long> chunkBoundaries = new ArrayList<>();
+        Long firstAccountId = jdbcTemplate.queryForObject("select min(account_id) from account", Long.class);
+        Long lastAccountId = jdbcTemplate.queryForObject("select max(account_id) from account", Long.class);
+        if (firstAccountId == null || lastAccountId == null)
+            return chunkBoundaries;
+        for (Long chunkStart = firstAccountId; chunkStart != null; ) {
+            chunkBoundaries.add(chunkStart);
+            List<Long> nextChunkStart = jdbcTemplate.queryForList(SELECT_NEXT_CHUNK_START, Long.class, chunkStart, chunkSize);
+            chunkStart = nextChunkStart.isEmpty() ? null : nextChunkStart.get(0);
+        }
+        chunkBoundaries.add(lastAccountId + 1);
+        return chunkBoundaries;
+    }
+
+    /**
+     * This method accrues the OPEN accounts with ids in {@code [fromAccountId, toAccountId)} that were not accrued for the day yet,
+     * in one database transaction
+     * @return {@code long} - the number of accounts accrued
+     */
+    private long accrueChunk(LocalDate accrualDate, BigDecimal dailyRate, long fromAccountId, long toAccountId) {
+        Long accrued = transactionTemplate.execute(status -> {
+            List<Account> accounts = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CHUNK);
+                statement.setLong(1, fromAccountId);
+                statement.setLong(2, toAccountId);
+                statement.setDate(3, Date.valueOf(accrualDate));
+                return statement;
+            }, ACCOUNT_ROW_MAPPER);
+            if (accounts.isEmpty())
+                return 0L;
+
+            LocalDateTime transactionDate = LocalDateTime.now();
+            List<InterestAccrual> accruals = new ArrayList<>(accounts.size());
+            List<Account> changedAccounts = new ArrayList<>();
+            List<Transaction> transactions = new ArrayList<>();
+            for (Account account : accounts) {
+                long accruedValue = accrual(account.getAccountValue(), dailyRate);
+                Long transactionId = null;
+                if (accruedValue != 0) {
+                    Transaction transaction = accrualTransaction(nextTransactionId.getAndDecrement(), account, accruedValue, transactionDate);
+                    transactionId = transaction.getTransactionId();
+                    account.setAccountValue(Math.addExact(account.getAccountValue(), accruedValue));
+                    account.setVersion(account.getVersion() + 1);
+                    changedAccounts.add(account);
+                    transactions.add(transaction);
+                }
+                accruals.add(InterestAccrual.builder().accountId(account.getAccountId()).accrualDate(accrualDate)
+                        .accruedValue(accruedValue).transactionId(transactionId).build());
+            }
+
+            jdbcTemplate.batchUpdate(UPDATE_ACCOUNT, changedAccounts, chunkSize, (statement, account) -> {
+                statement.setLong(1, account.getAccountValue());
+                statement.setLong(2, account.getAccountId());
+            });
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, chunkSize, (statement, transaction) -> {
+                statement.setLong(1, transaction.getTransactionId());
+                statement.setString(2, transaction.getTransactionCurrency());
+                statement.setTimestamp(3, Timestamp.valueOf(transaction.getTransactionDate()));
+                statement.setString(4, transaction.getTransactionReceiver());
+                statement.setString(5, transaction.getTransactionSender());
+                statement.setLong(6, transaction.getTransactionValue());
+                statement.setLong(7, transaction.getSenderAmount());
+                statement.setLong(8, transaction.getReceiverAmount());
+                setAccountId(statement, 9, transaction.getAccount());
+                setAccountId(statement, 10, transaction.getReceiverAccount());
+            });
+            jdbcTemplate.batchUpdate(INSERT_ACCRUAL, accruals, chunkSize, (statement, accrual) -> {
+                statement.setLong(1, accrual.getAccountId());
+                statement.setDate(2, Date.valueOf(accrual.getAccrualDate()));
+                statement.setLong(3, accrual.getAccruedValue());
+                if (accrual.getTransactionId() == null)
+                    statement.setNull(4, Types.BIGINT);
+                else
+                    statement.setLong(4, accrual.getTransactionId());
+            });
+            if (!transactions.isEmpty())
+                applicationEventPublisher.publishEvent(new TransactionPostedEvent(transactions, changedAccounts));
+            return (long) accounts.size();
+        });
+        return accrued == null ? 0 : accrued;
+    }
+
+    /**
+     * This method computes the accrual of one day, rounded half to even to the minor unit. A fee never takes more than the account value.
+     * @param accountValue - the account value, in minor units
+     * @param dailyRate - the rate of one day, see {@link #dailyRate(BigDecimal, LocalDate)}
+     * @return {@code long} - the accrued value in minor units, negative for a fee
+     */
+    static long accrual(long accountValue, BigDecimal dailyRate) {
+        long accruedValue = BigDecimal.valueOf(accountValue).multiply(dailyRate).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        return Math.max(accruedValue, -accountValue);
+    }
+
+    /**
+     * @return {@code BigDecimal} - the annual rate in percent spread over the days of the year of {@code accrualDate}
+     */
+    static BigDecimal dailyRate(BigDecimal annualRatePercent, LocalDate accrualDate) {
+        return annualRatePercent.divide(BigDecimal.valueOf(100L * accrualDate.lengthOfYear()), MathContext.DECIMAL64);
+    }
+
+    /**
+     * An interest is received from {@link #INTEREST_ACCOUNT_NUMBER}, a fee is sent to it
+     */
+    private static Transaction accrualTransaction(long transactionId, Account account, long accruedValue, LocalDateTime transactionDate) {
+        long value = Math.abs(accruedValue);
+        boolean interest = accruedValue > 0;
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .transactionValue(value)
+                .senderAmount(value)
+                .receiverAmount(value)
+                .transactionCurrency(account.getAccountCurrency())
+                .transactionDate(transactionDate)
+                .transactionSender(interest ? INTEREST_ACCOUNT_NUMBER : account.getAccountNumber())
+                .transactionReceiver(interest ? account.getAccountNumber() : INTEREST_ACCOUNT_NUMBER)
+                .account(interest ? null : account)
+                .receiverAccount(interest ? account : null)
+                .build();
+    }
+
+    private static void setAccountId(PreparedStatement statement, int index, Account account) throws SQLException {
+        if (account == null)
+            statement.setNull(index, Types.BIGINT);
+        else
+            statement.setLong(index, account.getAccountId());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Accrues the chunks {@code [fromChunk, toChunk)}, chunk {@code i} holds the account ids in
+     * {@code [chunkBoundaries[i], chunkBoundaries[i + 1])}. The chunks are split in halves until a single one is left.
+     */
+    private class ChunkTask extends RecursiveTask<ChunkResult> {
+
+        private final LocalDate accrualDate;
+
+        private final BigDecimal dailyRate;
+
+        private final List<Long> chunkBoundaries;
+
+        private final int fromChunk;
+
+        private final int toChunk;
+
+        private ChunkTask(LocalDate accrualDate, BigDecimal dailyRate, List<Long> chunkBoundaries, int fromChunk, int toChunk) {
+            this.accrualDate = accrualDate;
+            this.dailyRate = dailyRate;
+            this.chunkBoundaries = chunkBoundaries;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (toChunk - fromChunk == 1) {
+                ChunkResult result = new ChunkResult();
+                result.chunks = 1;
+                result.accountsAccrued = accrueChunk(accrualDate, dailyRate, chunkBoundaries.get(fromChunk), chunkBoundaries.get(toChunk));
+                return result;
+            }
+            int middle = fromChunk + (toChunk - fromChunk) / 2;
+            ChunkTask lower = new ChunkTask(accrualDate, dailyRate, chunkBoundaries, fromChunk, middle);
+            lower.fork();
+            ChunkResult upper = new ChunkTask(accrualDate, dailyRate, chunkBoundaries, middle, toChunk).compute();
+            return lower.join().merge(upper);
+        }
+    }
+
+    private static class ChunkResult {
+
+        private long chunks;
+
+        private long accountsAccrued;
+
+        private ChunkResult merge(ChunkResult other) {
+            chunks += other.chunks;
+            accountsAccrued += other.accountsAccrued;
+            return this;
+        }
+    }
+}
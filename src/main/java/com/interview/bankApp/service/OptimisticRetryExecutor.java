@@ -0,0 +1,138 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.model.AccountContention;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class executes operations that modify versioned accounts and retries them, with a randomized exponential backoff,
+ * when another writer has changed one of the accounts in the meantime. The conflicts are counted per account, for the
+ * {@code bankApp.retry.max-tracked-accounts} accounts with the most recent conflicts, the counters of the others are dropped.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private static final long MAX_BACKOFF_MILLIS = 1000L;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final int maxTrackedAccounts;
+
+    /**
+     * Counters of the tracked accounts, in the order of their last conflict
+     */
+    private final LinkedHashMap<Long, ContentionCounters> contention = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public OptimisticRetryExecutor(@Value("${bankApp.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${bankApp.retry.initial-backoff-millis:5}") long initialBackoffMillis,
+                                   @Value("${bankApp.retry.max-tracked-accounts:10000}") int maxTrackedAccounts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxTrackedAccounts = Math.max(1, maxTrackedAccounts);
+    }
+
+    /**
+     * This method runs the operation and retries it when an optimistic locking conflict is detected
+     * @param operation - operation that runs in its own database transaction
+     * @param accountIds - ids of the accounts modified by the operation, used for the conflict counters
+     * @return the result of the operation
+     * @throws E - the exception thrown by the operation
+     * @throws OptimisticLockingFailureException - if the operation still conflicts after the last attempt
+     */
+    public <T, E extends Exception> T execute(RetryableOperation<T, E> operation, long... accountIds) throws E {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.run();
+            } catch (OptimisticLockingFailureException olfe) {
+                boolean lastAttempt = attempt >= maxAttempts;
+                for (long accountId : accountIds) {
+                    ContentionCounters counters = counters(accountId);
+                    counters.conflicts.increment();
+                    if (lastAttempt)
+                        counters.failures.increment();
+                    else
+                        counters.retries.increment();
+                }
+                if (lastAttempt) {
+                    logger.error("Optimistic locking conflict was not resolved after " + attempt + " attempts", olfe);
+                    throw olfe;
+                }
+                backoff(attempt, olfe);
+            }
+        }
+    }
+
+    /**
+     * This method returns the optimistic locking statistics of every account that had at least one conflict,
+     * the most contended accounts first
+     * @return {@code List<AccountContention>}
+     */
+    public List<AccountContention> getContention() {
+        List<AccountContention> contentionList = new ArrayList<>();
+        synchronized (this) {
+            contention.forEach((accountId, counters) -> contentionList.add(AccountContention.builder()
+                    .accountId(accountId)
+                    .conflicts(counters.conflicts.sum())
+                    .retries(counters.retries.sum())
+                    .failures(counters.failures.sum())
+                    .build()));
+        }
+        contentionList.sort(Comparator.comparingLong(AccountContention::getConflicts).reversed());
+        return contentionList;
+    }
+
+    /**
+     * Returns the counters of an account, tracking it if needed, and evicts the accounts without a recent conflict
+     */
+    private synchronized ContentionCounters counters(long accountId) {
+        ContentionCounters counters = contention.get(accountId);
+        if (counters != null)
+            return counters;
+        counters = new ContentionCounters();
+        contention.put(accountId, counters);
+        Iterator<ContentionCounters> eldest = contention.values().iterator();
+        while (contention.size() > maxTrackedAccounts && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+        return counters;
+    }
+
+    private void backoff(int attempt, OptimisticLockingFailureException olfe) {
+        long maxBackoff = Math.min(MAX_BACKOFF_MILLIS, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxBackoff) + 1);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw olfe;
+        }
+    }
+
+    private static final class ContentionCounters {
+
+        private final LongAdder conflicts = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+    }
+}
@@ -0,0 +1,157 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the recent transactions of every account, holding the transaction ids bucketed by hour.
+ * It is updated as postings commit and keeps only the last {@code bankApp.activity.retention-hours} hours.
+ * The index of an account is built from the database on its first access, so nothing is loaded at startup.
+ * @author Adrian
+ * @version 1.0
+ */
+@Component
+public class RecentActivityIndex {
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    private final long retentionHours;
+
+    private final ConcurrentHashMap<Long, AccountActivity> accounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RecentActivityIndex(@Value("${bankApp.activity.retention-hours:48}") long retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * @param from - the earliest transaction date of a query
+     * @return {@code boolean} - true if the transactions made since {@code from} are all held by the index
+     */
+    public boolean covers(LocalDateTime from) {
+        return !from.isBefore(windowStart());
+    }
+
+    /**
+     * @param accountId - the account id
+     * @return {@code boolean} - true if the index of the account was already built
+     */
+    public boolean isLoaded(long accountId) {
+        AccountActivity activity = accounts.get(accountId);
+        return activity != null && activity.loaded;
+    }
+
+    /**
+     * This method returns the ids of the transactions of an account made at or after {@code from},
+     * building the index of the account from the database if this is its first access
+     * @param accountId - the id of the account that owns the transactions
+     * @param from - the earliest transaction date, it has to be {@link #covers(LocalDateTime) covered} by the index
+     * @return {@code List<Long>}
+     */
+    public List<Long> getTransactionIdsSince(long accountId, LocalDateTime from) {
+        AccountActivity activity = accounts.computeIfAbsent(accountId, id -> new AccountActivity());
+        if (!activity.loaded)
+            load(accountId, activity);
+        return activity.getTransactionIdsSince(from);
+    }
+
+    /**
+     * Adds the committed transactions to the index of the accounts that are already loaded (or being loaded)
+     * @param event - the posting event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        LocalDateTime windowStart = windowStart();
+        for (Transaction transaction : event.getTransactions()) {
+            if (transaction.getAccount() == null || transaction.getTransactionDate().isBefore(windowStart))
+                continue;
+            AccountActivity activity = accounts.get(transaction.getAccount().getAccountId());
+            if (activity != null)
+                activity.add(transaction.getTransactionId(), transaction.getTransactionDate());
+        }
+    }
+
+    /**
+     * Drops the index of a deleted account
+     * @param event - the account event
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getAccount() == null)
+            accounts.remove(event.getAccountId());
+    }
+
+    /**
+     * This method removes the hourly buckets that fell out of the retention window
+     */
+    @Scheduled(fixedDelayString = "${bankApp.activity.prune-interval-millis:600000}")
+    public void prune() {
+        LocalDateTime windowStart = windowStart();
+        accounts.values().forEach(activity -> activity.prune(windowStart));
+    }
+
+    private void load(long accountId, AccountActivity activity) {
+        synchronized (activity.loadLock) {
+            if (activity.loaded)
+                return;
+            // the entry already receives the postings committed from now on, the query returns the ones committed before
+            for (Object[] row : transactionRepository.findAccountTransactionDatesSince(accountId, windowStart()))
+                activity.add((Long) row[0], (LocalDateTime) row[1]);
+            activity.loaded = true;
+        }
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusHours(retentionHours);
+    }
+
+    private static final class AccountActivity {
+
+        private final Object loadLock = new Object();
+
+        private volatile boolean loaded;
+
+        private final TreeMap<LocalDateTime, Map<Long, LocalDateTime>> hours = new TreeMap<>();
+
+        private synchronized void add(long transactionId, LocalDateTime transactionDate) {
+            hours.computeIfAbsent(transactionDate.truncatedTo(ChronoUnit.HOURS), hour -> new HashMap<>())
+                    .put(transactionId, transactionDate);
+        }
+
+        private synchronized List<Long> getTransactionIdsSince(LocalDateTime from) {
+            List<Long> transactionIds = new ArrayList<>();
+            NavigableMap<LocalDateTime, Map<Long, LocalDateTime>> recentHours = hours.tailMap(from.truncatedTo(ChronoUnit.HOURS), true);
+            for (Map<Long, LocalDateTime> hour : recentHours.values()) {
+                hour.forEach((transactionId, transactionDate) -> {
+                    if (!transactionDate.isBefore(from))
+                        transactionIds.add(transactionId);
+                });
+            }
+            return transactionIds;
+        }
+
+        private synchronized void prune(LocalDateTime windowStart) {
+            hours.headMap(windowStart.truncatedTo(ChronoUnit.HOURS)).clear();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.model.ReconciliationMismatch;
+import com.interview.bankApp.model.ReconciliationReport;
+import com.interview.bankApp.model.ReconciliationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This service reconciles every account: its value has to equal its opening balance plus the received minus the sent transactions.
+ * The accounts are split into partitions of {@code bankApp.reconciliation.partition-size} accounts that are checked in parallel
+ * on a fork-join pool. The partition boundaries are taken from the stored account ids with a keyset walk, so sparse ids do not
+ * produce empty partitions. Every range is read by a single streamed query, so the memory used does not depend on the number of accounts
+ * and the account values and transaction sums of a range are read consistently.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class ReconciliationService {
+
+    static final int FETCH_SIZE = 1000;
+
+    static final String SELECT_ACCOUNT_RANGE = "select a.account_id, a.account_value, a.opening_balance"
+            + " + coalesce((select sum(t.receiver_amount) from transaction t where t.receiver_account_id = a.account_id), 0)"
+            + " - coalesce((select sum(t.sender_amount) from transaction t where t.account_id = a.account_id), 0)"
+            + " from account a where a.account_id >= ? and a.account_id < ?";
+
+    static final String SELECT_NEXT_PARTITION_START = "select account_id from account where account_id >= ? order by account_id limit 1 offset ?";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final long partitionSize;
+
+    private final int maxReportedMismatches;
+
+    private final ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile ReconciliationReport lastReport;
+
+    @Autowired
+    public ReconciliationService(@Value("${bankApp.reconciliation.partition-size:100000}") long partitionSize,
+                                 @Value("${bankApp.reconciliation.parallelism:0}") int parallelism,
+                                 @Value("${bankApp.reconciliation.max-reported-mismatches:1000}") int maxReportedMismatches) {
+        this.partitionSize = partitionSize;
+        this.maxReportedMismatches = maxReportedMismatches;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method starts the nightly reconciliation in the background, unless a reconciliation is already running
+     */
+    @Scheduled(cron = "${bankApp.reconciliation.cron:0 30 0 * * *}")
+    public void scheduledReconciliation() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("The previous reconciliation is still running, this one is skipped");
+            return;
+        }
+        lastReport = ReconciliationReport.builder().status(ReconciliationStatus.RUNNING).startedAt(LocalDateTime.now()).build();
+        pool.execute(() -> {
+            try {
+                lastReport = reconcile();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return {@code ReconciliationReport} - the running or the last completed reconciliation, or null if none ran yet
+     */
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * This method reconciles all the accounts and waits for the result
+     * @return {@code ReconciliationReport}
+     */
+    ReconciliationReport reconcile() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startTime = System.nanoTime();
+        try {
+            List<Long> partitionBoundaries = partitionBoundaries();
+            RangeResult result = partitionBoundaries.size() < 2
+                    ? new RangeResult()
+                    : pool.invoke(new RangeTask(partitionBoundaries, 0, partitionBoundaries.size() - 1));
+            long durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+            logger.info("Reconciled " + result.accountsChecked + " accounts in " + result.partitions + " partitions and "
+                    + durationMillis + " ms, " + result.mismatchCount + " mismatches");
+            return ReconciliationReport.builder()
+                    .status(ReconciliationStatus.COMPLETED)
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis(durationMillis)
+                    .partitions(result.partitions)
+                    .accountsChecked(result.accountsChecked)
+                    .mismatchCount(result.mismatchCount)
+                    .accountsPerSecond(durationMillis == 0 ? result.accountsChecked : result.accountsChecked * 1000.0 / durationMillis)
+                    .mismatches(result.mismatches)
+                    .build();
+        } catch (RuntimeException re) {
+            logger.error("Reconciliation failed", re);
+            return ReconciliationReport.builder()
+                    .status(ReconciliationStatus.FAILED)
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis((System.nanoTime() - startTime) / 1_000_000)
+                    .message(re.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * This method walks the account ids in order and takes every {@code partitionSize}-th id as the start of a partition
+     * @return {@code List<Long>} - the start of every partition followed by the end of the last one, empty if there are no accounts
+     */
+    private List<Long> partitionBoundaries() {
+        List<Long> partitionBoundaries = new ArrayList<>();
+        Long firstAccountId = jdbcTemplate.queryForObject("select min(account_id) from account", Long.class);
+        Long lastAccountId = jdbcTemplate.queryForObject("select max(account_id) from account", Long.class);
+        if (firstAccountId == null || lastAccountId == null)
+            return partitionBoundaries;
+        for (Long partitionStart = firstAccountId; partitionStart != null; ) {
+            partitionBoundaries.add(partitionStart);
+            List<Long> nextPartitionStart = jdbcTemplate.queryForList(SELECT_NEXT_PARTITION_START, Long.class, partitionStart, partitionSize);
+            partitionStart = nextPartitionStart.isEmpty() ? null : nextPartitionStart.get(0);
+        }
+        partitionBoundaries.add(lastAccountId + 1);
+        return partitionBoundaries;
+    }
+
+    private RangeResult reconcileRange(long fromAccountId, long toAccountId) {
+        RangeResult result = new RangeResult();
+        result.partitions = 1;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ACCOUNT_RANGE);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, fromAccountId);
+            statement.setLong(2, toAccountId);
+            return statement;
+        }, resultSet -> {
+            result.accountsChecked++;
+            long accountValue = resultSet.getLong(2);
+            long expectedValue = resultSet.getLong(3);
+            if (accountValue != expectedValue) {
+                result.mismatchCount++;
+                if (result.mismatches.size() < maxReportedMismatches)
+                    result.mismatches.add(ReconciliationMismatch.builder()
+                            .accountId(resultSet.getLong(1))
+                            .accountValue(accountValue)
+                            .expectedValue(expectedValue)
+                            .build());
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Reconciles the partitions {@code [fromPartition, toPartition)}, partition {@code i} holds the account ids in
+     * {@code [partitionBoundaries[i], partitionBoundaries[i + 1])}. The partitions are split in halves until a single one is left.
+     */
+    private class RangeTask extends RecursiveTask<RangeResult> {
+
+        private final List<Long> partitionBoundaries;
+
+        private final int fromPartition;
+
+        private final int toPartition;
+
+        private RangeTask(List<Long> partitionBoundaries, int fromPartition, int toPartition) {
+            this.partitionBoundaries = partitionBoundaries;
+            this.fromPartition = fromPartition;
+            this.toPartition = toPartition;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            if (toPartition - fromPartition == 1)
+                return reconcileRange(partitionBoundaries.get(fromPartition), partitionBoundaries.get(toPartition));
+            int middle = fromPartition + (toPartition - fromPartition) / 2;
+            RangeTask lower = new RangeTask(partitionBoundaries, fromPartition, middle);
+            lower.fork();
+            RangeResult upper = new RangeTask(partitionBoundaries, middle, toPartition).compute();
+            return lower.join().merge(upper, maxReportedMismatches);
+        }
+    }
+
+    private static class RangeResult {
+
+        private long partitions;
+
+        private long accountsChecked;
+
+        private long mismatchCount;
+
+        private List<ReconciliationMismatch> mismatches = new ArrayList<>();
+
+        private RangeResult merge(RangeResult other, int maxReportedMismatches) {
+            partitions += other.partitions;
+            accountsChecked += other.accountsChecked;
+            mismatchCount += other.mismatchCount;
+            for (ReconciliationMismatch mismatch : other.mismatches) {
+                if (mismatches.size() >= maxReportedMismatches)
+                    break;
+                mismatches.add(mismatch);
+            }
+            return this;
+        }
+    }
+}
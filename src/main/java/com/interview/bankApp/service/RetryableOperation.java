@@ -0,0 +1,12 @@
+package com.interview.bankApp.service;
+
+/**
+ * Operation that can be executed again by the {@link OptimisticRetryExecutor} after an optimistic locking conflict
+ * @param <T> - result of the operation
+ * @param <E> - checked exception thrown by the operation
+ */
+@FunctionalInterface
+public interface RetryableOperation<T, E extends Exception> {
+
+    T run() throws E;
+}
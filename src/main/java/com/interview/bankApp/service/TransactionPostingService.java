@@ -0,0 +1,223 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.CurrencyConversionException;
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.fx.FxRateService;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.model.TransactionResultStatus;
+import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This is the posting engine for transactions. Every transaction is applied exactly once as a debit on the sender
+ * and a credit on the receiver, so the cost of a transfer stays constant regardless of the account history.
+ * @author Adrian
+ * @version 1.0
+ */
+@Service
+public class TransactionPostingService {
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    FxRateService fxRateService;
+
+    @Autowired
+    BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * This method posts a new transaction: debits the sender, credits the receiver and stores the transaction.
+     * Everything is done in a single database transaction, so a failed leg leaves no partial update behind.
+     * The checkpoints are checked once both accounts are updated, so a concurrent posting that takes one conflicts with this one on the account rows.
+     * The transaction is inserted, never merged, so a concurrent posting of the same id fails on the primary key.
+     * @param transaction - the new transaction
+     * @throws AccountNotFoundException - if the sender or the receiver account is not found
+     * @throws InvalidTransactionException - if the transaction id already exists, or the transaction is dated at or before the latest
+     * balance checkpoint of one of the accounts
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void post(Transaction transaction) throws AccountNotFoundException {
+        if (transactionRepository.existsById(transaction.getTransactionId()))
+            throw new InvalidTransactionException("Transaction with ID = " + transaction.getTransactionId() + " already exists");
+        Account senderAccount = accountService.accountValueUpdateSender(transaction);
+        Account receiverAccount = accountService.accountValueUpdateReceiver(transaction);
+        for (Account account : new Account[]{senderAccount, receiverAccount}) {
+            String rejectionReason = checkpointRejection(transaction, account);
+            if (rejectionReason != null)
+                throw new InvalidTransactionException(rejectionReason);
+        }
+        transaction.setAccount(senderAccount);
+        transaction.setReceiverAccount(receiverAccount);
+        entityManager.persist(transaction);
+        applicationEventPublisher.publishEvent(new TransactionPostedEvent(Collections.singletonList(transaction), Arrays.asList(senderAccount, receiverAccount)));
+    }
+
+    /**
+     * This method posts a batch of transactions in a single database transaction. The touched accounts are loaded once,
+     * the balance changes are applied to them in memory, so every account row is written once when the batch is committed,
+     * and the new transactions are inserted using JDBC batching. Invalid transactions are rejected without aborting the batch.
+     * @param transactions - the transactions of the batch, applied in order
+     * @param accountNumbers - the account numbers of all the senders and receivers of the batch
+     * @return {@code List<TransactionResult>} - the result of every transaction, in the same order
+     */
+    @Transactional
+    public List<TransactionResult> postBatch(List<Transaction> transactions, Collection<String> accountNumbers) {
+        Map<String, Account> accounts = new HashMap<>();
+        accountRepository.findByAccountNumberIn(accountNumbers).forEach(account -> accounts.put(account.getAccountNumber(), account));
+
+        Set<Long> transactionIds = new HashSet<>();
+        transactions.forEach(transaction -> transactionIds.add(transaction.getTransactionId()));
+        Set<Long> usedTransactionIds = new HashSet<>(transactionRepository.findExistingTransactionIds(transactionIds));
+
+        List<TransactionResult> results = new ArrayList<>(transactions.size());
+        List<Transaction> postedTransactions = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            String rejectionReason = validate(transaction, accounts, usedTransactionIds);
+            if (rejectionReason != null) {
+                results.add(result(transaction, TransactionResultStatus.REJECTED, rejectionReason));
+                continue;
+            }
+            Account senderAccount = accounts.get(transaction.getTransactionSender());
+            Account receiverAccount = accounts.get(transaction.getTransactionReceiver());
+            senderAccount.setAccountValue(Math.subtractExact(senderAccount.getAccountValue(), transaction.getSenderAmount()));
+            receiverAccount.setAccountValue(Math.addExact(receiverAccount.getAccountValue(), transaction.getReceiverAmount()));
+            transaction.setAccount(senderAccount);
+            transaction.setReceiverAccount(receiverAccount);
+            entityManager.persist(transaction);
+            usedTransactionIds.add(transaction.getTransactionId());
+            postedTransactions.add(transaction);
+            results.add(result(transaction, TransactionResultStatus.ACCEPTED, null));
+        }
+        if (!postedTransactions.isEmpty())
+            applicationEventPublisher.publishEvent(new TransactionPostedEvent(postedTransactions, accounts.values()));
+        return results;
+    }
+
+    /**
+     * This method stores transactions that were already applied by the transfer pipeline in a single database transaction.
+     * The net amount of the batch is added to every touched account, so a change made to an account row outside the
+     * pipeline is kept, and a concurrent change fails the batch on the account version. A transaction whose id is already
+     * stored, or whose sender or receiver account does not exist anymore, is rejected, the rest of the batch is stored.
+     * @param transactions - the accepted transactions, their {@code account} and {@code receiverAccount} hold the ids of the sender and receiver accounts
+     * @return {@code List<TransactionResult>} - the results of the rejected transactions, empty if the whole batch was stored
+     */
+    @Transactional
+    public List<TransactionResult> persistPosted(List<Transaction> transactions) {
+        Set<Long> transactionIds = new HashSet<>();
+        Set<Long> accountIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            transactionIds.add(transaction.getTransactionId());
+            accountIds.add(transaction.getAccount().getAccountId());
+            accountIds.add(transaction.getReceiverAccount().getAccountId());
+        }
+        Set<Long> usedTransactionIds = new HashSet<>(transactionRepository.findExistingTransactionIds(transactionIds));
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllById(accountIds).forEach(account -> accounts.put(account.getAccountId(), account));
+
+        List<Transaction> postedTransactions = new ArrayList<>(transactions.size());
+        List<TransactionResult> rejections = new ArrayList<>();
+        Map<Long, Long> netAmounts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            long senderAccountId = transaction.getAccount().getAccountId();
+            long receiverAccountId = transaction.getReceiverAccount().getAccountId();
+            if (usedTransactionIds.contains(transaction.getTransactionId())) {
+                rejections.add(result(transaction, TransactionResultStatus.REJECTED, "Transaction with ID = " + transaction.getTransactionId() + " already exists"));
+                continue;
+            }
+            if (!accounts.containsKey(senderAccountId) || !accounts.containsKey(receiverAccountId)) {
+                long missingAccountId = accounts.containsKey(senderAccountId) ? receiverAccountId : senderAccountId;
+                rejections.add(result(transaction, TransactionResultStatus.REJECTED, "Account with ID = " + missingAccountId + " was not found"));
+                continue;
+            }
+            netAmounts.merge(senderAccountId, -transaction.getSenderAmount(), Math::addExact);
+            netAmounts.merge(receiverAccountId, transaction.getReceiverAmount(), Math::addExact);
+            transaction.setAccount(accounts.get(senderAccountId));
+            transaction.setReceiverAccount(accounts.get(receiverAccountId));
+            postedTransactions.add(transaction);
+        }
+        List<Account> touchedAccounts = new ArrayList<>(netAmounts.size());
+        netAmounts.forEach((accountId, netAmount) -> {
+            Account account = accounts.get(accountId);
+            account.setAccountValue(Math.addExact(account.getAccountValue(), netAmount));
+            touchedAccounts.add(account);
+        });
+        postedTransactions.forEach(entityManager::persist);
+        if (!postedTransactions.isEmpty())
+            applicationEventPublisher.publishEvent(new TransactionPostedEvent(postedTransactions, touchedAccounts));
+        return rejections;
+    }
+
+    private String validate(Transaction transaction, Map<String, Account> accounts, Set<Long> usedTransactionIds) {
+        if (transaction.getTransactionId() <= 0)
+            return "Transaction ID should be positive";
+        if (usedTransactionIds.contains(transaction.getTransactionId()))
+            return "Transaction with ID = " + transaction.getTransactionId() + " already exists";
+        if (transaction.getTransactionValue() <= 0)
+            return "Transaction value should be positive";
+        if (transaction.getTransactionDate() == null || transaction.getTransactionCurrency() == null)
+            return "Transaction date and currency are mandatory";
+        Account senderAccount = accounts.get(transaction.getTransactionSender());
+        if (senderAccount == null)
+            return "Account with account number = " + transaction.getTransactionSender() + " was not found";
+        Account receiverAccount = accounts.get(transaction.getTransactionReceiver());
+        if (receiverAccount == null)
+            return "Account with account number = " + transaction.getTransactionReceiver() + " was not found";
+        try {
+            transaction.setSenderAmount(fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), senderAccount.getAccountCurrency()));
+            transaction.setReceiverAmount(fxRateService.convert(transaction.getTransactionValue(), transaction.getTransactionCurrency(), receiverAccount.getAccountCurrency()));
+        } catch (CurrencyConversionException cce) {
+            return cce.getMessage();
+        }
+        if (transaction.getSenderAmount() > senderAccount.getAccountValue())
+            return "The account with account number = " + senderAccount.getAccountNumber() + " has insufficient funds";
+        String rejectionReason = checkpointRejection(transaction, senderAccount);
+        return rejectionReason != null ? rejectionReason : checkpointRejection(transaction, receiverAccount);
+    }
+
+    private String checkpointRejection(Transaction transaction, Account account) {
+        if (balanceCheckpointService.isCheckpointed(account.getAccountId(), transaction.getTransactionDate(), transaction.getTransactionId()))
+            return "The transaction is dated at or before the last balance checkpoint of the account with account number = " + account.getAccountNumber();
+        return null;
+    }
+
+    private TransactionResult result(Transaction transaction, TransactionResultStatus status, String message) {
+        return TransactionResult.builder()
+                .transactionId(transaction.getTransactionId())
+                .status(status.toString())
+                .message(message)
+                .build();
+    }
+}
@@ -1,29 +1,118 @@
 package com.interview.bankApp.service;
 
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.exception.InvalidTransactionException;
 import com.interview.bankApp.exception.TransactionNotFoundException;
-import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.CursorPage;
 import com.interview.bankApp.model.Transaction;
-import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.model.TransactionResultStatus;
+import com.interview.bankApp.model.TransactionRow;
+import com.interview.bankApp.pipeline.TransferPipeline;
 import com.interview.bankApp.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
 
+    private static final String OPTIMISTIC_MODE = "optimistic";
+
     @Autowired
     TransactionRepository transactionRepository;
 
     @Autowired
-    AccountRepository accountRepository;
+    TransactionPostingService transactionPostingService;
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    AccountLockManager accountLockManager;
+
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired(required = false)
+    TransferPipeline transferPipeline;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
 
-    public List<Transaction> getAllTransactions(){
-        List<Transaction> transactionList = new ArrayList<>();
-        transactionRepository.findAll().forEach(transactionList::add);
-        return transactionList;
+    @Value("${bankApp.transactions.mode:locking}")
+    String transactionsMode;
+
+    /**
+     * This method returns one page of the transactions in {@code (transactionDate, transactionId)} order
+     * @param limit - the page size, between 1 and {@link CursorPage#MAX_LIMIT}
+     * @param after - the {@code next} cursor of the previous page, {@code null} for the first page
+     * @return {@code CursorPage<TransactionRow>}
+     * @throws InvalidInputException - if the limit is out of range or the cursor is malformed
+     */
+    public CursorPage<TransactionRow> getTransactions(int limit, String after) throws InvalidInputException {
+        Pageable pageable = CursorPage.firstRows(limit);
+        List<TransactionRow> rows;
+        if (after == null) {
+            rows = transactionRepository.findFirstTransactions(pageable);
+        } else {
+            TransactionCursor cursor = CursorPage.decodeTransactionCursor(after);
+            rows = transactionRepository.findTransactionsAfter(cursor.getTransactionDate(), cursor.getTransactionId(), pageable);
+        }
+        return CursorPage.of(rows, limit, TransactionCursor::encode);
+    }
+
+    /**
+     * This method writes all the transactions as newline-delimited JSON, one transaction per line.
+     * The table is read as a stream and the persistence context is cleared after every fetched block of rows,
+     * so the memory used does not depend on the number of transactions.
+     * @param outputStream - where the transactions are written, it is not closed
+     * @return {@code long} - the number of exported transactions
+     * @throws IOException - if the output stream cannot be written
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamAllTransactions();
+             SequenceWriter writer = objectMapper.writerFor(Transaction.class)
+                     .withRootValueSeparator("\n")
+                     .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .writeValues(outputStream)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++exported % TransactionRepository.STREAM_FETCH_SIZE == 0)
+                    entityManager.clear();
+            }
+        }
+        if (exported > 0)
+            outputStream.write('\n');
+        return exported;
     }
 
     public Transaction getTransactionById(long id) throws TransactionNotFoundException {
@@ -34,19 +123,80 @@ public class TransactionService {
     }
 
     /**
-     * This method creates a transaction and also updates the {@code accountValues} for the sender and receiver
+     * This method creates a transaction and also updates the {@code accountValues} for the sender and receiver.
+     * The sender and receiver accounts stay locked until the posting is committed, so concurrent transfers on the same
+     * account cannot lose updates, while transfers on unrelated accounts run in parallel.
+     * In the optimistic mode no lock is taken and the posting is retried if one of the accounts was changed concurrently.
+     * When the ring buffer mode is enabled the transaction is only published in the {@code TransferPipeline}.
      * @param transaction
+     * @return {@code CompletableFuture<Void>} - the outcome of the transaction, already completed unless the ring buffer mode
+     * is enabled, see {@link TransferPipeline#submit(Transaction)}
+     * @throws AccountNotFoundException - if the sender or the receiver account is not found
+     * @throws InvalidTransactionException - if the transaction id or value is not positive, or the transaction id already exists
      */
-    public void createTransaction(Transaction transaction) {
-        transactionRepository.save(transaction);
-
-        Account transactionSenderAccount = accountRepository.findByAccountNumber(transaction.getTransactionSender());
-        transactionSenderAccount.getTransactions().add(transaction);
-        accountRepository.save(transactionSenderAccount);
+    public CompletableFuture<Void> createTransaction(Transaction transaction) throws AccountNotFoundException {
+        if (transaction.getTransactionId() <= 0)
+            throw new InvalidTransactionException("Transaction ID should be positive, " + transaction.getTransactionId() + " was entered");
+        if (transaction.getTransactionValue() <= 0)
+            throw new InvalidTransactionException("Transaction value should be positive, " + transaction.getTransactionValue() + " was entered");
+        if (transferPipeline != null)
+            return transferPipeline.submit(transaction);
+        long senderAccountId = accountService.getAccountIdByAccountNumber(transaction.getTransactionSender());
+        long receiverAccountId = accountService.getAccountIdByAccountNumber(transaction.getTransactionReceiver());
+        RetryableOperation<Void, AccountNotFoundException> posting = () -> {
+            try {
+                transactionPostingService.post(transaction);
+            } catch (DataIntegrityViolationException dive) {
+                // a concurrent posting stored the same id after the check of this one
+                if (transactionRepository.existsById(transaction.getTransactionId()))
+                    throw new InvalidTransactionException("Transaction with ID = " + transaction.getTransactionId() + " already exists");
+                throw dive;
+            }
+            return null;
+        };
+        if (OPTIMISTIC_MODE.equals(transactionsMode)) {
+            optimisticRetryExecutor.execute(posting, senderAccountId, receiverAccountId);
+            return CompletableFuture.completedFuture(null);
+        }
+        try (AccountLockManager.AccountLocks locks = accountLockManager.lock(senderAccountId, receiverAccountId)) {
+            optimisticRetryExecutor.execute(posting, senderAccountId, receiverAccountId);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
 
-        Account transactionReceiverAccount = accountRepository.findByAccountNumber(transaction.getTransactionReceiver());
-        transactionReceiverAccount.getTransactions().add(transaction);
-        accountRepository.save(transactionReceiverAccount);
+    /**
+     * This method creates a batch of transactions. All the accounts touched by the batch are locked, every transaction is
+     * validated on its own and the valid ones are posted in a single database transaction.
+     * When the ring buffer mode is enabled the transactions are only published in the {@code TransferPipeline}.
+     * @param transactions - the transactions of the batch, applied in order
+     * @return {@code List<TransactionResult>} - the result of every transaction, in the same order
+     */
+    public List<TransactionResult> createTransactions(List<Transaction> transactions) {
+        if (transferPipeline != null) {
+            List<TransactionResult> results = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                transferPipeline.submit(transaction);
+                results.add(TransactionResult.builder()
+                        .transactionId(transaction.getTransactionId())
+                        .status(TransactionResultStatus.QUEUED.toString())
+                        .build());
+            }
+            return results;
+        }
+        Set<String> accountNumbers = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getTransactionSender() != null)
+                accountNumbers.add(transaction.getTransactionSender());
+            if (transaction.getTransactionReceiver() != null)
+                accountNumbers.add(transaction.getTransactionReceiver());
+        }
+        List<Long> accountIds = accountService.getAccountIdsByAccountNumbers(accountNumbers);
+        long[] lockedAccountIds = new long[accountIds.size()];
+        for (int i = 0; i < lockedAccountIds.length; i++)
+            lockedAccountIds[i] = accountIds.get(i);
+        try (AccountLockManager.AccountLocks locks = accountLockManager.lock(lockedAccountIds)) {
+            return optimisticRetryExecutor.execute(() -> transactionPostingService.postBatch(transactions, accountNumbers), lockedAccountIds);
+        }
     }
 
     public void deleteTransactionById(long id) { transactionRepository.deleteById(id);}
@@ -0,0 +1,7 @@
+-- Adds the opening balance of the accounts, derived from their current values and transactions, so that existing accounts reconcile.
+-- Run it once after transaction-receiver-account.sql, before starting the new version of the application.
+ALTER TABLE account ADD COLUMN IF NOT EXISTS opening_balance BIGINT;
+UPDATE account a SET opening_balance = a.account_value
+    - COALESCE((SELECT SUM(t.transaction_value) FROM transaction t WHERE t.receiver_account_id = a.account_id), 0)
+    + COALESCE((SELECT SUM(t.transaction_value) FROM transaction t WHERE t.account_id = a.account_id), 0);
+ALTER TABLE account ALTER COLUMN opening_balance SET NOT NULL;
@@ -0,0 +1,37 @@
+-- Creates the daily_rollup table on databases created before it was declared and fills it from the existing transactions.
+-- Run it once, before starting the new version of the application; the rollups are maintained by the postings from then on.
+CREATE TABLE IF NOT EXISTS daily_rollup (
+    account_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    debit_total BIGINT NOT NULL,
+    credit_total BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    min_transaction_value BIGINT NOT NULL,
+    max_transaction_value BIGINT NOT NULL,
+    closing_balance BIGINT NOT NULL,
+    PRIMARY KEY (account_id, rollup_date)
+);
+
+-- every transaction is a debit of its sender and a credit of its receiver, a transfer of an account to itself is one leg moving nothing
+CREATE TEMPORARY TABLE rollup_leg AS
+    SELECT t.account_id AS account_id, CAST(t.transaction_date AS DATE) AS rollup_date,
+           CASE WHEN s.account_number = t.transaction_receiver THEN 0 ELSE t.transaction_value END AS debit, 0 AS credit,
+           t.transaction_value AS transaction_value
+    FROM transaction t JOIN account s ON s.account_id = t.account_id
+    UNION ALL
+    SELECT a.account_id, CAST(t.transaction_date AS DATE), 0, t.transaction_value, t.transaction_value
+    FROM transaction t JOIN account a ON a.account_number = t.transaction_receiver
+    WHERE a.account_id <> t.account_id;
+
+-- the closing balance of a day is the current value minus the net amount of the later days
+INSERT INTO daily_rollup (account_id, rollup_date, debit_total, credit_total, transaction_count,
+                          min_transaction_value, max_transaction_value, closing_balance)
+    SELECT l.account_id, l.rollup_date, SUM(l.debit), SUM(l.credit), COUNT(*), MIN(l.transaction_value), MAX(l.transaction_value),
+           (SELECT a.account_value FROM account a WHERE a.account_id = l.account_id)
+               - (SELECT COALESCE(SUM(later.credit - later.debit), 0) FROM rollup_leg later
+                  WHERE later.account_id = l.account_id AND later.rollup_date > l.rollup_date)
+    FROM rollup_leg l
+    WHERE NOT EXISTS (SELECT 1 FROM daily_rollup r WHERE r.account_id = l.account_id AND r.rollup_date = l.rollup_date)
+    GROUP BY l.account_id, l.rollup_date;
+
+DROP TABLE rollup_leg;
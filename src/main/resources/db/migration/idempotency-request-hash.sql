@@ -0,0 +1,3 @@
+-- Adds the hash of the request to the idempotency records of databases created before it was declared.
+-- The records stored before have no hash, their keys are answered without comparing the requests.
+ALTER TABLE idempotency_record ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
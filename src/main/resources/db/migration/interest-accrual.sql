@@ -0,0 +1,16 @@
+-- Creates the tables of the interest accrual job on databases created before they were declared.
+CREATE TABLE IF NOT EXISTS interest_accrual (
+    account_id BIGINT NOT NULL,
+    accrual_date DATE NOT NULL,
+    accrued_value BIGINT NOT NULL,
+    transaction_id BIGINT,
+    PRIMARY KEY (account_id, accrual_date)
+);
+
+CREATE TABLE IF NOT EXISTS interest_accrual_run (
+    accrual_date DATE NOT NULL,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    accounts_accrued BIGINT NOT NULL,
+    PRIMARY KEY (accrual_date)
+);
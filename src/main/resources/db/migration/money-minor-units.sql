@@ -0,0 +1,26 @@
+-- Converts the account and transaction values of an existing database from DOUBLE amounts to BIGINT minor units.
+-- Run it once, before starting the new version of the application, on databases created when the values were stored as DOUBLE.
+-- The multipliers below follow Money.scale: the currencies of java.util.Currency.getAvailableCurrencies() grouped by
+-- getDefaultFractionDigits (0, 3 and 4 decimals, every other currency has 2). MoneyTest checks them against Money.scale.
+
+ALTER TABLE account ADD COLUMN account_value_minor BIGINT;
+UPDATE account SET account_value_minor = ROUND(account_value * CASE
+    WHEN account_currency IN ('ADP', 'BEF', 'BIF', 'BYB', 'BYR', 'CLP', 'DJF', 'ESP', 'GNF', 'GRD', 'ISK', 'ITL', 'JPY', 'KMF', 'KRW',
+        'LUF', 'MGF', 'PTE', 'PYG', 'ROL', 'RWF', 'TPE', 'TRL', 'UGX', 'UYI', 'VND', 'VUV', 'XAF', 'XOF', 'XPF') THEN 1
+    WHEN account_currency IN ('BHD', 'IQD', 'JOD', 'KWD', 'LYD', 'OMR', 'TND') THEN 1000
+    WHEN account_currency IN ('CLF') THEN 10000
+    ELSE 100 END);
+ALTER TABLE account DROP COLUMN account_value;
+ALTER TABLE account ALTER COLUMN account_value_minor RENAME TO account_value;
+ALTER TABLE account ALTER COLUMN account_value SET NOT NULL;
+
+ALTER TABLE transaction ADD COLUMN transaction_value_minor BIGINT;
+UPDATE transaction SET transaction_value_minor = ROUND(transaction_value * CASE
+    WHEN transaction_currency IN ('ADP', 'BEF', 'BIF', 'BYB', 'BYR', 'CLP', 'DJF', 'ESP', 'GNF', 'GRD', 'ISK', 'ITL', 'JPY', 'KMF', 'KRW',
+        'LUF', 'MGF', 'PTE', 'PYG', 'ROL', 'RWF', 'TPE', 'TRL', 'UGX', 'UYI', 'VND', 'VUV', 'XAF', 'XOF', 'XPF') THEN 1
+    WHEN transaction_currency IN ('BHD', 'IQD', 'JOD', 'KWD', 'LYD', 'OMR', 'TND') THEN 1000
+    WHEN transaction_currency IN ('CLF') THEN 10000
+    ELSE 100 END);
+ALTER TABLE transaction DROP COLUMN transaction_value;
+ALTER TABLE transaction ALTER COLUMN transaction_value_minor RENAME TO transaction_value;
+ALTER TABLE transaction ALTER COLUMN transaction_value SET NOT NULL;
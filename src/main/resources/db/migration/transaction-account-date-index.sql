@@ -0,0 +1,2 @@
+-- Adds the index used by the account transaction history queries to databases created before it was declared on Transaction.
+CREATE INDEX IF NOT EXISTS idx_transaction_account_date ON transaction (account_id, transaction_date);
@@ -0,0 +1,8 @@
+-- Creates the registry of the transaction archive segments on databases created before it was declared.
+CREATE TABLE IF NOT EXISTS archived_segment (
+    file_name VARCHAR(255) NOT NULL,
+    archive_date DATE NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    archived_at TIMESTAMP,
+    PRIMARY KEY (file_name)
+);
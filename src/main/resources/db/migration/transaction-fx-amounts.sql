@@ -0,0 +1,8 @@
+-- Adds the amounts debited from the sender and credited to the receiver in their account currencies.
+-- The existing transactions were posted between accounts of the transaction currency, so both amounts are the transaction value.
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS sender_amount BIGINT;
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS receiver_amount BIGINT;
+UPDATE transaction SET sender_amount = transaction_value WHERE sender_amount IS NULL;
+UPDATE transaction SET receiver_amount = transaction_value WHERE receiver_amount IS NULL;
+ALTER TABLE transaction ALTER COLUMN sender_amount SET NOT NULL;
+ALTER TABLE transaction ALTER COLUMN receiver_amount SET NOT NULL;
@@ -0,0 +1,4 @@
+-- Replaces the account history index with the (date, id) keyset indexes used by the paginated transaction listings.
+DROP INDEX IF EXISTS idx_transaction_account_date;
+CREATE INDEX idx_transaction_account_date ON transaction (account_id, transaction_date, transaction_id);
+CREATE INDEX IF NOT EXISTS idx_transaction_date ON transaction (transaction_date, transaction_id);
@@ -0,0 +1,6 @@
+-- Adds the receiver account foreign key of the transactions, fills it from transaction_receiver and indexes it like the sender side.
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS receiver_account_id BIGINT;
+UPDATE transaction t SET receiver_account_id = (SELECT a.account_id FROM account a WHERE a.account_number = t.transaction_receiver)
+    WHERE receiver_account_id IS NULL;
+ALTER TABLE transaction ADD CONSTRAINT IF NOT EXISTS fk_transaction_receiver_account FOREIGN KEY (receiver_account_id) REFERENCES account (account_id);
+CREATE INDEX IF NOT EXISTS idx_transaction_receiver_date ON transaction (receiver_account_id, transaction_date, transaction_id);
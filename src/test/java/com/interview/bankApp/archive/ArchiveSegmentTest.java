@@ -0,0 +1,66 @@
+package com.interview.bankApp.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveSegmentTest {
+
+    private static final LocalDate ARCHIVE_DATE = LocalDate.of(2020, 11, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEveryAccountReadsItsOwnBlock() throws Exception {
+        Path path = directory.resolve(ArchiveSegment.fileName(ARCHIVE_DATE, 1L));
+        LocalDateTime date = ARCHIVE_DATE.atTime(10, 0);
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(path)) {
+            writer.add(1L, true, 5L, date, 1000L, 1000L, 900L, "RON", "1234", "5678");
+            writer.add(1L, true, 6L, date.plusHours(1), 300L, 300L, 300L, "RON", "1234", "1234");
+            writer.add(1L, false, 6L, date.plusHours(1), 300L, 300L, 300L, "RON", "1234", "1234");
+            writer.add(2L, false, 5L, date, 1000L, 1000L, 900L, "RON", "1234", "5678");
+            writer.commit();
+            assertEquals(3L, writer.getRowCount());
+        }
+
+        ArchiveSegment segment = new ArchiveSegment(path, ARCHIVE_DATE);
+        List<ArchivedTransaction> sender = segment.read(1L);
+        assertEquals(2, sender.size());
+        assertEquals(5L, sender.get(0).getTransactionId());
+        assertTrue(sender.get(0).isSent());
+        assertFalse(sender.get(0).isReceived());
+        assertEquals(date, sender.get(0).getTransactionDate());
+        assertEquals(6L, sender.get(1).getTransactionId());
+        assertTrue(sender.get(1).isSent());
+        assertTrue(sender.get(1).isReceived());
+
+        List<ArchivedTransaction> receiver = segment.read(2L);
+        assertEquals(1, receiver.size());
+        assertTrue(receiver.get(0).isReceived());
+        assertEquals(900L, receiver.get(0).getReceiverAmount());
+        assertEquals("5678", receiver.get(0).getTransactionReceiver());
+
+        assertEquals(0, segment.read(3L).size());
+    }
+
+    @Test
+    void testUncommittedSegmentLeavesNoFile() throws Exception {
+        Path path = directory.resolve(ArchiveSegment.fileName(ARCHIVE_DATE, 1L));
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(path)) {
+            writer.add(1L, true, 5L, ARCHIVE_DATE.atStartOfDay(), 1000L, 1000L, 1000L, "RON", "1234", "5678");
+        }
+
+        assertFalse(Files.exists(path));
+        assertEquals(0, Files.list(directory).count());
+    }
+}
@@ -0,0 +1,92 @@
+package com.interview.bankApp.archive;
+
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransactionArchiveTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 11, 2);
+
+    @TempDir
+    Path directory;
+
+    private TransactionArchive transactionArchive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionArchive = new TransactionArchive(true, directory.toString(), 90, "locking");
+        // account 1 sends 1000 on the first day, receives 200 on the second day and sends 50 to itself on the third
+        transactionArchive.publish(segment(FIRST_DAY, writer -> {
+            writer.add(1L, true, 1L, FIRST_DAY.atTime(10, 0), 1000L, 1000L, 1000L, "RON", "1234", "5678");
+            writer.add(2L, false, 1L, FIRST_DAY.atTime(10, 0), 1000L, 1000L, 1000L, "RON", "1234", "5678");
+        }));
+        transactionArchive.publish(segment(FIRST_DAY.plusDays(1), writer -> {
+            writer.add(1L, false, 2L, FIRST_DAY.plusDays(1).atTime(9, 0), 200L, 200L, 200L, "RON", "5678", "1234");
+            writer.add(2L, true, 2L, FIRST_DAY.plusDays(1).atTime(9, 0), 200L, 200L, 200L, "RON", "5678", "1234");
+        }));
+        transactionArchive.publish(segment(FIRST_DAY.plusDays(2), writer -> {
+            writer.add(1L, true, 3L, FIRST_DAY.plusDays(2).atTime(8, 0), 50L, 50L, 50L, "RON", "1234", "1234");
+            writer.add(1L, false, 3L, FIRST_DAY.plusDays(2).atTime(8, 0), 50L, 50L, 50L, "RON", "1234", "1234");
+        }));
+    }
+
+    @Test
+    void testAccountTransactionsArePagedByCursor() {
+        List<TransactionRow> firstPage = transactionArchive.findAccountTransactions(1L, TransactionDirection.BOTH, null, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(1L, firstPage.get(0).getTransactionId());
+        assertEquals(2L, firstPage.get(1).getTransactionId());
+
+        TransactionCursor cursor = new TransactionCursor(firstPage.get(1).getTransactionDate(), firstPage.get(1).getTransactionId());
+        List<TransactionRow> secondPage = transactionArchive.findAccountTransactions(1L, TransactionDirection.BOTH, cursor, 2);
+        assertEquals(1, secondPage.size());
+        assertEquals(3L, secondPage.get(0).getTransactionId());
+
+        assertEquals(2, transactionArchive.findAccountTransactions(1L, TransactionDirection.IN, null, 10).size());
+        assertEquals(2, transactionArchive.findAccountTransactions(1L, TransactionDirection.OUT, null, 10).size());
+    }
+
+    @Test
+    void testSentTransactionsSinceADate() {
+        List<Transaction> transactions = transactionArchive.findSentTransactionsSince(1L, FIRST_DAY.plusDays(1).atStartOfDay());
+
+        assertEquals(1, transactions.size());
+        assertEquals(3L, transactions.get(0).getTransactionId());
+    }
+
+    @Test
+    void testNetAmountBetweenPositions() {
+        LocalDateTime start = FIRST_DAY.atStartOfDay();
+        LocalDateTime end = FIRST_DAY.plusDays(3).atStartOfDay();
+
+        assertEquals(-800L, transactionArchive.netAmountBetween(1L, start, Long.MAX_VALUE, end, Long.MAX_VALUE));
+        assertEquals(800L, transactionArchive.netAmountBetween(2L, start, Long.MAX_VALUE, end, Long.MAX_VALUE));
+        assertEquals(200L, transactionArchive.netAmountBetween(1L, FIRST_DAY.atTime(10, 0), 1L, end, Long.MAX_VALUE));
+        assertEquals(0L, transactionArchive.netAmountBetween(1L, end, Long.MAX_VALUE, start, Long.MAX_VALUE));
+    }
+
+    private ArchiveSegment segment(LocalDate archiveDate, SegmentContent content) throws Exception {
+        Path path = directory.resolve(ArchiveSegment.fileName(archiveDate, 1L));
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(path)) {
+            content.write(writer);
+            writer.commit();
+        }
+        return new ArchiveSegment(path, archiveDate);
+    }
+
+    private interface SegmentContent {
+        void write(ArchiveSegment.Writer writer) throws Exception;
+    }
+}
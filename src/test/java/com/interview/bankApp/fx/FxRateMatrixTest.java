@@ -0,0 +1,86 @@
+package com.interview.bankApp.fx;
+
+import com.interview.bankApp.exception.CurrencyConversionException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FxRateMatrixTest {
+
+    private static FxRateMatrix matrix() throws IOException {
+        return new FxRateMatrix(FxRateService.parse(new BufferedReader(new StringReader(
+                "# quotes against EUR\nEUR,RON,4.97\n\nEUR,JPY,160\nUSD,EUR,0.5\n"))));
+    }
+
+    @Test
+    void testConvertsBetweenMinorUnits() throws IOException {
+        FxRateMatrix matrix = matrix();
+
+        assertEquals(4970L, matrix.convert(1000L, "EUR", "RON"));
+        assertEquals(1600L, matrix.convert(1000L, "EUR", "JPY"));
+    }
+
+    @Test
+    void testDerivesInverseAndCrossRates() throws IOException {
+        FxRateMatrix matrix = matrix();
+
+        assertEquals(1000L, matrix.convert(4970L, "RON", "EUR"));
+        assertEquals(1000L, matrix.convert(1600L, "JPY", "EUR"));
+        assertEquals(32L, matrix.convert(100L, "RON", "JPY"));
+        assertEquals(new BigDecimal("160"), matrix.getRates().get("EUR").get("JPY"));
+    }
+
+    @Test
+    void testRoundsHalfToEven() throws IOException {
+        FxRateMatrix matrix = matrix();
+
+        assertEquals(2L, matrix.convert(5L, "USD", "EUR"));
+        assertEquals(4L, matrix.convert(7L, "USD", "EUR"));
+    }
+
+    @Test
+    void testLongConversionMatchesDecimalConversion() throws IOException {
+        FxRateMatrix matrix = matrix();
+        BigDecimal ronToEur = matrix.getRates().get("RON").get("EUR");
+        long[] amounts = {1L, 3L, 5L, 497L, 12345L, 987654321L, 123456789012345L, Long.MAX_VALUE / 10};
+
+        for (long amount : amounts) {
+            assertEquals(BigDecimal.valueOf(amount).multiply(ronToEur).setScale(0, RoundingMode.HALF_EVEN).longValueExact(),
+                    matrix.convert(amount, "RON", "EUR"));
+            assertEquals(BigDecimal.valueOf(amount / 10).multiply(new BigDecimal("4.97")).setScale(0, RoundingMode.HALF_EVEN).longValueExact(),
+                    matrix.convert(amount / 10, "EUR", "RON"));
+        }
+        assertEquals(-2L, matrix.convert(-5L, "USD", "EUR"));
+    }
+
+    @Test
+    void testSameCurrencyNeedsNoRate() {
+        assertEquals(1234L, FxRateMatrix.EMPTY.convert(1234L, "RON", "RON"));
+    }
+
+    @Test
+    void testMissingRateThrowsCurrencyConversionException() throws IOException {
+        CurrencyConversionException cce = assertThrows(CurrencyConversionException.class, () -> matrix().convert(100L, "RON", "GBP"));
+        assertEquals("There is no exchange rate from RON to GBP", cce.getMessage());
+    }
+
+    @Test
+    void testRejectsInvalidRates() {
+        Map<String, Map<String, BigDecimal>> rates = new LinkedHashMap<>();
+        rates.put("EUR", Collections.singletonMap("RON", BigDecimal.ZERO));
+
+        assertThrows(IllegalArgumentException.class, () -> new FxRateMatrix(rates));
+        assertThrows(IllegalArgumentException.class, () -> new FxRateMatrix(Collections.singletonMap("euro", Collections.emptyMap())));
+        assertThrows(IllegalArgumentException.class, () -> FxRateService.parse(new BufferedReader(new StringReader("EUR;RON;4.97"))));
+    }
+}
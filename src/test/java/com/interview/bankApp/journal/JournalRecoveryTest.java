@@ -0,0 +1,137 @@
+package com.interview.bankApp.journal;
+
+import com.interview.bankApp.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class JournalRecoveryTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        // the database holds account 1 with 1000 and account 2 with 0, both at version 5
+        ResultSet firstAccount = account(1L, "1234", 1000L, 5L);
+        ResultSet secondAccount = account(2L, "5678", 0L, 5L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(firstAccount);
+            handler.processRow(secondAccount);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        Path snapshot = BalanceSnapshot.write(directory, 42L, jdbcTemplate);
+
+        List<RecoveredAccount> accounts = new ArrayList<>();
+        assertEquals(42L, BalanceSnapshot.read(snapshot, accounts::add));
+        assertEquals(Collections.singletonList(snapshot), BalanceSnapshot.list(directory));
+        assertEquals(42L, BalanceSnapshot.journalPosition(snapshot));
+        assertEquals(2, accounts.size());
+        assertEquals(new RecoveredAccount(1L, "1234", "RON", "OPEN", 1000L, 5L, 5L), accounts.get(0));
+        assertEquals(new RecoveredAccount(2L, "5678", "RON", "OPEN", 0L, 5L, 5L), accounts.get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecoveryReplaysTheJournalAfterTheSnapshotUntilABadRecord() throws Exception {
+        try (JournalSegment segment = JournalSegment.open(directory, 0, SEGMENT_SIZE)) {
+            // already included in the snapshot
+            segment.append(transfer(1L, 100L, 5L));
+            BalanceSnapshot.write(directory, segment.getEndPosition(), jdbcTemplate);
+            segment.append(transfer(2L, 200L, 6L));
+            long tornPosition = segment.getEndPosition();
+            segment.append(transfer(3L, 300L, 7L));
+            segment.append(transfer(4L, 50L, 8L));
+            segment.force();
+            corrupt(segment.getPath(), tornPosition);
+        }
+
+        try (JournalSegment segment = JournalSegment.open(directory, 0, SEGMENT_SIZE)) {
+            new JournalRecovery(jdbcTemplate).recover(directory, Collections.singletonList(segment));
+        }
+
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture(), anyInt(), any());
+        Map<Long, RecoveredAccount> accounts = rows.getAllValues().get(0).stream()
+                .map(RecoveredAccount.class::cast)
+                .collect(Collectors.toMap(RecoveredAccount::getAccountId, Function.identity()));
+        assertEquals(800L, accounts.get(1L).getAccountValue());
+        assertEquals(6L, accounts.get(1L).getVersion());
+        assertEquals(200L, accounts.get(2L).getAccountValue());
+
+        List<Object[]> transactions = new ArrayList<>();
+        rows.getAllValues().get(1).forEach(row -> transactions.add((Object[]) row));
+        assertEquals(1, transactions.size());
+        assertEquals(2L, transactions.get(0)[0]);
+    }
+
+    private static ResultSet account(long accountId, String accountNumber, long accountValue, long version) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(accountId);
+        when(resultSet.getString(2)).thenReturn(accountNumber);
+        when(resultSet.getString(3)).thenReturn("RON");
+        when(resultSet.getString(4)).thenReturn("OPEN");
+        when(resultSet.getLong(5)).thenReturn(accountValue);
+        when(resultSet.getLong(6)).thenReturn(version);
+        return resultSet;
+    }
+
+    /**
+     * A transfer of {@code value} from account 1 to account 2 that moved both accounts to {@code version}
+     */
+    private static ByteBuffer transfer(long transactionId, long value, long version) {
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionId)
+                .transactionValue(value)
+                .senderAmount(value)
+                .receiverAmount(value)
+                .transactionDate(LocalDateTime.of(2021, 6, 1, 10, 0))
+                .transactionCurrency("RON")
+                .transactionSender("1234")
+                .transactionReceiver("5678")
+                .build();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        JournalRecords.writeTransfer(buffer, transaction, version, version);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Overwrites the first payload byte of the record at {@code position}, so its checksum does not match anymore
+     */
+    private static void corrupt(Path segment, long position) throws Exception {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0x7f}), position + 8);
+        }
+    }
+}
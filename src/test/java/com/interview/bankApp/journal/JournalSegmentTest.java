@@ -0,0 +1,65 @@
+package com.interview.bankApp.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JournalSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsSurviveReopen() throws Exception {
+        long endPosition;
+        try (JournalSegment segment = JournalSegment.open(directory, 100, 1024)) {
+            segment.append(record("first"));
+            segment.append(record("second"));
+            segment.force();
+            endPosition = segment.getEndPosition();
+        }
+
+        List<String> records = new ArrayList<>();
+        try (JournalSegment segment = JournalSegment.open(directory, 100, 1024)) {
+            assertEquals(endPosition, segment.getEndPosition());
+            segment.read(0, (position, payload) -> records.add(StandardCharsets.UTF_8.decode(payload).toString()));
+        }
+        assertEquals(2, records.size());
+        assertEquals("first", records.get(0));
+        assertEquals("second", records.get(1));
+    }
+
+    @Test
+    void testReadStartsAtPosition() throws Exception {
+        try (JournalSegment segment = JournalSegment.open(directory, 0, 1024)) {
+            segment.append(record("first"));
+            long secondPosition = segment.getEndPosition();
+            segment.append(record("second"));
+
+            List<Long> positions = new ArrayList<>();
+            segment.read(secondPosition, (position, payload) -> positions.add(position));
+            assertEquals(1, positions.size());
+            assertEquals(secondPosition, (long) positions.get(0));
+        }
+    }
+
+    @Test
+    void testAppendReturnsFalseWhenSegmentIsFull() throws Exception {
+        try (JournalSegment segment = JournalSegment.open(directory, 0, 32)) {
+            assertFalse(segment.append(ByteBuffer.allocate(64)));
+            assertEquals(0, segment.getEndPosition());
+        }
+    }
+
+    private ByteBuffer record(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
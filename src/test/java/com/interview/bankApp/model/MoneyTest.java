@@ -0,0 +1,51 @@
+package com.interview.bankApp.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@JsonTest
+public class MoneyTest {
+
+    private static final Pattern MIGRATION_CASE = Pattern.compile("WHEN account_currency IN \\(([^)]*)\\) THEN (\\d+)");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testMigrationMultipliersFollowScale() throws IOException {
+        String migration = StreamUtils.copyToString(new ClassPathResource("db/migration/money-minor-units.sql").getInputStream(), StandardCharsets.UTF_8);
+        Map<String, Long> multipliers = new HashMap<>();
+        Matcher matcher = MIGRATION_CASE.matcher(migration);
+        while (matcher.find())
+            for (String code : matcher.group(1).split(","))
+                multipliers.put(code.trim().replace("'", ""), Long.parseLong(matcher.group(2)));
+
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            String code = currency.getCurrencyCode();
+            assertEquals(code, (long) Math.pow(10, Money.scale(code)), (long) multipliers.getOrDefault(code, 100L));
+        }
+    }
+
+    @Test
+    public void testFractionalAmountIsRejected() throws IOException {
+        assertEquals(10050L, objectMapper.readValue("{\"transactionValue\":10050}", Transaction.class).getTransactionValue());
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"transactionValue\":100.5}", Transaction.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"accountValue\":100.5}", Account.class));
+    }
+}
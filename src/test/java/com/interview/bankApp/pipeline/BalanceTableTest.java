@@ -0,0 +1,66 @@
+package com.interview.bankApp.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BalanceTableTest {
+
+    @Test
+    void testCapacityShouldBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new BalanceTable(1000, false));
+    }
+
+    @Test
+    void testAccountValuesAreUpdatedInPlace() {
+        BalanceTable balances = new BalanceTable(16, true);
+        assertTrue(balances.isDirect());
+        assertEquals(-1, balances.find(7L));
+
+        int slot = balances.insert(7L, 1000L);
+        assertEquals(slot, balances.find(7L));
+        balances.setAccountValue(slot, 400L);
+
+        assertEquals(400L, balances.getAccountValue(balances.find(7L)));
+        assertEquals(7L, balances.getAccountId(slot));
+        assertEquals(slot, balances.insert(7L, 500L));
+        assertEquals(500L, balances.getAccountValue(slot));
+        assertEquals(1, balances.size());
+    }
+
+    @Test
+    void testTableGrowsAndKeepsEveryAccount() {
+        BalanceTable balances = new BalanceTable(4, false);
+        assertFalse(balances.isDirect());
+        for (long accountId = 1; accountId <= 10_000; accountId++)
+            balances.insert(accountId, accountId * 100);
+
+        assertEquals(10_000, balances.size());
+        assertEquals(16384, balances.capacity());
+        for (long accountId = 1; accountId <= 10_000; accountId++)
+            assertEquals(accountId * 100, balances.getAccountValue(balances.find(accountId)));
+        assertEquals(-1, balances.find(10_001L));
+    }
+
+    @Test
+    void testAccountIdZeroIsStoredAcrossGrowth() {
+        BalanceTable balances = new BalanceTable(4, false);
+        assertEquals(-1, balances.find(0L));
+
+        int slot = balances.insert(0L, 100L);
+        assertEquals(slot, balances.find(0L));
+        assertEquals(0L, balances.getAccountId(slot));
+        balances.setAccountValue(slot, 250L);
+        for (long accountId = 1; accountId <= 100; accountId++)
+            balances.insert(accountId, accountId);
+
+        assertEquals(101, balances.size());
+        assertEquals(250L, balances.getAccountValue(balances.find(0L)));
+        assertEquals(-1, balances.find(101L));
+        for (long accountId = 1; accountId <= 100; accountId++)
+            assertEquals(accountId, balances.getAccountValue(balances.find(accountId)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.model.TransactionResultStatus;
+import com.interview.bankApp.service.TransactionPostingService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PersistenceHandlerTest {
+
+    private static final long SENDER_ID = 1L;
+
+    private static final long RECEIVER_ID = 2L;
+
+    @Test
+    void testFailedBatchIsRetried() throws Exception {
+        FailingPostingService postingService = new FailingPostingService(2);
+        InFlightTransfers inFlightTransfers = new InFlightTransfers();
+        TransferEvent first = accepted(1L, inFlightTransfers);
+        TransferEvent second = accepted(2L, inFlightTransfers);
+        PersistenceHandler persistenceHandler = new PersistenceHandler(postingService, 10, 3, 1L, inFlightTransfers);
+
+        persistenceHandler.onEvent(first, 0, false);
+        persistenceHandler.onEvent(second, 1, true);
+
+        assertFalse(persistenceHandler.isFailed());
+        assertEquals(3, postingService.attempts);
+        assertEquals(Arrays.asList(1L, 2L), postingService.persistedIds);
+        assertTrue(first.getOutcome().isDone() && !first.getOutcome().isCompletedExceptionally());
+        assertTrue(second.getOutcome().isDone() && !second.getOutcome().isCompletedExceptionally());
+        assertFalse(inFlightTransfers.contains(1L));
+        assertFalse(inFlightTransfers.contains(2L));
+        assertEquals(0L, inFlightTransfers.pendingNetAmount(SENDER_ID));
+        assertEquals(0L, inFlightTransfers.pendingNetAmount(RECEIVER_ID));
+    }
+
+    @Test
+    void testPipelineStopsWhenBatchCannotBePersisted() throws Exception {
+        FailingPostingService postingService = new FailingPostingService(Integer.MAX_VALUE);
+        InFlightTransfers inFlightTransfers = new InFlightTransfers();
+        TransferEvent first = accepted(1L, inFlightTransfers);
+        TransferEvent next = accepted(2L, inFlightTransfers);
+        PersistenceHandler persistenceHandler = new PersistenceHandler(postingService, 10, 3, 1L, inFlightTransfers);
+
+        persistenceHandler.onEvent(first, 0, true);
+        assertTrue(persistenceHandler.isFailed());
+        assertEquals(3, postingService.attempts);
+        assertTrue(first.getOutcome().isCompletedExceptionally());
+
+        persistenceHandler.onEvent(next, 1, true);
+        assertNotNull(next.getRejectionReason());
+        assertTrue(next.getOutcome().isCompletedExceptionally());
+        assertEquals(3, postingService.attempts);
+        assertTrue(postingService.persistedIds.isEmpty());
+        assertTrue(inFlightTransfers.contains(1L));
+        assertTrue(inFlightTransfers.contains(2L));
+    }
+
+    @Test
+    void testRejectedTransferDoesNotStopThePipeline() throws Exception {
+        FailingPostingService postingService = new FailingPostingService(0);
+        postingService.rejectedTransactionIds.add(2L);
+        InFlightTransfers inFlightTransfers = new InFlightTransfers();
+        TransferEvent first = accepted(1L, inFlightTransfers);
+        TransferEvent second = accepted(2L, inFlightTransfers);
+        PersistenceHandler persistenceHandler = new PersistenceHandler(postingService, 10, 3, 1L, inFlightTransfers);
+
+        persistenceHandler.onEvent(first, 0, false);
+        persistenceHandler.onEvent(second, 1, true);
+
+        assertFalse(persistenceHandler.isFailed());
+        assertEquals(Collections.singletonList(1L), postingService.persistedIds);
+        assertFalse(first.getOutcome().isCompletedExceptionally());
+        ExecutionException rejection = assertThrows(ExecutionException.class, () -> second.getOutcome().get());
+        assertTrue(rejection.getCause() instanceof InvalidTransactionException);
+        assertFalse(inFlightTransfers.contains(2L));
+        assertEquals(0L, inFlightTransfers.pendingNetAmount(SENDER_ID));
+        assertEquals(Long.valueOf(SENDER_ID), inFlightTransfers.nextAccountToReload());
+        assertEquals(Long.valueOf(RECEIVER_ID), inFlightTransfers.nextAccountToReload());
+        assertNull(inFlightTransfers.nextAccountToReload());
+    }
+
+    private static TransferEvent accepted(long transactionId, InFlightTransfers inFlightTransfers) {
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionId)
+                .senderAmount(100L)
+                .receiverAmount(100L)
+                .account(Account.builder().accountId(SENDER_ID).build())
+                .receiverAccount(Account.builder().accountId(RECEIVER_ID).build())
+                .build();
+        inFlightTransfers.accepted(transaction);
+        TransferEvent event = new TransferEvent();
+        event.reset(transaction, new CompletableFuture<>());
+        event.setAccepted(true);
+        return event;
+    }
+
+    private static class FailingPostingService extends TransactionPostingService {
+
+        private final int failures;
+
+        private int attempts;
+
+        private final List<Long> persistedIds = new ArrayList<>();
+
+        private final Set<Long> rejectedTransactionIds = new HashSet<>();
+
+        FailingPostingService(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public List<TransactionResult> persistPosted(List<Transaction> transactions) {
+            if (++attempts <= failures)
+                throw new IllegalStateException("Database is unavailable");
+            List<TransactionResult> rejections = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                if (rejectedTransactionIds.contains(transaction.getTransactionId()))
+                    rejections.add(TransactionResult.builder()
+                            .transactionId(transaction.getTransactionId())
+                            .status(TransactionResultStatus.REJECTED.toString())
+                            .message("Transaction with ID = " + transaction.getTransactionId() + " already exists")
+                            .build());
+                else
+                    persistedIds.add(transaction.getTransactionId());
+            }
+            return rejections;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.interview.bankApp.pipeline;
+
+import com.interview.bankApp.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransferRingBufferTest {
+
+    @Test
+    void testRingBufferSizeShouldBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TransferRingBuffer(1000));
+    }
+
+    @Test
+    void testStagesSeeEveryEventInOrder() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 5000;
+        TransferRingBuffer ringBuffer = new TransferRingBuffer(64);
+
+        List<Long> firstStageSequences = new ArrayList<>();
+        List<Long> secondStageTransactions = new ArrayList<>();
+        TransferEventProcessor firstStage = new TransferEventProcessor(ringBuffer,
+                (event, sequence, endOfBatch) -> {
+                    firstStageSequences.add(sequence);
+                    event.setAccepted(true);
+                });
+        TransferEventProcessor secondStage = new TransferEventProcessor(ringBuffer,
+                (event, sequence, endOfBatch) -> {
+                    assertTrue(event.isAccepted());
+                    secondStageTransactions.add(event.getTransaction().getTransactionId());
+                },
+                firstStage.getSequence());
+        ringBuffer.setGatingSequences(secondStage.getSequence());
+        Thread firstThread = new Thread(firstStage);
+        Thread secondThread = new Thread(secondStage);
+        firstThread.start();
+        secondThread.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    long sequence = ringBuffer.next();
+                    ringBuffer.get(sequence).reset(Transaction.builder().transactionId(sequence).build(), new CompletableFuture<>());
+                    ringBuffer.publish(sequence);
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        firstStage.halt();
+        firstThread.join();
+        secondStage.halt();
+        secondThread.join();
+
+        int total = producers * eventsPerProducer;
+        assertEquals(total, firstStageSequences.size());
+        assertEquals(total, secondStageTransactions.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(Long.valueOf(i), firstStageSequences.get(i));
+            assertEquals(Long.valueOf(i), secondStageTransactions.get(i));
+        }
+    }
+}
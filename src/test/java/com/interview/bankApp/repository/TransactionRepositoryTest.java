@@ -0,0 +1,102 @@
+package com.interview.bankApp.repository;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest
+public class TransactionRepositoryTest {
+
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\* PUBLIC\\.(\\w+): (.*?)\\*/");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testFindTransactionsAfterSeeksTheDateIndex() throws Exception {
+        List<String> range = indexRange(TransactionRepository.class.getMethod("findTransactionsAfter", LocalDateTime.class, long.class, Pageable.class));
+
+        assertEquals(Arrays.asList("IDX_TRANSACTION_DATE", "TRANSACTION_DATE >= ?1"), range);
+    }
+
+    @Test
+    void testFindAccountTransactionsAfterSeeksTheAccountDateIndex() throws Exception {
+        List<String> range = indexRange(TransactionRepository.class.getMethod("findAccountTransactionsAfter", long.class, LocalDateTime.class, long.class, Pageable.class));
+
+        assertEquals(Arrays.asList("IDX_TRANSACTION_ACCOUNT_DATE", "ACCOUNT_ID = ?1", "TRANSACTION_DATE >= ?2"), range);
+    }
+
+    @Test
+    void testFindReceivedTransactionsAfterSeeksTheReceiverDateIndex() throws Exception {
+        List<String> range = indexRange(TransactionRepository.class.getMethod("findReceivedTransactionsAfter", long.class, LocalDateTime.class, long.class, Pageable.class));
+
+        assertEquals(Arrays.asList("IDX_TRANSACTION_RECEIVER_DATE", "RECEIVER_ACCOUNT_ID = ?1", "TRANSACTION_DATE >= ?2"), range);
+    }
+
+    @Test
+    void testSumSentBetweenReadsTheDateRangeOfTheAccountIndex() throws Exception {
+        List<String> range = indexRange(TransactionRepository.class.getMethod("sumSentBetween", long.class, LocalDateTime.class, long.class, LocalDateTime.class, long.class));
+
+        assertEquals(Arrays.asList("IDX_TRANSACTION_ACCOUNT_DATE", "ACCOUNT_ID = ?1", "TRANSACTION_DATE <= ?3", "TRANSACTION_DATE >= ?2"), range);
+    }
+
+    @Test
+    void testSumReceivedBetweenReadsTheDateRangeOfTheReceiverIndex() throws Exception {
+        List<String> range = indexRange(TransactionRepository.class.getMethod("sumReceivedBetween", long.class, LocalDateTime.class, long.class, LocalDateTime.class, long.class));
+
+        assertEquals(Arrays.asList("IDX_TRANSACTION_RECEIVER_DATE", "RECEIVER_ACCOUNT_ID = ?1", "TRANSACTION_DATE <= ?3", "TRANSACTION_DATE >= ?2"), range);
+    }
+
+    /**
+     * Translates the JPQL of a repository method to the SQL Hibernate sends and returns the range H2 reads for it:
+     * the name of the index followed by the sorted conditions of the index lookup, taken from the plan comment.
+     * A condition that H2 can only check row by row is not part of the range.
+     */
+    private List<String> indexRange(Method method) throws Exception {
+        String jpql = method.getAnnotation(Query.class).value();
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + translator.getSQLString());
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1));
+            }
+        }
+        Matcher lookup = INDEX_LOOKUP.matcher(plan.toString().toUpperCase().replaceAll("\\s+", " "));
+        assertTrue(plan.toString(), lookup.find());
+        List<String> conditions = new ArrayList<>(Arrays.asList(lookup.group(2).trim().split(" AND ")));
+        Collections.sort(conditions);
+        conditions.add(0, lookup.group(1));
+        return conditions;
+    }
+}
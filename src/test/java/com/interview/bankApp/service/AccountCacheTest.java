@@ -0,0 +1,81 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountCacheStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AccountCacheTest {
+
+    private final AccountCache accountCache = new AccountCache(2, 60);
+
+    @Test
+    void testAccountIsFoundByIdAndAccountNumber() {
+        accountCache.put(account(1L, "1234", 100L), accountCache.stamp());
+
+        assertEquals(100L, accountCache.get(1L).getAccountValue());
+        assertEquals(1L, accountCache.get("1234").getAccountId());
+        AccountCacheStatistics statistics = accountCache.getStatistics();
+        assertEquals(2L, statistics.getHits());
+        assertEquals(0L, statistics.getMisses());
+    }
+
+    @Test
+    void testInvalidatedAccountIsNotPutBackByAnOlderRead() {
+        long stamp = accountCache.stamp();
+        accountCache.invalidate(1L);
+
+        accountCache.put(account(1L, "1234", 100L), stamp);
+
+        assertNull(accountCache.get(1L));
+        assertNull(accountCache.get("1234"));
+        accountCache.put(account(1L, "1234", 50L), accountCache.stamp());
+        assertEquals(50L, accountCache.get(1L).getAccountValue());
+    }
+
+    @Test
+    void testPostingInvalidatesTheAccounts() {
+        accountCache.put(account(1L, "1234", 100L), accountCache.stamp());
+
+        accountCache.onTransactionPosted(new TransactionPostedEvent(Collections.emptyList(),
+                Collections.singletonList(account(1L, "1234", 90L))));
+
+        assertNull(accountCache.get(1L));
+    }
+
+    @Test
+    void testLeastRecentlyUsedAccountIsEvicted() {
+        accountCache.put(account(1L, "1234", 100L), accountCache.stamp());
+        accountCache.put(account(2L, "5678", 100L), accountCache.stamp());
+        accountCache.get(1L);
+        accountCache.put(account(3L, "9012", 100L), accountCache.stamp());
+
+        assertNull(accountCache.get(2L));
+        assertEquals(1L, accountCache.get(1L).getAccountId());
+        assertEquals(1L, accountCache.getStatistics().getEvictions());
+    }
+
+    @Test
+    void testReturnedAccountIsACopy() {
+        accountCache.put(account(1L, "1234", 100L), accountCache.stamp());
+
+        accountCache.get(1L).setAccountValue(0L);
+
+        assertEquals(100L, accountCache.get(1L).getAccountValue());
+    }
+
+    private Account account(long accountId, String accountNumber, long accountValue) {
+        return Account.builder()
+                .accountId(accountId)
+                .accountNumber(accountNumber)
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(accountValue)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.interview.bankApp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountImportReport;
+import com.interview.bankApp.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class AccountImportServiceTest {
+
+    private AccountImportService accountImportService;
+
+    private AccountService accountService;
+
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        accountService = mock(AccountService.class);
+        accountRepository = mock(AccountRepository.class);
+        accountImportService = new AccountImportService(2, 10);
+        accountImportService.accountService = accountService;
+        accountImportService.accountRepository = accountRepository;
+        accountImportService.objectMapper = new ObjectMapper();
+    }
+
+    @Test
+    void testCsvRowsAreStoredInChunksAndInvalidRowsAreReported() throws InvalidInputException, IOException {
+        when(accountRepository.findExistingAccountIds(anyCollection())).thenReturn(Collections.singletonList(4L));
+        when(accountRepository.findExistingAccountNumbers(anyCollection()))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList("5678"));
+
+        AccountImportReport report = accountImportService.importCsv(body(
+                "accountNumber,accountId,accountCurrency,accountValue\n" +
+                "1234,1,RON,10000\n" +
+                "12-34,2,RON,10000\n" +
+                "5678,3,EUR,500\n" +
+                "\n" +
+                "5678,5,EUR,500\n" +
+                "9999,4,EUR,500\n" +
+                "4321,6,USD,abc\n"));
+
+        ArgumentCaptor<List<Account>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(accountService, times(1)).createAccounts(chunks.capture());
+        assertEquals(2, chunks.getValue().size());
+        assertEquals("OPEN", chunks.getValue().get(0).getAccountStatus());
+        assertEquals(2L, report.getImported());
+        assertEquals(4L, report.getRejected());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("Account number should contain only letters and digits", report.getErrors().get(0).getMessage());
+        assertEquals("Account with account number = 5678 already exists", report.getErrors().get(1).getMessage());
+        assertEquals("Account with ID = 4 already exists", report.getErrors().get(2).getMessage());
+        assertEquals(8L, report.getErrors().get(3).getLine());
+    }
+
+    @Test
+    void testCsvHeaderWithoutMandatoryColumn() {
+        assertThrows(InvalidInputException.class, () -> accountImportService.importCsv(body("accountId,accountNumber,accountValue\n1,1234,100\n")));
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void testNdjsonMalformedLinesAndFailedChunksOnlyRejectTheirRows() throws IOException {
+        when(accountRepository.findExistingAccountIds(anyCollection())).thenReturn(Collections.emptyList());
+        when(accountRepository.findExistingAccountNumbers(anyCollection())).thenReturn(Collections.emptyList());
+        doThrow(new DataIntegrityViolationException("duplicate key")).doNothing().when(accountService).createAccounts(anyList());
+
+        AccountImportReport report = accountImportService.importNdjson(body(
+                "{\"accountId\":1,\"accountNumber\":\"1234\",\"accountCurrency\":\"RON\",\"accountValue\":100,\"accountStatus\":\"OPEN\"}\n" +
+                "{\"accountId\":2,\"accountNumber\":\"2345\",\"accountCurrency\":\"RON\",\"accountValue\":100}\n" +
+                "{\"accountId\":3,\n" +
+                "{\"accountId\":4,\"accountNumber\":\"4567\",\"accountCurrency\":\"RON\",\"accountValue\":100,\"accountStatus\":\"CLOSED\"}\n"));
+
+        verify(accountService, times(2)).createAccounts(anyList());
+        assertEquals(1L, report.getImported());
+        assertEquals(3L, report.getRejected());
+        assertEquals(1L, report.getErrors().get(0).getLine());
+        assertEquals(2L, report.getErrors().get(1).getLine());
+        assertEquals(3L, report.getErrors().get(2).getLine());
+    }
+
+    @Test
+    void testRepeatedAccountsAreDetectedInsideTheChunkAndByTheDatabaseAcrossChunks() throws IOException {
+        when(accountRepository.findExistingAccountIds(anyCollection()))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(1L));
+        when(accountRepository.findExistingAccountNumbers(anyCollection())).thenReturn(Collections.emptyList());
+
+        AccountImportReport report = accountImportService.importNdjson(body(
+                "{\"accountId\":1,\"accountNumber\":\"1234\",\"accountCurrency\":\"RON\",\"accountValue\":100}\n" +
+                "{\"accountId\":9,\"accountNumber\":\"1234\",\"accountCurrency\":\"RON\",\"accountValue\":100}\n" +
+                "{\"accountId\":2,\"accountNumber\":\"2345\",\"accountCurrency\":\"RON\",\"accountValue\":100}\n" +
+                "{\"accountId\":1,\"accountNumber\":\"3456\",\"accountCurrency\":\"RON\",\"accountValue\":100}\n"));
+
+        verify(accountService, times(1)).createAccounts(anyList());
+        assertEquals(2L, report.getImported());
+        assertEquals(2L, report.getRejected());
+        assertEquals("Account with account number = 1234 is repeated in the file", report.getErrors().get(0).getMessage());
+        assertEquals(4L, report.getErrors().get(1).getLine());
+        assertEquals("Account with ID = 1 already exists", report.getErrors().get(1).getMessage());
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,25 +1,47 @@
 package com.interview.bankApp.service;
 
+import com.interview.bankApp.archive.TransactionArchive;
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.AccountsCreatedEvent;
 import com.interview.bankApp.exception.AccountNotFoundException;
 import com.interview.bankApp.exception.InsufficientAmountException;
 import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.fx.FxRateService;
 import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountSummary;
+import com.interview.bankApp.model.CursorPage;
+import com.interview.bankApp.model.Money;
 import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionDirection;
+import com.interview.bankApp.model.TransactionRow;
 import com.interview.bankApp.repository.AccountRepository;
 import com.interview.bankApp.repository.TransactionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +55,36 @@ public class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private RecentActivityIndex recentActivityIndex;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16);
+
+    @Spy
+    private OptimisticRetryExecutor optimisticRetryExecutor = new OptimisticRetryExecutor(3, 1, 100);
+
+    @Spy
+    private FxRateService fxRateService = new FxRateService("");
+
+    @Spy
+    private TransactionArchive transactionArchive = new TransactionArchive(false, "data/archive", 90, "locking");
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
 
     @Test
     void testGetAccountById() throws AccountNotFoundException {
@@ -41,7 +93,7 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .build();
 
         when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
@@ -49,7 +101,7 @@ public class AccountServiceTest {
         assertEquals(1L, returnedAccount.getAccountId());
         assertEquals("1234", returnedAccount.getAccountNumber());
         assertEquals("RON", returnedAccount.getAccountCurrency());
-        assertEquals(new Double(123), returnedAccount.getAccountValue());
+        assertEquals(12300L, returnedAccount.getAccountValue());
     }
 
     @Test
@@ -62,30 +114,122 @@ public class AccountServiceTest {
     }
 
     @Test
-    void testGetAllAccounts() {
-        Account acc1 = Account.builder()
+    void testGetAccounts() throws InvalidInputException {
+        AccountSummary acc1 = AccountSummary.builder()
                 .accountId(1L)
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .build();
 
-        Account acc2 = Account.builder()
+        AccountSummary acc2 = AccountSummary.builder()
                 .accountId(2L)
                 .accountNumber("5678")
                 .accountCurrency("EUR")
                 .accountStatus("OPEN")
-                .accountValue(100d)
+                .accountValue(10000L)
                 .build();
 
-        List<Account> accountList = new ArrayList<>();
+        List<AccountSummary> accountList = new ArrayList<>();
         accountList.add(acc1);
         accountList.add(acc2);
 
-        when(accountRepository.findAll()).thenReturn(accountList);
-        List<Account> returnedAccountsList = accountService.getAllAccounts();
-        assertEquals(accountList, returnedAccountsList);
+        when(accountRepository.findAccountSummariesAfter(Long.MIN_VALUE, PageRequest.of(0, 3))).thenReturn(accountList);
+        CursorPage<AccountSummary> page = accountService.getAccounts(2, null, false, 10);
+        assertEquals(accountList, page.getItems());
+        assertNull(page.getNext());
+        assertNull(page.getItems().get(0).getTransactions());
+        verify(transactionRepository, never()).findFirstAccountTransactions(anyLong(), any());
+    }
+
+    @Test
+    void testGetAccountsReturnsCursorOfLastAccount() throws InvalidInputException {
+        List<AccountSummary> accountList = new ArrayList<>();
+        accountList.add(AccountSummary.builder().accountId(6L).build());
+        accountList.add(AccountSummary.builder().accountId(7L).build());
+
+        when(accountRepository.findAccountSummariesAfter(5L, PageRequest.of(0, 2))).thenReturn(accountList);
+        CursorPage<AccountSummary> page = accountService.getAccounts(1, "5", false, 10);
+        assertEquals(1, page.getItems().size());
+        assertEquals("6", page.getNext());
+    }
+
+    @Test
+    void testGetAccountSummaryIncludesTransactions() throws AccountNotFoundException, InvalidInputException {
+        Account acc = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(12300L)
+                .build();
+        List<TransactionRow> transactionList = new ArrayList<>();
+        transactionList.add(TransactionRow.builder().transactionId(1L).transactionDate(LocalDateTime.now()).build());
+
+        when(accountCache.get(1L)).thenReturn(acc);
+        when(transactionRepository.findFirstAccountTransactions(1L, PageRequest.of(0, 11))).thenReturn(transactionList);
+        AccountSummary summary = accountService.getAccountSummary(1L, true, 10);
+
+        assertEquals("1234", summary.getAccountNumber());
+        assertEquals(12300L, summary.getAccountValue());
+        assertEquals(transactionList, summary.getTransactions().getItems());
+        assertNull(summary.getTransactions().getNext());
+    }
+
+    @Test
+    void testGetAccountSummaryWithoutTransactions() throws AccountNotFoundException, InvalidInputException {
+        Account acc = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(12300L)
+                .build();
+
+        when(accountCache.get(1L)).thenReturn(acc);
+        AccountSummary summary = accountService.getAccountSummary(1L, false, 10);
+
+        assertNull(summary.getTransactions());
+        verify(transactionRepository, never()).findFirstAccountTransactions(anyLong(), any());
+    }
+
+    @Test
+    void testGetAccountsInvalidLimit() {
+        assertThrows(InvalidInputException.class, () -> accountService.getAccounts(CursorPage.MAX_LIMIT + 1, null, false, 10));
+    }
+
+    @Test
+    void testGetAccountByIdIsAnsweredFromCache() throws AccountNotFoundException {
+        Account acc = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(12300L)
+                .build();
+
+        when(accountCache.get(1L)).thenReturn(acc);
+        Account returnedAccount = accountService.getAccountById(1L);
+        assertEquals(acc, returnedAccount);
+        verify(accountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testGetAccountByIdIsCachedAfterMiss() throws AccountNotFoundException {
+        Account acc = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(12300L)
+                .build();
+
+        when(accountCache.stamp()).thenReturn(5L);
+        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.of(acc));
+        accountService.getAccountById(1L);
+        verify(accountRepository, times(1)).findById(1L);
+        verify(accountCache, times(1)).put(acc, 5L);
     }
 
     @Test
@@ -95,7 +239,7 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .build();
 
         when(accountRepository.findByAccountNumber("1234")).thenReturn(acc);
@@ -109,6 +253,7 @@ public class AccountServiceTest {
 
         accountService.deleteAccountById(1L);
         verify(accountRepository, times(1)).deleteById(anyLong());
+        verify(accountCache, times(1)).invalidate(1L);
     }
 
     @Test
@@ -118,13 +263,33 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .build();
 
         accountService.createAccount(acc);
         verify(accountRepository, times(1)).save(any());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateAccountsPublishesOneEventAfterCommit() {
+        List<Account> accounts = Arrays.asList(
+                Account.builder().accountId(1L).accountNumber("1234").accountCurrency("RON").accountValue(100L).build(),
+                Account.builder().accountId(2L).accountNumber("5678").accountCurrency("RON").accountValue(200L).build());
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            verifyNoInteractions(applicationEventPublisher);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        accountService.createAccounts(accounts);
+
+        verify(entityManager, times(2)).persist(any(Account.class));
+        assertEquals(200L, accounts.get(1).getOpeningBalance());
+        verify(applicationEventPublisher, times(1)).publishEvent(any(AccountsCreatedEvent.class));
+        verify(applicationEventPublisher, never()).publishEvent(any(AccountChangedEvent.class));
+    }
+
     @Test
     void testCreateAccountThrowsInvalidInputException() {
         Account acc = Account.builder()
@@ -132,12 +297,12 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(-1d)
+                .accountValue(-100L)
                 .build();
 
         InvalidInputException iie = assertThrows(InvalidInputException.class, () -> accountService.createAccount(acc));
         String expectedMessage = "You have entered some invalid information for this account. Please check accountNumber or accountValue. AccountNumber = "
-                +acc.getAccountNumber() +  " ; AccountValue = " +acc.getAccountValue();
+                +acc.getAccountNumber() +  " ; AccountValue = " + Money.format(acc.getAccountValue(), acc.getAccountCurrency());
         String actualMessage = iie.getMessage();
         assertEquals(expectedMessage, actualMessage);
     }
@@ -149,13 +314,14 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .build();
 
         when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
         accountService.updateAccountStatus(1L, "CLOSED");
 
         verify(accountRepository, times(1)).save(any());
+        verify(accountCache, times(1)).invalidate(1L);
     }
 
     @Test
@@ -173,13 +339,16 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
+                .openingBalance(10000L)
                 .build();
 
         when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
         accountService.updateAccountValue(1L, 500);
 
         verify(accountRepository, times(1)).save(any());
+        assertEquals(500L, acc.getAccountValue());
+        assertEquals(-1800L, acc.getOpeningBalance());
     }
 
     @Test
@@ -191,39 +360,84 @@ public class AccountServiceTest {
     }
 
     @Test
-    void testGetAllTransactionFromAnAcount() throws AccountNotFoundException {
-        Transaction transaction = Transaction.builder()
+    void testGetAllTransactionFromAnAcount() throws AccountNotFoundException, InvalidInputException {
+        TransactionRow transaction = TransactionRow.builder()
                 .transactionCurrency("RON")
                 .transactionId(1L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
-        Transaction transaction2 = Transaction.builder()
+        TransactionRow transaction2 = TransactionRow.builder()
                 .transactionCurrency("RON")
                 .transactionId(2L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
-        List<Transaction> transactionList = new ArrayList<>();
+        List<TransactionRow> transactionList = new ArrayList<>();
         transactionList.add(transaction);
         transactionList.add(transaction2);
-        Account acc = Account.builder()
-                .accountId(1L)
-                .accountNumber("1234")
-                .accountCurrency("RON")
-                .accountStatus("OPEN")
-                .accountValue(123d)
-                .transactions(transactionList)
-                .build();
 
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
-        List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccount(1L);
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findFirstAccountTransactions(1L, PageRequest.of(0, 2))).thenReturn(transactionList);
+        CursorPage<TransactionRow> page = accountService.getTransactionsForAnAccount(1L, TransactionDirection.OUT, 1, null);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(transaction, page.getItems().get(0));
+        assertEquals(TransactionCursor.encode(transaction), page.getNext());
+    }
+
+    @Test
+    void testGetReceivedTransactionsForAnAccount() throws AccountNotFoundException, InvalidInputException {
+        TransactionRow received = row(3L, LocalDateTime.of(2020, 11, 2, 10, 0), "5678", "1234");
+        TransactionRow previous = row(1L, LocalDateTime.of(2020, 11, 1, 0, 0), "5678", "1234");
+
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findReceivedTransactionsAfter(1L, previous.getTransactionDate(), 1L, PageRequest.of(0, 11)))
+                .thenReturn(Arrays.asList(received));
+        CursorPage<TransactionRow> page = accountService.getTransactionsForAnAccount(1L, TransactionDirection.IN, 10, TransactionCursor.encode(previous));
+
+        assertEquals(Arrays.asList(received), page.getItems());
+        assertNull(page.getNext());
+        verify(transactionRepository, never()).findAccountTransactionsAfter(anyLong(), any(), anyLong(), any());
+    }
 
-        assertEquals(transactionList, returnedTransactionLIst);
+    @Test
+    void testGetBothDirectionsMergesSentAndReceivedByDate() throws AccountNotFoundException, InvalidInputException {
+        LocalDateTime date = LocalDateTime.of(2020, 11, 2, 10, 0);
+        TransactionRow sent1 = row(1L, date, "1234", "5678");
+        TransactionRow toItself = row(2L, date.plusHours(1), "1234", "1234");
+        TransactionRow sent3 = row(5L, date.plusHours(3), "1234", "5678");
+        TransactionRow received1 = row(4L, date, "5678", "1234");
+        TransactionRow received2 = row(3L, date.plusHours(2), "5678", "1234");
+
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findFirstAccountTransactions(1L, PageRequest.of(0, 4))).thenReturn(Arrays.asList(sent1, toItself, sent3));
+        when(transactionRepository.findFirstReceivedTransactions(1L, PageRequest.of(0, 4))).thenReturn(Arrays.asList(received1, toItself, received2));
+        CursorPage<TransactionRow> page = accountService.getTransactionsForAnAccount(1L, TransactionDirection.BOTH, 3, null);
+
+        assertEquals(Arrays.asList(sent1, received1, toItself), page.getItems());
+        assertEquals(TransactionCursor.encode(toItself), page.getNext());
+    }
+
+    @Test
+    void testGetTransactionsForAnAccountListsTheArchivedTransactionsFirst() throws AccountNotFoundException, InvalidInputException {
+        LocalDateTime date = LocalDateTime.of(2020, 11, 2, 10, 0);
+        TransactionRow archived1 = row(1L, date, "1234", "5678");
+        TransactionRow archived2 = row(2L, date.plusDays(1), "5678", "1234");
+        TransactionRow sent = row(7L, date.plusDays(100), "1234", "5678");
+
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        doReturn(Arrays.asList(archived1, archived2)).when(transactionArchive).findAccountTransactions(1L, TransactionDirection.BOTH, null, 3);
+        when(transactionRepository.findFirstAccountTransactions(1L, PageRequest.of(0, 3))).thenReturn(Arrays.asList(sent));
+        when(transactionRepository.findFirstReceivedTransactions(1L, PageRequest.of(0, 3))).thenReturn(new ArrayList<>());
+        CursorPage<TransactionRow> page = accountService.getTransactionsForAnAccount(1L, TransactionDirection.BOTH, 2, null);
+
+        assertEquals(Arrays.asList(archived1, archived2), page.getItems());
+        assertEquals(TransactionCursor.encode(archived2), page.getNext());
     }
 
     @Test
@@ -234,7 +448,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
         Transaction transaction2 = Transaction.builder()
                 .transactionCurrency("RON")
@@ -242,7 +456,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
         List<Transaction> transactionList = new ArrayList<>();
         List<Transaction> validTransactionList = new ArrayList<>();
@@ -254,19 +468,25 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .transactions(transactionList)
                 .build();
         String desiredDate = "2020-11-01";
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findAccountTransactionsSince(1L, LocalDate.of(2020, 11, 2).atStartOfDay())).thenReturn(validTransactionList);
         List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccountAfterDate(1L, desiredDate);
 
         assertEquals(validTransactionList, returnedTransactionLIst);
     }
 
+    private static TransactionRow row(long id, LocalDateTime date, String sender, String receiver) {
+        return TransactionRow.builder().transactionId(id).transactionValue(100L).transactionDate(date)
+                .transactionSender(sender).transactionReceiver(receiver).transactionCurrency("RON").build();
+    }
+
     @Test
     void testGetAllTransactionFromAnAcountAccountNotFound() {
-        AccountNotFoundException anfe = assertThrows(AccountNotFoundException.class, () -> accountService.getAllTransactionsForAnAccount(1L));
+        AccountNotFoundException anfe = assertThrows(AccountNotFoundException.class, () -> accountService.getTransactionsForAnAccount(1L, TransactionDirection.BOTH, 10, null));
         String expectedMessage = "Account with ID = 1 was not found";
         String actualMessage = anfe.getMessage();
         assertEquals(expectedMessage, actualMessage);
@@ -298,7 +518,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
         Transaction transaction2 = Transaction.builder()
                 .transactionCurrency("RON")
@@ -306,7 +526,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
         List<Transaction> transactionList = new ArrayList<>();
         List<Transaction> validTransactionList = new ArrayList<>();
@@ -318,15 +538,41 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .transactions(transactionList)
                 .build();
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findAccountTransactionsSince(1L, LocalDate.now().atStartOfDay())).thenReturn(validTransactionList);
         List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccountForToday(1L);
 
         assertEquals(validTransactionList, returnedTransactionLIst);
     }
 
+    @Test
+    void testGetAllTransactionsFromAnAccountForTodayUsesRecentActivityIndex() throws AccountNotFoundException {
+        Transaction transaction = Transaction.builder()
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .build();
+        Transaction transaction2 = Transaction.builder()
+                .transactionId(2L)
+                .transactionDate(LocalDateTime.now().minusSeconds(1))
+                .build();
+        List<Transaction> transactionList = new ArrayList<>();
+        transactionList.add(transaction);
+        transactionList.add(transaction2);
+
+        when(recentActivityIndex.isLoaded(1L)).thenReturn(true);
+        when(recentActivityIndex.covers(any(LocalDateTime.class))).thenReturn(true);
+        when(recentActivityIndex.getTransactionIdsSince(1L, LocalDate.now().atStartOfDay())).thenReturn(Arrays.asList(1L, 2L));
+        when(transactionRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(transactionList);
+        List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccountForToday(1L);
+
+        assertEquals(Arrays.asList(transaction2, transaction), returnedTransactionLIst);
+        verify(accountRepository, never()).existsById(anyLong());
+        verify(transactionRepository, never()).findAccountTransactionsSince(anyLong(), any());
+    }
+
     @Test
     void testGetAllTransactionsFromAnAccountForTodayAccountNotFound() {
         AccountNotFoundException anfe = assertThrows(AccountNotFoundException.class, () -> accountService.getAllTransactionsForAnAccountForToday(1L));
@@ -343,7 +589,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
         Transaction transaction2 = Transaction.builder()
                 .transactionCurrency("RON")
@@ -351,7 +597,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now().minusDays(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
         List<Transaction> transactionList = new ArrayList<>();
         List<Transaction> validTransactionList = new ArrayList<>();
@@ -363,10 +609,11 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .transactions(transactionList)
                 .build();
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findAccountTransactionsSince(1L, LocalDate.now().minusDays(1).atStartOfDay())).thenReturn(validTransactionList);
         List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccountForYesterday(1L);
 
         assertEquals(validTransactionList, returnedTransactionLIst);
@@ -388,7 +635,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
         Transaction transaction2 = Transaction.builder()
                 .transactionCurrency("RON")
@@ -396,7 +643,7 @@ public class AccountServiceTest {
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
         List<Transaction> transactionList = new ArrayList<>();
         List<Transaction> validTransactionList = new ArrayList<>();
@@ -408,11 +655,19 @@ public class AccountServiceTest {
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(123d)
+                .accountValue(12300L)
                 .transactions(transactionList)
                 .build();
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findAccountTransactionsSince(eq(1L), any(LocalDateTime.class))).thenReturn(validTransactionList);
+        LocalDateTime earliest = LocalDateTime.now().minusHours(12);
         List<Transaction> returnedTransactionLIst = accountService.getAllTransactionsForAnAccountForLastHours(1L, 12L);
+        LocalDateTime latest = LocalDateTime.now().minusHours(12);
+
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(transactionRepository).findAccountTransactionsSince(eq(1L), from.capture());
+        assertFalse(from.getValue().isBefore(earliest));
+        assertFalse(from.getValue().isAfter(latest));
 
         assertEquals(validTransactionList, returnedTransactionLIst);
     }
@@ -439,37 +694,24 @@ public class AccountServiceTest {
         Transaction transaction = Transaction.builder()
                 .transactionCurrency("RON")
                 .transactionId(1L)
-                .transactionDate(LocalDateTime.now().minusMonths(1))
-                .transactionReceiver("5678")
-                .transactionSender("1234")
-                .transactionValue(10d)
-                .build();
-        Transaction transaction2 = Transaction.builder()
-                .transactionCurrency("RON")
-                .transactionId(2L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
-        List<Transaction> transactionList = new ArrayList<>();
-        transactionList.add(transaction);
-        transactionList.add(transaction2);
         Account acc = Account.builder()
                 .accountId(1L)
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(500d)
-                .transactions(transactionList)
+                .accountValue(50000L)
                 .build();
 
         when(accountRepository.findByAccountNumber("1234")).thenReturn(acc);
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
-        Account returnedAccount = accountService.getAccountByAccountNumber("1234");
 
-        accountService.accountValueUpdateSender(returnedAccount.getAccountNumber());
+        accountService.accountValueUpdateSender(transaction);
 
+        assertEquals(40000L, acc.getAccountValue());
         verify(accountRepository, times(1)).save(any());
     }
 
@@ -478,76 +720,68 @@ public class AccountServiceTest {
         Transaction transaction = Transaction.builder()
                 .transactionCurrency("RON")
                 .transactionId(1L)
-                .transactionDate(LocalDateTime.now().minusMonths(1))
-                .transactionReceiver("5678")
-                .transactionSender("1234")
-                .transactionValue(10d)
-                .build();
-        Transaction transaction2 = Transaction.builder()
-                .transactionCurrency("RON")
-                .transactionId(2L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
-        List<Transaction> transactionList = new ArrayList<>();
-        transactionList.add(transaction);
-        transactionList.add(transaction2);
         Account acc = Account.builder()
                 .accountId(1L)
                 .accountNumber("1234")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(10d)
-                .transactions(transactionList)
+                .accountValue(1000L)
                 .build();
 
         when(accountRepository.findByAccountNumber("1234")).thenReturn(acc);
-        Account returnedAccount = accountService.getAccountByAccountNumber("1234");
 
-        InsufficientAmountException iae = assertThrows(InsufficientAmountException.class, () -> accountService.accountValueUpdateSender(returnedAccount.getAccountNumber()));
-        String expectedMessage = "The account with account number = " + returnedAccount.getAccountNumber() + " has insufficient funds";
+        InsufficientAmountException iae = assertThrows(InsufficientAmountException.class, () -> accountService.accountValueUpdateSender(transaction));
+        String expectedMessage = "The account with account number = " + acc.getAccountNumber() + " has insufficient funds";
         String actualMessage = iae.getMessage();
         assertEquals(expectedMessage, actualMessage);
+        verify(accountRepository, never()).save(any());
     }
 
     @Test
-    void testAccountValueUpdateReceiver() throws AccountNotFoundException {
+    void testAccountValueUpdateSenderThrowsANFE() {
         Transaction transaction = Transaction.builder()
                 .transactionCurrency("RON")
                 .transactionId(1L)
-                .transactionDate(LocalDateTime.now().minusMonths(1))
+                .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(10000L)
                 .build();
-        Transaction transaction2 = Transaction.builder()
+
+        AccountNotFoundException anfe = assertThrows(AccountNotFoundException.class, () -> accountService.accountValueUpdateSender(transaction));
+        String expectedMessage = "Account with account number = 1234 was not found";
+        String actualMessage = anfe.getMessage();
+        assertEquals(expectedMessage, actualMessage);
+    }
+
+    @Test
+    void testAccountValueUpdateReceiver() throws AccountNotFoundException {
+        Transaction transaction = Transaction.builder()
                 .transactionCurrency("RON")
-                .transactionId(2L)
+                .transactionId(1L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(1000L)
                 .build();
-        List<Transaction> transactionList = new ArrayList<>();
-        transactionList.add(transaction);
-        transactionList.add(transaction2);
         Account acc = Account.builder()
                 .accountId(1L)
                 .accountNumber("5678")
                 .accountCurrency("RON")
                 .accountStatus("OPEN")
-                .accountValue(0d)
-                .transactions(transactionList)
+                .accountValue(0L)
                 .build();
 
         when(accountRepository.findByAccountNumber("5678")).thenReturn(acc);
-        when(accountRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(acc));
-        Account returnedAccount = accountService.getAccountByAccountNumber("5678");
 
-        accountService.accountValueUpdateReceiver(returnedAccount.getAccountNumber());
+        accountService.accountValueUpdateReceiver(transaction);
 
-        verify(accountRepository, times(2)).save(any());
+        assertEquals(1000L, acc.getAccountValue());
+        verify(accountRepository, times(1)).save(any());
     }
 }
@@ -0,0 +1,92 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.InsufficientAmountException;
+import com.interview.bankApp.exception.TransactionNotFoundException;
+import com.interview.bankApp.model.AsyncTransfer;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResultStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class AsyncTransferServiceTest {
+
+    private AsyncTransferService asyncTransferService;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        asyncTransferService = new AsyncTransferService(1, 10);
+        asyncTransferService.transactionService = transactionService;
+        asyncTransferService.transferExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncTransferService.transferExecutor.shutdownNow();
+    }
+
+    @Test
+    void testSubmittedTransferIsAccepted() throws Exception {
+        Transaction transaction = Transaction.builder().transactionId(7L).transactionValue(100).build();
+
+        AsyncTransfer transfer = asyncTransferService.submit(transaction);
+
+        assertEquals(TransactionResultStatus.PENDING.name(), transfer.getStatus());
+        AsyncTransfer completed = awaitCompletion(transfer.getTransferId());
+        assertEquals(TransactionResultStatus.ACCEPTED.name(), completed.getStatus());
+        assertEquals(Long.valueOf(7L), completed.getTransactionId());
+        verify(transactionService, times(1)).createTransaction(transaction);
+    }
+
+    @Test
+    void testSubmittedTransferIsRejected() throws Exception {
+        Transaction transaction = Transaction.builder().transactionValue(100).build();
+        doThrow(new InsufficientAmountException("insufficient funds")).when(transactionService).createTransaction(transaction);
+
+        AsyncTransfer completed = awaitCompletion(asyncTransferService.submit(transaction).getTransferId());
+
+        assertEquals(TransactionResultStatus.REJECTED.name(), completed.getStatus());
+        assertEquals("insufficient funds", completed.getMessage());
+    }
+
+    @Test
+    void testSubmitIsRejectedWhenTooManyArePending() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(transactionService).createTransaction(any());
+
+        asyncTransferService.submit(Transaction.builder().build());
+
+        assertThrows(RejectedExecutionException.class, () -> asyncTransferService.submit(Transaction.builder().build()));
+        release.countDown();
+    }
+
+    @Test
+    void testGetUnknownTransfer() {
+        assertThrows(TransactionNotFoundException.class, () -> asyncTransferService.getTransfer("unknown"));
+    }
+
+    private AsyncTransfer awaitCompletion(String transferId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        AsyncTransfer transfer = asyncTransferService.getTransfer(transferId);
+        while (TransactionResultStatus.PENDING.name().equals(transfer.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            transfer = asyncTransferService.getTransfer(transferId);
+        }
+        return transfer;
+    }
+}
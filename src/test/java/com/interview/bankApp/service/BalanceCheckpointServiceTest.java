@@ -0,0 +1,221 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.archive.TransactionArchive;
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.AccountsCreatedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountBalance;
+import com.interview.bankApp.model.BalanceCheckpoint;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.BalanceCheckpointRepository;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class BalanceCheckpointServiceTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2020, 11, 2, 12, 0);
+
+    private BalanceCheckpointService balanceCheckpointService;
+
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    private TransactionRepository transactionRepository;
+
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() throws AccountNotFoundException {
+        balanceCheckpointRepository = mock(BalanceCheckpointRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        accountService = mock(AccountService.class);
+        balanceCheckpointService = new BalanceCheckpointService(3, 0, 2);
+        balanceCheckpointService.balanceCheckpointRepository = balanceCheckpointRepository;
+        balanceCheckpointService.transactionRepository = transactionRepository;
+        balanceCheckpointService.accountService = accountService;
+        balanceCheckpointService.transactionArchive = new TransactionArchive(false, "data/archive", 90, "locking");
+        lenient().when(accountService.getAccountById(1L)).thenReturn(account(1L, "1234", 5000L));
+    }
+
+    @Test
+    void testBalanceStartsFromThePreviousCheckpoint() throws AccountNotFoundException {
+        LocalDateTime checkpointDate = AT.minusHours(5);
+        when(balanceCheckpointRepository.findFirstByAccountIdAndCheckpointDateLessThanEqualOrderByCheckpointDateDescTransactionIdDesc(1L, AT))
+                .thenReturn(checkpoint(checkpointDate, 7L, 1000L));
+        when(transactionRepository.sumReceivedBetween(1L, checkpointDate, 7L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)).thenReturn(300L);
+        when(transactionRepository.sumSentBetween(1L, checkpointDate, 7L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)).thenReturn(100L);
+
+        AccountBalance balance = balanceCheckpointService.getBalanceAt(1L, AT);
+
+        assertEquals(1200L, balance.getAccountValue());
+        assertEquals("RON", balance.getAccountCurrency());
+        verify(balanceCheckpointRepository, never()).findFirstByAccountIdAndCheckpointDateGreaterThanOrderByCheckpointDateAscTransactionIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void testBalanceBeforeTheFirstCheckpointTakesTheTransfersBack() throws AccountNotFoundException {
+        LocalDateTime checkpointDate = AT.plusHours(2);
+        when(balanceCheckpointRepository.findFirstByAccountIdAndCheckpointDateGreaterThanOrderByCheckpointDateAscTransactionIdAsc(1L, AT))
+                .thenReturn(checkpoint(checkpointDate, 9L, 1000L));
+        when(transactionRepository.sumReceivedBetween(1L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, checkpointDate, 9L)).thenReturn(300L);
+        when(transactionRepository.sumSentBetween(1L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, checkpointDate, 9L)).thenReturn(100L);
+
+        assertEquals(800L, balanceCheckpointService.getBalanceAt(1L, AT).getAccountValue());
+    }
+
+    @Test
+    void testBalanceWithoutCheckpointsStartsFromTheCurrentValue() throws AccountNotFoundException {
+        when(transactionRepository.sumReceivedBetween(1L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS,
+                BalanceCheckpointService.END_OF_TIME, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)).thenReturn(0L);
+        when(transactionRepository.sumSentBetween(1L, AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS,
+                BalanceCheckpointService.END_OF_TIME, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS)).thenReturn(2000L);
+
+        assertEquals(7000L, balanceCheckpointService.getBalanceAt(1L, AT).getAccountValue());
+    }
+
+    @Test
+    void testBalanceOfMissingAccount() throws AccountNotFoundException {
+        when(accountService.getAccountById(2L)).thenThrow(new AccountNotFoundException("Account with ID = 2 was not found"));
+
+        assertThrows(AccountNotFoundException.class, () -> balanceCheckpointService.getBalanceAt(2L, AT));
+    }
+
+    @Test
+    void testCheckpointIsTakenAfterTheConfiguredNumberOfTransfers() {
+        Account sender = account(1L, "1234", 700L);
+        Account receiver = account(2L, "5678", 1300L);
+
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Arrays.asList(transaction(1L, sender, receiver), transaction(2L, sender, receiver)), Arrays.asList(sender, receiver)));
+        verify(balanceCheckpointRepository, never()).save(any());
+
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(3L, sender, receiver)), Arrays.asList(sender, receiver)));
+        ArgumentCaptor<BalanceCheckpoint> checkpoints = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        verify(balanceCheckpointRepository, times(2)).save(checkpoints.capture());
+
+        BalanceCheckpoint senderCheckpoint = checkpoints.getAllValues().get(0);
+        assertEquals(1L, senderCheckpoint.getAccountId());
+        assertEquals(3L, senderCheckpoint.getTransactionId());
+        assertEquals(AT, senderCheckpoint.getCheckpointDate());
+        assertEquals(700L, senderCheckpoint.getAccountValue());
+    }
+
+    @Test
+    void testEvictedAccountStartsCountingAgain() {
+        Account sender = account(1L, "1234", 700L);
+        Account receiver = account(2L, "5678", 1300L);
+        Account otherSender = account(3L, "9012", 100L);
+        Account otherReceiver = account(4L, "3456", 200L);
+
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(1L, sender, receiver)), Arrays.asList(sender, receiver)));
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(2L, otherSender, otherReceiver)), Arrays.asList(otherSender, otherReceiver)));
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Arrays.asList(transaction(3L, sender, receiver), transaction(4L, sender, receiver)), Arrays.asList(sender, receiver)));
+
+        verify(balanceCheckpointRepository, never()).save(any());
+    }
+
+    @Test
+    void testCheckpointIsTakenAfterADirectChange() {
+        balanceCheckpointService.onAccountChanged(new AccountChangedEvent(1L, account(1L, "1234", 5000L)));
+
+        ArgumentCaptor<BalanceCheckpoint> checkpoint = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        verify(balanceCheckpointRepository).save(checkpoint.capture());
+        assertEquals(BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, checkpoint.getValue().getTransactionId());
+        assertEquals(5000L, checkpoint.getValue().getAccountValue());
+    }
+
+    @Test
+    void testCheckpointIsTakenAtTheLatestTransferOfTheBatch() {
+        Account sender = account(1L, "1234", 700L);
+        Account receiver = account(2L, "5678", 1300L);
+        Transaction latest = transaction(1L, sender, receiver);
+        Transaction earlier = transaction(2L, sender, receiver);
+        earlier.setTransactionDate(AT.minusHours(1));
+
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Arrays.asList(latest, earlier, transaction(0L, sender, receiver)), Arrays.asList(sender, receiver)));
+
+        ArgumentCaptor<BalanceCheckpoint> checkpoints = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        verify(balanceCheckpointRepository, times(2)).save(checkpoints.capture());
+        assertEquals(AT, checkpoints.getAllValues().get(0).getCheckpointDate());
+        assertEquals(1L, checkpoints.getAllValues().get(0).getTransactionId());
+    }
+
+    @Test
+    void testTransferBeforeTheLatestCheckpointIsCheckpointed() {
+        Account sender = account(1L, "1234", 700L);
+        Account receiver = account(2L, "5678", 1300L);
+
+        balanceCheckpointService.onTransactionPosted(new TransactionPostedEvent(
+                Arrays.asList(transaction(1L, sender, receiver), transaction(2L, sender, receiver), transaction(3L, sender, receiver)),
+                Arrays.asList(sender, receiver)));
+
+        assertTrue(balanceCheckpointService.isCheckpointed(1L, AT.minusSeconds(1), 10L));
+        assertTrue(balanceCheckpointService.isCheckpointed(2L, AT, 3L));
+        assertFalse(balanceCheckpointService.isCheckpointed(2L, AT, 4L));
+        assertFalse(balanceCheckpointService.isCheckpointed(1L, AT.plusSeconds(1), 1L));
+    }
+
+    @Test
+    void testLatestCheckpointIsReadForAnAccountThatIsNotTracked() {
+        when(balanceCheckpointRepository.findFirstByAccountIdOrderByCheckpointDateDescTransactionIdDesc(1L))
+                .thenReturn(checkpoint(AT, BalanceCheckpoint.AFTER_ALL_TRANSACTIONS, 5000L));
+
+        assertTrue(balanceCheckpointService.isCheckpointed(1L, AT, 100L));
+        assertFalse(balanceCheckpointService.isCheckpointed(1L, AT.plusNanos(1), 100L));
+        verify(balanceCheckpointRepository, times(1)).findFirstByAccountIdOrderByCheckpointDateDescTransactionIdDesc(1L);
+    }
+
+    @Test
+    void testDirectChangeMovesTheLatestCheckpoint() {
+        balanceCheckpointService.onAccountChanged(new AccountChangedEvent(1L, account(1L, "1234", 5000L)));
+
+        assertTrue(balanceCheckpointService.isCheckpointed(1L, AT, 1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckpointsOfAnImportedChunkAreSavedTogether() {
+        balanceCheckpointService.onAccountsCreated(new AccountsCreatedEvent(Arrays.asList(account(1L, "1234", 5000L), account(2L, "5678", 700L))));
+
+        ArgumentCaptor<List<BalanceCheckpoint>> checkpoints = ArgumentCaptor.forClass(List.class);
+        verify(balanceCheckpointRepository, times(1)).saveAll(checkpoints.capture());
+        verify(balanceCheckpointRepository, never()).save(any());
+        verify(balanceCheckpointRepository, never()).findFirstByAccountIdOrderByCheckpointDateDescTransactionIdDesc(anyLong());
+        assertEquals(2, checkpoints.getValue().size());
+        assertEquals(700L, checkpoints.getValue().get(1).getAccountValue());
+        assertTrue(balanceCheckpointService.isCheckpointed(2L, AT, 1L));
+    }
+
+    private static BalanceCheckpoint checkpoint(LocalDateTime date, long transactionId, long accountValue) {
+        return BalanceCheckpoint.builder().accountId(1L).checkpointDate(date).transactionId(transactionId).accountValue(accountValue).build();
+    }
+
+    private static Account account(long id, String number, long value) {
+        return Account.builder().accountId(id).accountNumber(number).accountCurrency("RON").accountStatus("OPEN").accountValue(value).build();
+    }
+
+    private static Transaction transaction(long id, Account sender, Account receiver) {
+        return Transaction.builder().transactionId(id).transactionValue(100L).transactionDate(AT).transactionCurrency("RON")
+                .transactionSender(sender.getAccountNumber()).transactionReceiver(receiver.getAccountNumber())
+                .account(sender).receiverAccount(receiver).build();
+    }
+}
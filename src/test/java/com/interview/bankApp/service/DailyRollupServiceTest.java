@@ -0,0 +1,185 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountPeriodSummary;
+import com.interview.bankApp.model.DailyRollup;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.DailyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+public class DailyRollupServiceTest {
+
+    @InjectMocks
+    private DailyRollupService dailyRollupService;
+
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private static final LocalDate DAY = LocalDate.of(2020, 11, 2);
+
+    @Test
+    void testAggregateFoldsTransfersPerAccountAndDay() {
+        Account first = account(1L, "1234", 700L);
+        Account second = account(2L, "5678", 1300L);
+        List<Transaction> transactions = Arrays.asList(
+                transaction(1L, "1234", "5678", 200L, DAY.atTime(9, 0)),
+                transaction(2L, "5678", "1234", 50L, DAY.atTime(10, 0)),
+                transaction(3L, "1234", "5678", 150L, DAY.plusDays(1).atTime(8, 0)));
+
+        List<DailyRollup> rollups = new ArrayList<>(DailyRollupService.aggregate(transactions, Arrays.asList(first, second)));
+
+        assertEquals(4, rollups.size());
+        DailyRollup firstDay = find(rollups, 1L, DAY);
+        assertEquals(200L, firstDay.getDebitTotal());
+        assertEquals(50L, firstDay.getCreditTotal());
+        assertEquals(2L, firstDay.getTransactionCount());
+        assertEquals(50L, firstDay.getMinTransactionValue());
+        assertEquals(200L, firstDay.getMaxTransactionValue());
+        assertEquals(150L, find(rollups, 1L, DAY.plusDays(1)).getDebitTotal());
+        assertEquals(50L, find(rollups, 2L, DAY).getDebitTotal());
+        assertEquals(150L, find(rollups, 2L, DAY.plusDays(1)).getCreditTotal());
+    }
+
+    @Test
+    void testAggregateCountsATransferToItselfOnce() {
+        Account first = account(1L, "1234", 700L);
+        List<Transaction> transactions = Arrays.asList(
+                transaction(1L, "1234", "1234", 200L, DAY.atTime(9, 0)),
+                transaction(2L, "1234", "5678", 50L, DAY.atTime(10, 0)));
+
+        List<DailyRollup> rollups = new ArrayList<>(DailyRollupService.aggregate(transactions, Collections.singletonList(first)));
+
+        assertEquals(1, rollups.size());
+        assertEquals(2L, rollups.get(0).getTransactionCount());
+        assertEquals(50L, rollups.get(0).getDebitTotal());
+        assertEquals(0L, rollups.get(0).getCreditTotal());
+        assertEquals(200L, rollups.get(0).getMaxTransactionValue());
+    }
+
+    @Test
+    void testPostingInsertsMissingRollupsAndUpdatesExistingOnes() {
+        Account first = account(1L, "1234", 800L);
+        Account second = account(2L, "5678", 1200L);
+        second.setOpeningBalance(1000L);
+        when(dailyRollupRepository.addToRollup(eq(1L), eq(DAY), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(dailyRollupRepository.addToRollup(eq(2L), eq(DAY), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+
+        dailyRollupService.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(1L, "1234", "5678", 200L, DAY.atTime(9, 0))), Arrays.asList(first, second)));
+
+        verify(dailyRollupRepository, times(1)).addToRollup(1L, DAY, 200L, 0L, 1L, 200L, 200L);
+        verify(dailyRollupRepository, times(1)).addToLaterClosingBalances(1L, DAY, -200L);
+        ArgumentCaptor<DailyRollup> inserted = ArgumentCaptor.forClass(DailyRollup.class);
+        verify(entityManager, times(1)).persist(inserted.capture());
+        assertEquals(1200L, inserted.getValue().getClosingBalance());
+    }
+
+    @Test
+    void testBackDatedTransferStartsFromThePreviousDayAndMovesTheLaterDays() {
+        Account first = account(1L, "1234", 500L);
+        Account second = account(2L, "5678", 1500L);
+        when(dailyRollupRepository.addToRollup(eq(1L), eq(DAY), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(dailyRollupRepository.addToRollup(eq(2L), eq(DAY), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(dailyRollupRepository.findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(1L, DAY))
+                .thenReturn(rollup(DAY.minusDays(2), 0L, 100L, 1L, 100L, 100L, 900L));
+
+        dailyRollupService.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(1L, "1234", "5678", 300L, DAY.atTime(9, 0))), Arrays.asList(first, second)));
+
+        verify(dailyRollupRepository, times(1)).addToLaterClosingBalances(1L, DAY, -300L);
+        verify(dailyRollupRepository, times(1)).addToLaterClosingBalances(2L, DAY, 300L);
+        ArgumentCaptor<DailyRollup> inserted = ArgumentCaptor.forClass(DailyRollup.class);
+        verify(entityManager, times(1)).persist(inserted.capture());
+        assertEquals(600L, inserted.getValue().getClosingBalance());
+    }
+
+    @Test
+    void testGetSummaryIsBuiltFromTheRollupsOfThePeriod() throws AccountNotFoundException, InvalidInputException {
+        when(dailyRollupRepository.findByAccountIdAndRollupDateBetweenOrderByRollupDate(1L, DAY, DAY.plusDays(6))).thenReturn(Arrays.asList(
+                rollup(DAY, 300L, 0L, 2L, 100L, 200L, 700L),
+                rollup(DAY.plusDays(3), 0L, 500L, 1L, 500L, 500L, 1200L)));
+
+        AccountPeriodSummary summary = dailyRollupService.getSummary(1L, DAY, DAY.plusDays(6));
+
+        assertEquals(300L, summary.getDebitTotal());
+        assertEquals(500L, summary.getCreditTotal());
+        assertEquals(3L, summary.getTransactionCount());
+        assertEquals(Long.valueOf(100L), summary.getMinTransactionValue());
+        assertEquals(Long.valueOf(500L), summary.getMaxTransactionValue());
+        assertEquals(Long.valueOf(1200L), summary.getClosingBalance());
+        verify(dailyRollupRepository, never()).findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(anyLong(), any());
+    }
+
+    @Test
+    void testGetSummaryOfAQuietPeriodCarriesTheEarlierClosingBalance() throws AccountNotFoundException, InvalidInputException {
+        when(dailyRollupRepository.findByAccountIdAndRollupDateBetweenOrderByRollupDate(1L, DAY, DAY)).thenReturn(Collections.emptyList());
+        when(dailyRollupRepository.findFirstByAccountIdAndRollupDateLessThanEqualOrderByRollupDateDesc(1L, DAY))
+                .thenReturn(rollup(DAY.minusDays(4), 100L, 0L, 1L, 100L, 100L, 900L));
+
+        AccountPeriodSummary summary = dailyRollupService.getSummary(1L, DAY, DAY);
+
+        assertEquals(0L, summary.getTransactionCount());
+        assertNull(summary.getMinTransactionValue());
+        assertEquals(Long.valueOf(900L), summary.getClosingBalance());
+    }
+
+    @Test
+    void testGetSummaryRejectsInvertedPeriod() {
+        assertThrows(InvalidInputException.class, () -> dailyRollupService.getSummary(1L, DAY, DAY.minusDays(1)));
+    }
+
+    @Test
+    void testGetSummaryOfMissingAccount() throws AccountNotFoundException {
+        when(accountService.getAccountById(1L)).thenThrow(new AccountNotFoundException("Account with ID = 1 not found"));
+
+        assertThrows(AccountNotFoundException.class, () -> dailyRollupService.getSummary(1L, DAY, DAY));
+    }
+
+    private static DailyRollup find(List<DailyRollup> rollups, long accountId, LocalDate day) {
+        return rollups.stream().filter(rollup -> rollup.getAccountId() == accountId && rollup.getRollupDate().equals(day)).findFirst().get();
+    }
+
+    private static DailyRollup rollup(LocalDate day, long debits, long credits, long count, long min, long max, long closingBalance) {
+        return DailyRollup.builder().accountId(1L).rollupDate(day).debitTotal(debits).creditTotal(credits).transactionCount(count)
+                .minTransactionValue(min).maxTransactionValue(max).closingBalance(closingBalance).build();
+    }
+
+    private static Account account(long id, String number, long value) {
+        return Account.builder().accountId(id).accountNumber(number).accountCurrency("RON").accountStatus("OPEN").accountValue(value).build();
+    }
+
+    private static Transaction transaction(long id, String sender, String receiver, long value, LocalDateTime date) {
+        return Transaction.builder().transactionId(id).transactionSender(sender).transactionReceiver(receiver)
+                .transactionValue(value).senderAmount(value).receiverAmount(value).transactionCurrency("RON").transactionDate(date).build();
+    }
+}
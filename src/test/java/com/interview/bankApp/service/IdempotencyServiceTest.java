@@ -0,0 +1,108 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.IdempotencyKeyMismatchException;
+import com.interview.bankApp.model.IdempotencyRecord;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @InjectMocks
+    private IdempotencyService idempotencyService = new IdempotencyService(2, 10);
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void testCompletedKeyIsAnsweredFromCache() {
+        assertTrue(idempotencyService.begin("key-1"));
+        idempotencyService.complete("key-1", 10L, "hash-1");
+
+        assertEquals(Long.valueOf(10L), idempotencyService.getTransactionId("key-1", "hash-1"));
+        verify(idempotencyRecordRepository, times(1)).save(any());
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void testEvictedKeyIsAnsweredFromDatabase() {
+        idempotencyService.complete("key-1", 1L, "hash-1");
+        idempotencyService.complete("key-2", 2L, "hash-2");
+        idempotencyService.complete("key-3", 3L, "hash-3");
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(java.util.Optional.of(IdempotencyRecord.builder()
+                .idempotencyKey("key-1")
+                .transactionId(1L)
+                .requestHash("hash-1")
+                .createdAt(LocalDateTime.now())
+                .build()));
+
+        assertEquals(Long.valueOf(1L), idempotencyService.getTransactionId("key-1", "hash-1"));
+        assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyService.getTransactionId("key-1", "hash-2"));
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void testUnknownKey() {
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(java.util.Optional.empty());
+
+        assertNull(idempotencyService.getTransactionId("key-1", "hash-1"));
+    }
+
+    @Test
+    void testKeyInFlightCannotBeUsedTwice() {
+        assertTrue(idempotencyService.begin("key-1"));
+        assertFalse(idempotencyService.begin("key-1"));
+        idempotencyService.abort("key-1");
+        assertTrue(idempotencyService.begin("key-1"));
+    }
+
+    @Test
+    void testCompletedKeyIsAnsweredWhenTheRecordCannotBeSaved() {
+        when(idempotencyRecordRepository.save(any())).thenThrow(new IllegalStateException("Database is unavailable"));
+
+        assertTrue(idempotencyService.begin("key-1"));
+        assertThrows(IllegalStateException.class, () -> idempotencyService.complete("key-1", 10L, "hash-1"));
+
+        assertEquals(Long.valueOf(10L), idempotencyService.getTransactionId("key-1", "hash-1"));
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void testKeyUsedWithADifferentRequestIsRefused() {
+        Transaction transaction = Transaction.builder().transactionId(10L).transactionSender("1234").transactionReceiver("5678")
+                .transactionValue(100L).transactionCurrency("RON").transactionDate(LocalDateTime.of(2020, 11, 2, 12, 0)).build();
+        String requestHash = IdempotencyService.requestHash(transaction);
+        idempotencyService.complete("key-1", 10L, requestHash);
+
+        assertEquals(Long.valueOf(10L), idempotencyService.getTransactionId("key-1", IdempotencyService.requestHash(transaction)));
+        transaction.setTransactionValue(1000L);
+        assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyService.getTransactionId("key-1", IdempotencyService.requestHash(transaction)));
+    }
+
+    @Test
+    void testRecordWithoutHashIsAnsweredForAnyRequest() {
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(java.util.Optional.of(IdempotencyRecord.builder()
+                .idempotencyKey("key-1")
+                .transactionId(1L)
+                .createdAt(LocalDateTime.now())
+                .build()));
+
+        assertEquals(Long.valueOf(1L), idempotencyService.getTransactionId("key-1", "hash-1"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.InterestAccrualReport;
+import com.interview.bankApp.model.InterestAccrualRun;
+import com.interview.bankApp.model.InterestAccrualStatus;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.InterestAccrualRepository;
+import com.interview.bankApp.repository.InterestAccrualRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.*;
+
+public class InterestAccrualServiceTest {
+
+    private static final LocalDate ACCRUAL_DATE = LocalDate.of(2021, 6, 1);
+
+    private InterestAccrualService interestAccrualService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private InterestAccrualRunRepository interestAccrualRunRepository;
+
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        interestAccrualRunRepository = mock(InterestAccrualRunRepository.class);
+        applicationEventPublisher = mock(ApplicationEventPublisher.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        when(interestAccrualRunRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // 3.65% a year is 0.01% a day in 2021
+        interestAccrualService = new InterestAccrualService(new BigDecimal("3.65"), 10, 2, "locking");
+        interestAccrualService.jdbcTemplate = jdbcTemplate;
+        interestAccrualService.transactionTemplate = transactionTemplate;
+        interestAccrualService.interestAccrualRepository = mock(InterestAccrualRepository.class);
+        interestAccrualService.interestAccrualRunRepository = interestAccrualRunRepository;
+        interestAccrualService.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        interestAccrualService.stop();
+    }
+
+    @Test
+    void testAccrualRoundsHalfToEvenAndNeverOverdraws() {
+        BigDecimal dailyRate = InterestAccrualService.dailyRate(new BigDecimal("3.65"), ACCRUAL_DATE);
+
+        assertEquals(1L, InterestAccrualService.accrual(10000L, dailyRate));
+        assertEquals(2L, InterestAccrualService.accrual(15000L, dailyRate));
+        assertEquals(2L, InterestAccrualService.accrual(25000L, dailyRate));
+        assertEquals(0L, InterestAccrualService.accrual(0L, dailyRate));
+        assertEquals(-50L, InterestAccrualService.accrual(50L, InterestAccrualService.dailyRate(new BigDecimal("-73000"), ACCRUAL_DATE)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAccruesTheUnfinishedDaysFirst() {
+        LocalDate unfinishedDate = ACCRUAL_DATE.minusDays(1);
+        when(interestAccrualRunRepository.findByCompletedAtIsNullOrderByAccrualDate())
+                .thenReturn(Collections.singletonList(InterestAccrualRun.builder().accrualDate(unfinishedDate).accountsAccrued(5).build()));
+        when(interestAccrualRunRepository.findById(ACCRUAL_DATE)).thenReturn(Optional.empty());
+        when(jdbcTemplate.queryForObject("select min(transaction_id) from transaction", Long.class)).thenReturn(5L);
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(2L);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> Arrays.asList(
+                Account.builder().accountId(1L).accountNumber("1234").accountCurrency("RON").accountValue(10000L).version(3L).build(),
+                Account.builder().accountId(2L).accountNumber("5678").accountCurrency("RON").accountValue(0L).version(0L).build()));
+
+        InterestAccrualReport report = interestAccrualService.accrue(ACCRUAL_DATE);
+
+        assertEquals(InterestAccrualStatus.COMPLETED, report.getStatus());
+        assertEquals(Arrays.asList(unfinishedDate, ACCRUAL_DATE), report.getAccrualDates());
+        assertEquals(2L, report.getChunks());
+        assertEquals(4L, report.getAccountsAccrued());
+
+        ArgumentCaptor<TransactionPostedEvent> events = ArgumentCaptor.forClass(TransactionPostedEvent.class);
+        verify(applicationEventPublisher, times(2)).publishEvent(events.capture());
+        List<Transaction> transactions = events.getAllValues().get(0).getTransactions();
+        assertEquals(1, transactions.size());
+        assertEquals(-1L, transactions.get(0).getTransactionId());
+        assertEquals(1L, transactions.get(0).getReceiverAmount());
+        assertEquals(InterestAccrualService.INTEREST_ACCOUNT_NUMBER, transactions.get(0).getTransactionSender());
+        assertNull(transactions.get(0).getAccount());
+        Account account = events.getAllValues().get(0).getAccounts().iterator().next();
+        assertEquals(10001L, account.getAccountValue());
+        assertEquals(Long.valueOf(4L), account.getVersion());
+        assertEquals(-2L, events.getAllValues().get(1).getTransactions().get(0).getTransactionId());
+
+        ArgumentCaptor<InterestAccrualRun> runs = ArgumentCaptor.forClass(InterestAccrualRun.class);
+        verify(interestAccrualRunRepository, times(3)).save(runs.capture());
+        assertEquals(unfinishedDate, runs.getAllValues().get(1).getAccrualDate());
+        assertEquals(7L, runs.getAllValues().get(1).getAccountsAccrued());
+        assertNotNull(runs.getAllValues().get(2).getCompletedAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChunksFollowTheStoredAccountIds() {
+        when(interestAccrualRunRepository.findByCompletedAtIsNullOrderByAccrualDate()).thenReturn(Collections.emptyList());
+        when(interestAccrualRunRepository.findById(ACCRUAL_DATE)).thenReturn(Optional.empty());
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(5_000_000L);
+        when(jdbcTemplate.queryForList(InterestAccrualService.SELECT_NEXT_CHUNK_START, Long.class, 1L, 10))
+                .thenReturn(Collections.singletonList(1_000_000L));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(Collections.emptyList());
+
+        InterestAccrualReport report = interestAccrualService.accrue(ACCRUAL_DATE);
+
+        assertEquals(InterestAccrualStatus.COMPLETED, report.getStatus());
+        assertEquals(2L, report.getChunks());
+        verify(jdbcTemplate, times(2)).queryForList(eq(InterestAccrualService.SELECT_NEXT_CHUNK_START), eq(Long.class), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCompletedDayIsNotAccruedAgain() {
+        when(interestAccrualRunRepository.findByCompletedAtIsNullOrderByAccrualDate()).thenReturn(Collections.emptyList());
+        when(interestAccrualRunRepository.findById(ACCRUAL_DATE)).thenReturn(Optional.of(InterestAccrualRun.builder().accrualDate(ACCRUAL_DATE).build()));
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(2L);
+
+        InterestAccrualReport report = interestAccrualService.accrue(ACCRUAL_DATE);
+
+        assertEquals(InterestAccrualStatus.COMPLETED, report.getStatus());
+        assertEquals(0, report.getAccrualDates().size());
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verify(applicationEventPublisher, never()).publishEvent(any(TransactionPostedEvent.class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.model.AccountContention;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OptimisticRetryExecutorTest {
+
+    private final OptimisticRetryExecutor optimisticRetryExecutor = new OptimisticRetryExecutor(3, 1, 2);
+
+    @Test
+    void testExecuteRetriesAfterConflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetryExecutor.execute(() -> {
+            if (attempts.incrementAndGet() < 3)
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            return "posted";
+        }, 1L, 2L);
+
+        assertEquals("posted", result);
+        assertEquals(3, attempts.get());
+        List<AccountContention> contention = optimisticRetryExecutor.getContention();
+        assertEquals(2, contention.size());
+        assertEquals(2L, contention.get(0).getConflicts());
+        assertEquals(2L, contention.get(0).getRetries());
+        assertEquals(0L, contention.get(0).getFailures());
+    }
+
+    @Test
+    void testExecuteGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticRetryExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", 1L);
+        }, 1L));
+
+        assertEquals(3, attempts.get());
+        AccountContention contention = optimisticRetryExecutor.getContention().get(0);
+        assertEquals(1L, contention.getAccountId());
+        assertEquals(3L, contention.getConflicts());
+        assertEquals(1L, contention.getFailures());
+    }
+
+    @Test
+    void testAccountsWithoutARecentConflictAreEvicted() {
+        for (long accountId = 1; accountId <= 3; accountId++) {
+            long conflictingAccountId = accountId;
+            AtomicInteger attempts = new AtomicInteger();
+            optimisticRetryExecutor.execute(() -> {
+                if (attempts.incrementAndGet() < 2)
+                    throw new ObjectOptimisticLockingFailureException("Account", conflictingAccountId);
+                return null;
+            }, accountId, 1L);
+        }
+
+        List<AccountContention> contention = optimisticRetryExecutor.getContention();
+        assertEquals(2, contention.size());
+        assertEquals(1L, contention.get(0).getAccountId());
+        assertEquals(4L, contention.get(0).getConflicts());
+        assertEquals(3L, contention.get(1).getAccountId());
+    }
+}
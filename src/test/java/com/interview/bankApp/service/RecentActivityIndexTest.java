@@ -0,0 +1,87 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.event.AccountChangedEvent;
+import com.interview.bankApp.event.TransactionPostedEvent;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class RecentActivityIndexTest {
+
+    private RecentActivityIndex recentActivityIndex;
+
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        recentActivityIndex = new RecentActivityIndex(48);
+        recentActivityIndex.transactionRepository = transactionRepository;
+    }
+
+    @Test
+    void testCoversOnlyTheRetentionWindow() {
+        assertTrue(recentActivityIndex.covers(LocalDateTime.now().minusHours(47)));
+        assertFalse(recentActivityIndex.covers(LocalDateTime.now().minusHours(49)));
+    }
+
+    @Test
+    void testIndexIsLoadedOnFirstAccessAndUpdatedOnCommit() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, now.minusHours(30)});
+        rows.add(new Object[]{2L, now.minusHours(2)});
+        when(transactionRepository.findAccountTransactionDatesSince(eq(7L), any(LocalDateTime.class))).thenReturn(rows);
+
+        assertFalse(recentActivityIndex.isLoaded(7L));
+        assertEquals(Collections.singletonList(2L), recentActivityIndex.getTransactionIdsSince(7L, now.minusHours(3)));
+        assertTrue(recentActivityIndex.isLoaded(7L));
+
+        recentActivityIndex.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(3L, now, 7L)), Collections.emptyList()));
+        List<Long> transactionIds = recentActivityIndex.getTransactionIdsSince(7L, now.minusHours(40));
+        Collections.sort(transactionIds);
+
+        assertEquals(3, transactionIds.size());
+        assertEquals(Long.valueOf(3L), transactionIds.get(2));
+        verify(transactionRepository, times(1)).findAccountTransactionDatesSince(eq(7L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testPostingsOfAccountsThatAreNotLoadedAreIgnored() {
+        recentActivityIndex.onTransactionPosted(new TransactionPostedEvent(
+                Collections.singletonList(transaction(3L, LocalDateTime.now(), 7L)), Collections.emptyList()));
+
+        assertFalse(recentActivityIndex.isLoaded(7L));
+    }
+
+    @Test
+    void testDeletedAccountIsDropped() {
+        recentActivityIndex.getTransactionIdsSince(7L, LocalDateTime.now().minusHours(1));
+        assertTrue(recentActivityIndex.isLoaded(7L));
+
+        recentActivityIndex.onAccountChanged(new AccountChangedEvent(7L, null));
+
+        assertFalse(recentActivityIndex.isLoaded(7L));
+    }
+
+    private Transaction transaction(long transactionId, LocalDateTime transactionDate, long accountId) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .transactionDate(transactionDate)
+                .account(Account.builder().accountId(accountId).build())
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.model.ReconciliationReport;
+import com.interview.bankApp.model.ReconciliationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ReconciliationServiceTest {
+
+    private ReconciliationService reconciliationService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        reconciliationService = new ReconciliationService(10, 2, 3);
+        reconciliationService.jdbcTemplate = jdbcTemplate;
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliationService.stop();
+    }
+
+    @Test
+    void testAccountsArePartitionedByIdAndMismatchesAreReported() {
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(100L);
+        // the account ids are 1 to 100, every 10th one starts a partition
+        when(jdbcTemplate.queryForList(eq(ReconciliationService.SELECT_NEXT_PARTITION_START), eq(Long.class), anyLong(), eq(10L))).thenAnswer(invocation -> {
+            long partitionStart = invocation.getArgument(2);
+            return partitionStart + 10 <= 100 ? Collections.singletonList(partitionStart + 10) : Collections.emptyList();
+        });
+        // every account reconciles except the ones whose id is a multiple of 7
+        doAnswer(invocation -> {
+            long[] range = range(invocation.getArgument(0));
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long accountId = range[0]; accountId < range[1]; accountId++) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getLong(1)).thenReturn(accountId);
+                when(resultSet.getLong(2)).thenReturn(1000L);
+                when(resultSet.getLong(3)).thenReturn(accountId % 7 == 0 ? 900L : 1000L);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(ReconciliationStatus.COMPLETED, report.getStatus());
+        assertEquals(100L, report.getAccountsChecked());
+        assertEquals(14L, report.getMismatchCount());
+        assertEquals(3, report.getMismatches().size());
+        assertEquals(900L, report.getMismatches().get(0).getExpectedValue());
+        assertEquals(10L, report.getPartitions());
+        verify(jdbcTemplate, times(10)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testSparseAccountIdsDoNotProduceEmptyPartitions() {
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(1_000_000L);
+        when(jdbcTemplate.queryForList(ReconciliationService.SELECT_NEXT_PARTITION_START, Long.class, 1L, 10L))
+                .thenReturn(Collections.singletonList(500_000L));
+
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(ReconciliationStatus.COMPLETED, report.getStatus());
+        assertEquals(2L, report.getPartitions());
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testNoAccounts() {
+        when(jdbcTemplate.queryForObject("select min(account_id) from account", Long.class)).thenReturn(null);
+        when(jdbcTemplate.queryForObject("select max(account_id) from account", Long.class)).thenReturn(null);
+
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(ReconciliationStatus.COMPLETED, report.getStatus());
+        assertEquals(0L, report.getAccountsChecked());
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static long[] range(PreparedStatementCreator creator) throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(ReconciliationService.SELECT_ACCOUNT_RANGE)).thenReturn(statement);
+        creator.createPreparedStatement(connection);
+        ArgumentCaptor<Long> bounds = ArgumentCaptor.forClass(Long.class);
+        verify(statement, times(2)).setLong(anyInt(), bounds.capture());
+        return new long[]{bounds.getAllValues().get(0), bounds.getAllValues().get(1)};
+    }
+}
@@ -0,0 +1,342 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InsufficientAmountException;
+import com.interview.bankApp.exception.InvalidTransactionException;
+import com.interview.bankApp.fx.FxRateService;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionResult;
+import com.interview.bankApp.model.TransactionResultStatus;
+import com.interview.bankApp.repository.AccountRepository;
+import com.interview.bankApp.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+public class TransactionPostingServiceTest {
+
+    @InjectMocks
+    private TransactionPostingService transactionPostingService;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Spy
+    private FxRateService fxRateService = new FxRateService("");
+
+    @Test
+    void testPost() throws AccountNotFoundException {
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(1000L)
+                .build();
+        Account senderAccount = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(9000L)
+                .build();
+
+        Account receiverAccount = Account.builder()
+                .accountId(2L)
+                .accountNumber("5678")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(1000L)
+                .build();
+
+        when(accountService.accountValueUpdateSender(transaction)).thenReturn(senderAccount);
+        when(accountService.accountValueUpdateReceiver(transaction)).thenReturn(receiverAccount);
+        transactionPostingService.post(transaction);
+
+        verify(accountService, times(1)).accountValueUpdateSender(transaction);
+        verify(accountService, times(1)).accountValueUpdateReceiver(transaction);
+        verify(entityManager, times(1)).persist(transaction);
+        assertEquals(senderAccount, transaction.getAccount());
+    }
+
+    @Test
+    void testPostInsufficientFundsDoesNotStoreTransaction() throws AccountNotFoundException {
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(100000L)
+                .build();
+
+        when(accountService.accountValueUpdateSender(transaction)).thenThrow(new InsufficientAmountException("insufficient funds"));
+
+        assertThrows(InsufficientAmountException.class, () -> transactionPostingService.post(transaction));
+        verify(accountService, never()).accountValueUpdateReceiver(any());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void testPostSameTransactionIdTwice() throws AccountNotFoundException {
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(1000L)
+                .build();
+        Account senderAccount = Account.builder().accountId(1L).accountNumber("1234").accountCurrency("RON").accountValue(9000L).build();
+        Account receiverAccount = Account.builder().accountId(2L).accountNumber("5678").accountCurrency("RON").accountValue(1000L).build();
+
+        when(transactionRepository.existsById(1L)).thenReturn(false, true);
+        when(accountService.accountValueUpdateSender(transaction)).thenReturn(senderAccount);
+        when(accountService.accountValueUpdateReceiver(transaction)).thenReturn(receiverAccount);
+        transactionPostingService.post(transaction);
+
+        InvalidTransactionException exception = assertThrows(InvalidTransactionException.class, () -> transactionPostingService.post(transaction));
+        assertEquals("Transaction with ID = 1 already exists", exception.getMessage());
+        verify(accountService, times(1)).accountValueUpdateSender(transaction);
+        verify(accountService, times(1)).accountValueUpdateReceiver(transaction);
+        verify(entityManager, times(1)).persist(transaction);
+    }
+
+    @Test
+    void testPostRejectsTransactionDatedBeforeTheLastCheckpoint() throws AccountNotFoundException {
+        LocalDateTime transactionDate = LocalDateTime.of(2020, 11, 2, 12, 0);
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(transactionDate)
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(1000L)
+                .build();
+        Account senderAccount = Account.builder().accountId(1L).accountNumber("1234").accountCurrency("RON").accountValue(9000L).build();
+        Account receiverAccount = Account.builder().accountId(2L).accountNumber("5678").accountCurrency("RON").accountValue(1000L).build();
+
+        when(accountService.accountValueUpdateSender(transaction)).thenReturn(senderAccount);
+        when(accountService.accountValueUpdateReceiver(transaction)).thenReturn(receiverAccount);
+        when(balanceCheckpointService.isCheckpointed(1L, transactionDate, 1L)).thenReturn(false);
+        when(balanceCheckpointService.isCheckpointed(2L, transactionDate, 1L)).thenReturn(true);
+
+        InvalidTransactionException exception = assertThrows(InvalidTransactionException.class, () -> transactionPostingService.post(transaction));
+        assertEquals("The transaction is dated at or before the last balance checkpoint of the account with account number = 5678", exception.getMessage());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void testPostBatch() {
+        Account senderAccount = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(10000L)
+                .build();
+        Account receiverAccount = Account.builder()
+                .accountId(2L)
+                .accountNumber("5678")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(0L)
+                .build();
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            transactions.add(Transaction.builder()
+                    .transactionCurrency("RON")
+                    .transactionId(id)
+                    .transactionDate(LocalDateTime.now())
+                    .transactionReceiver("5678")
+                    .transactionSender("1234")
+                    .transactionValue(4000L)
+                    .build());
+        }
+        List<String> accountNumbers = Arrays.asList("1234", "5678");
+
+        when(accountRepository.findByAccountNumberIn(accountNumbers)).thenReturn(Arrays.asList(senderAccount, receiverAccount));
+        when(transactionRepository.findExistingTransactionIds(anyCollection())).thenReturn(Collections.emptyList());
+        List<TransactionResult> results = transactionPostingService.postBatch(transactions, accountNumbers);
+
+        assertEquals(TransactionResultStatus.ACCEPTED.toString(), results.get(0).getStatus());
+        assertEquals(TransactionResultStatus.ACCEPTED.toString(), results.get(1).getStatus());
+        assertEquals(TransactionResultStatus.REJECTED.toString(), results.get(2).getStatus());
+        assertEquals("The account with account number = 1234 has insufficient funds", results.get(2).getMessage());
+        assertEquals(2000L, senderAccount.getAccountValue());
+        assertEquals(8000L, receiverAccount.getAccountValue());
+        verify(entityManager, times(2)).persist(any());
+    }
+
+    @Test
+    void testPersistPostedAddsNetAmountToStoredValues() {
+        Account senderAccount = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(10000L)
+                .build();
+        Account receiverAccount = Account.builder()
+                .accountId(2L)
+                .accountNumber("5678")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(500L)
+                .build();
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            transactions.add(Transaction.builder()
+                    .transactionCurrency("RON")
+                    .transactionId(id)
+                    .transactionDate(LocalDateTime.now())
+                    .transactionReceiver("5678")
+                    .transactionSender("1234")
+                    .transactionValue(1000L)
+                    .senderAmount(1000L)
+                    .receiverAmount(1000L)
+                    .account(Account.builder().accountId(1L).build())
+                    .receiverAccount(Account.builder().accountId(2L).build())
+                    .build());
+        }
+
+        when(accountRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(senderAccount, receiverAccount));
+        transactionPostingService.persistPosted(transactions);
+
+        assertEquals(8000L, senderAccount.getAccountValue());
+        assertEquals(2500L, receiverAccount.getAccountValue());
+        assertEquals(senderAccount, transactions.get(0).getAccount());
+        assertEquals(receiverAccount, transactions.get(1).getReceiverAccount());
+        verify(entityManager, times(2)).persist(any());
+    }
+
+    @Test
+    void testPersistPostedRejectsTransferOfADeletedAccount() {
+        Account senderAccount = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(10000L)
+                .build();
+        Transaction kept = Transaction.builder()
+                .transactionId(1L)
+                .senderAmount(1000L)
+                .receiverAmount(1000L)
+                .account(Account.builder().accountId(1L).build())
+                .receiverAccount(Account.builder().accountId(1L).build())
+                .build();
+        Transaction dropped = Transaction.builder()
+                .transactionId(2L)
+                .senderAmount(1000L)
+                .receiverAmount(1000L)
+                .account(Account.builder().accountId(1L).build())
+                .receiverAccount(Account.builder().accountId(3L).build())
+                .build();
+
+        when(accountRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(senderAccount));
+        List<TransactionResult> rejections = transactionPostingService.persistPosted(Arrays.asList(kept, dropped));
+
+        assertEquals(1, rejections.size());
+        assertEquals(2L, rejections.get(0).getTransactionId());
+        assertEquals("Account with ID = 3 was not found", rejections.get(0).getMessage());
+        assertEquals(10000L, senderAccount.getAccountValue());
+        verify(entityManager, times(1)).persist(kept);
+        verify(entityManager, never()).persist(dropped);
+    }
+
+    @Test
+    void testPersistPostedRejectsStoredTransactionId() {
+        Account senderAccount = Account.builder().accountId(1L).accountNumber("1234").accountCurrency("RON").accountValue(10000L).build();
+        Account receiverAccount = Account.builder().accountId(2L).accountNumber("5678").accountCurrency("RON").accountValue(0L).build();
+        Transaction duplicate = Transaction.builder()
+                .transactionId(7L)
+                .senderAmount(1000L)
+                .receiverAmount(1000L)
+                .account(Account.builder().accountId(1L).build())
+                .receiverAccount(Account.builder().accountId(2L).build())
+                .build();
+
+        when(transactionRepository.findExistingTransactionIds(anyCollection())).thenReturn(Collections.singletonList(7L));
+        when(accountRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(senderAccount, receiverAccount));
+        List<TransactionResult> rejections = transactionPostingService.persistPosted(Collections.singletonList(duplicate));
+
+        assertEquals("Transaction with ID = 7 already exists", rejections.get(0).getMessage());
+        assertEquals(TransactionResultStatus.REJECTED.toString(), rejections.get(0).getStatus());
+        assertEquals(10000L, senderAccount.getAccountValue());
+        verify(entityManager, never()).persist(any());
+        verify(applicationEventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testPostBatchRejectsTransferWithoutExchangeRate() {
+        Account senderAccount = Account.builder()
+                .accountId(1L)
+                .accountNumber("1234")
+                .accountCurrency("RON")
+                .accountStatus("OPEN")
+                .accountValue(10000L)
+                .build();
+        Account receiverAccount = Account.builder()
+                .accountId(2L)
+                .accountNumber("5678")
+                .accountCurrency("EUR")
+                .accountStatus("OPEN")
+                .accountValue(0L)
+                .build();
+        List<Transaction> transactions = Collections.singletonList(Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(4000L)
+                .build());
+        List<String> accountNumbers = Arrays.asList("1234", "5678");
+
+        when(accountRepository.findByAccountNumberIn(accountNumbers)).thenReturn(Arrays.asList(senderAccount, receiverAccount));
+        when(transactionRepository.findExistingTransactionIds(anyCollection())).thenReturn(Collections.emptyList());
+        List<TransactionResult> results = transactionPostingService.postBatch(transactions, accountNumbers);
+
+        assertEquals(TransactionResultStatus.REJECTED.toString(), results.get(0).getStatus());
+        assertEquals("There is no exchange rate from RON to EUR", results.get(0).getMessage());
+        assertEquals(10000L, senderAccount.getAccountValue());
+        assertEquals(0L, receiverAccount.getAccountValue());
+        verify(entityManager, never()).persist(any());
+    }
+}
@@ -0,0 +1,94 @@
+package com.interview.bankApp.service;
+
+import com.interview.bankApp.exception.InsufficientAmountException;
+import com.interview.bankApp.model.Account;
+import com.interview.bankApp.model.AccountStatus;
+import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest
+public class TransactionServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 20;
+
+    private static final int TRANSFERS = 4000;
+
+    private static final int THREADS = 16;
+
+    private static final long INITIAL_VALUE = 100_000L;
+
+    private static final long FIRST_ACCOUNT_ID = 100_000L;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void testParallelTransfersConserveTotalMoney() throws Exception {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountRepository.save(Account.builder()
+                    .accountId(FIRST_ACCOUNT_ID + i)
+                    .accountNumber("STRESS" + i)
+                    .accountCurrency("RON")
+                    .accountStatus(AccountStatus.OPEN.toString())
+                    .accountValue(INITIAL_VALUE)
+                    .build());
+        }
+
+        AtomicLong transactionIds = new AtomicLong(FIRST_ACCOUNT_ID);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            Random random = new Random(i);
+            int sender = random.nextInt(ACCOUNTS);
+            int receiver = (sender + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            Transaction transaction = Transaction.builder()
+                    .transactionId(transactionIds.incrementAndGet())
+                    .transactionValue(1 + random.nextInt(10_000))
+                    .transactionDate(LocalDateTime.now())
+                    .transactionSender("STRESS" + sender)
+                    .transactionReceiver("STRESS" + receiver)
+                    .transactionCurrency("RON")
+                    .build();
+            futures.add(executor.submit(() -> {
+                try {
+                    transactionService.createTransaction(transaction);
+                } catch (InsufficientAmountException iae) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        long total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long accountValue = accountRepository.findById(FIRST_ACCOUNT_ID + i).get().getAccountValue();
+            assertTrue(accountValue >= 0);
+            total += accountValue;
+        }
+        assertEquals(ACCOUNTS * INITIAL_VALUE, total);
+        assertTrue(rejected.get() < TRANSFERS);
+    }
+}
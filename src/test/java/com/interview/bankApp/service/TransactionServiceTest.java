@@ -1,21 +1,36 @@
 package com.interview.bankApp.service;
 
 import com.interview.bankApp.exception.AccountNotFoundException;
+import com.interview.bankApp.exception.InvalidInputException;
+import com.interview.bankApp.exception.InvalidTransactionException;
 import com.interview.bankApp.exception.TransactionNotFoundException;
+import com.interview.bankApp.model.CursorPage;
 import com.interview.bankApp.model.Transaction;
+import com.interview.bankApp.model.TransactionCursor;
+import com.interview.bankApp.model.TransactionRow;
 import com.interview.bankApp.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -29,6 +44,14 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
     @Test
     void testGetTransactionById() throws TransactionNotFoundException {
         Transaction transaction = Transaction.builder()
@@ -37,14 +60,14 @@ public class TransactionServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
 
         when(transactionRepository.findById(1L)).thenReturn(java.util.Optional.ofNullable(transaction));
         Transaction returnedTransaction = transactionService.getTransactionById(1L);
 
         assertEquals(1L, returnedTransaction.getTransactionId());
-        assertEquals(new Double(10), returnedTransaction.getTransactionValue());
+        assertEquals(1000L, returnedTransaction.getTransactionValue());
     }
 
     @Test
@@ -57,31 +80,117 @@ public class TransactionServiceTest {
     }
 
     @Test
-    void testGetAllTransactions() {
+    void testCreateTransactionRejectsNonPositiveValue() {
         Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(-1000L)
+                .build();
+
+        InvalidTransactionException ite = assertThrows(InvalidTransactionException.class, () -> transactionService.createTransaction(transaction));
+        assertEquals("Transaction value should be positive, -1000 was entered", ite.getMessage());
+        transaction.setTransactionValue(0L);
+        assertThrows(InvalidTransactionException.class, () -> transactionService.createTransaction(transaction));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testCreateTransactionRejectsNonPositiveId() {
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(-1L)
+                .transactionDate(LocalDateTime.now())
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(1000L)
+                .build();
+
+        InvalidTransactionException ite = assertThrows(InvalidTransactionException.class, () -> transactionService.createTransaction(transaction));
+        assertEquals("Transaction ID should be positive, -1 was entered", ite.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testGetTransactions() throws InvalidInputException {
+        TransactionRow transaction = TransactionRow.builder()
                 .transactionCurrency("RON")
                 .transactionId(1L)
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
-        Transaction transaction2 = Transaction.builder()
+        TransactionRow transaction2 = TransactionRow.builder()
                 .transactionCurrency("RON")
                 .transactionId(2L)
                 .transactionDate(LocalDateTime.now())
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(100d)
+                .transactionValue(10000L)
                 .build();
-        List<Transaction> transactionList = new ArrayList<>();
+        List<TransactionRow> transactionList = new ArrayList<>();
         transactionList.add(transaction);
         transactionList.add(transaction2);
 
-        when(transactionRepository.findAll()).thenReturn(transactionList);
-        List<Transaction> returnedTransactionList = transactionService.getAllTransactions();
+        when(transactionRepository.findFirstTransactions(PageRequest.of(0, 3))).thenReturn(transactionList);
+        CursorPage<TransactionRow> page = transactionService.getTransactions(2, null);
+
+        assertEquals(transactionList, page.getItems());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void testGetTransactionsAfterCursor() throws InvalidInputException {
+        LocalDateTime transactionDate = LocalDateTime.of(2020, 11, 2, 21, 34, 55);
+        TransactionRow previous = TransactionRow.builder().transactionId(4L).transactionDate(transactionDate).build();
+        List<TransactionRow> transactionList = new ArrayList<>();
+        transactionList.add(TransactionRow.builder().transactionId(5L).transactionDate(transactionDate).build());
+        transactionList.add(TransactionRow.builder().transactionId(6L).transactionDate(transactionDate).build());
+
+        when(transactionRepository.findTransactionsAfter(transactionDate, 4L, PageRequest.of(0, 2))).thenReturn(transactionList);
+        CursorPage<TransactionRow> page = transactionService.getTransactions(1, TransactionCursor.encode(previous));
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(5L, page.getItems().get(0).getTransactionId());
+        assertEquals(TransactionCursor.encode(transactionList.get(0)), page.getNext());
+    }
+
+    @Test
+    void testGetTransactionsInvalidCursor() {
+        assertThrows(InvalidInputException.class, () -> transactionService.getTransactions(10, "not-a-cursor"));
+    }
+
+    @Test
+    void testExportTransactionsWritesOneLinePerTransaction() throws IOException {
+        Transaction transaction = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(1L)
+                .transactionDate(LocalDateTime.of(2020, 11, 2, 21, 34, 55))
+                .transactionReceiver("5678")
+                .transactionSender("1234")
+                .transactionValue(1000L)
+                .build();
+        Transaction transaction2 = Transaction.builder()
+                .transactionCurrency("RON")
+                .transactionId(2L)
+                .transactionDate(LocalDateTime.of(2020, 11, 3, 10, 0, 0))
+                .transactionReceiver("1234")
+                .transactionSender("5678")
+                .transactionValue(500L)
+                .build();
+        when(transactionRepository.streamAllTransactions()).thenReturn(Stream.of(transaction, transaction2));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long exported = transactionService.exportTransactions(outputStream);
 
-        assertEquals(returnedTransactionList, transactionList);
+        String[] lines = outputStream.toString("UTF-8").split("\n");
+        assertEquals(2L, exported);
+        assertEquals(2, lines.length);
+        assertEquals(transaction, objectMapper.readValue(lines[0], Transaction.class));
+        assertEquals(transaction2, objectMapper.readValue(lines[1], Transaction.class));
     }
 
     @Test
@@ -98,7 +207,7 @@ public class TransactionServiceTest {
                 .transactionDate(LocalDateTime.now().minusMonths(1))
                 .transactionReceiver("5678")
                 .transactionSender("1234")
-                .transactionValue(10d)
+                .transactionValue(1000L)
                 .build();
 
         transactionRepository.save(transaction);